@@ -0,0 +1,23 @@
+package com.sachess.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class HttpCachingConfig {
+
+    // List endpoints are rebuilt per request, but an unchanged body is answered with 304 and no payload.
+    // Single games carry a version-cached ETag from GameController instead.
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> gameListEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns(
+                "/api/games/active", "/api/games/active/page",
+                "/api/games/waiting", "/api/games/waiting/page",
+                "/api/games/my-games", "/api/games/my-games/page");
+        return registration;
+    }
+}
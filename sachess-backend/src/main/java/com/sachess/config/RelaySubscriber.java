@@ -0,0 +1,207 @@
+package com.sachess.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Server-side subscriptions to broker topics in relay mode, so a node can react to what other nodes
+ * publish (not just forward it to its clients). One STOMP connection per node with the relay's
+ * credentials; subscriptions are replayed after a reconnect, and anything published while
+ * disconnected is missed, so callers need their own way to catch up. Without a relay every
+ * publisher is local and {@link #subscribe} does nothing.
+ */
+@Component
+@Slf4j
+public class RelaySubscriber {
+
+    @Value("${websocket.broker.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${websocket.broker.relay.reconnect-delay-ms:5000}")
+    private long reconnectDelayMs;
+
+    // destination -> handler of the raw message body
+    private final Map<String, Consumer<byte[]>> handlers = new ConcurrentHashMap<>();
+    private final Map<String, StompSession.Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService reconnects = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "relay-subscriber");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ReactorNettyTcpStompClient client;
+    private volatile StompSession session;
+    private volatile boolean stopped;
+    private final AtomicBoolean reconnectScheduled = new AtomicBoolean();
+
+    @PostConstruct
+    public void start() {
+        if (!relayEnabled) {
+            return;
+        }
+        client = new ReactorNettyTcpStompClient(relayHost, relayPort);
+        connect();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        reconnects.shutdownNow();
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            current.disconnect();
+        }
+        if (client != null) {
+            client.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return relayEnabled;
+    }
+
+    public boolean isConnected() {
+        StompSession current = session;
+        return current != null && current.isConnected();
+    }
+
+    /** Calls the handler with the body of every message published to the destination, from any node. */
+    public void subscribe(String destination, Consumer<byte[]> handler) {
+        if (!relayEnabled) {
+            return;
+        }
+        handlers.put(destination, handler);
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            subscribeOn(current, destination);
+        }
+    }
+
+    public synchronized void unsubscribe(String destination) {
+        if (handlers.remove(destination) == null) {
+            return;
+        }
+        StompSession.Subscription subscription = subscriptions.remove(destination);
+        if (subscription != null && isConnected()) {
+            subscription.unsubscribe();
+        }
+    }
+
+    private void connect() {
+        if (stopped) {
+            return;
+        }
+        StompHeaders headers = new StompHeaders();
+        headers.setLogin(relayLogin);
+        headers.setPasscode(relayPasscode);
+        // No heart-beats: this client has no scheduler to send them, and a lost connection is reported anyway
+        headers.setHeartbeat(new long[]{0, 0});
+        if (!relayVirtualHost.isBlank()) {
+            headers.setHost(relayVirtualHost);
+        }
+        // A failed attempt is reported to the handler as a transport error, which schedules the next one
+        client.connectAsync(headers, new Handler());
+    }
+
+    private void scheduleReconnect() {
+        if (!stopped && reconnectScheduled.compareAndSet(false, true)) {
+            reconnects.schedule(() -> {
+                reconnectScheduled.set(false);
+                connect();
+            }, reconnectDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Synchronized so a subscribe racing the replay after a reconnect can't subscribe twice
+    private synchronized void subscribeOn(StompSession current, String destination) {
+        if (!handlers.containsKey(destination) || subscriptions.containsKey(destination) || current != session) {
+            return;
+        }
+        subscriptions.put(destination, current.subscribe(destination, new StompFrameHandler() {
+            @Override
+            @NonNull
+            public Type getPayloadType(@NonNull StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(@NonNull StompHeaders headers, Object payload) {
+                Consumer<byte[]> handler = handlers.get(destination);
+                if (handler == null) {
+                    return;
+                }
+                try {
+                    handler.accept((byte[]) payload);
+                } catch (RuntimeException e) {
+                    log.error("Relay subscriber failed to handle a message on {}: {}", destination, e.getMessage());
+                }
+            }
+        }));
+    }
+
+    private class Handler extends StompSessionHandlerAdapter {
+
+        @Override
+        public void afterConnected(@NonNull StompSession connected, @NonNull StompHeaders connectedHeaders) {
+            synchronized (RelaySubscriber.this) {
+                session = connected;
+                subscriptions.clear();
+                handlers.keySet().forEach(destination -> subscribeOn(connected, destination));
+            }
+            log.info("Relay subscriber connected to {}:{}", relayHost, relayPort);
+        }
+
+        @Override
+        public void handleException(@NonNull StompSession failed, StompCommand command, @NonNull StompHeaders headers,
+                                    @NonNull byte[] payload, @NonNull Throwable exception) {
+            log.error("Relay subscriber error: {}", exception.getMessage());
+        }
+
+        @Override
+        public void handleTransportError(@NonNull StompSession failed, @NonNull Throwable exception) {
+            // Also called when the connection is lost or could not be established
+            log.warn("Relay subscriber disconnected from {}:{}: {}", relayHost, relayPort, exception.getMessage());
+            synchronized (RelaySubscriber.this) {
+                if (session == failed) {
+                    session = null;
+                }
+            }
+            scheduleReconnect();
+        }
+    }
+}
@@ -41,9 +41,12 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/ws/**").permitAll()
+                .requestMatchers("/ws-binary").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
-                .requestMatchers("/api/games/active").permitAll()
+                .requestMatchers("/api/games/active", "/api/games/active/page").permitAll()
                 .requestMatchers("/api/leaderboard/**").permitAll()
+                .requestMatchers("/api/explorer/**").permitAll()
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session
@@ -1,7 +1,8 @@
 package com.sachess.config;
 
+import com.sachess.service.LagCompensationService;
 import com.sachess.service.MatchmakingService;
-import com.sachess.service.UserService;
+import com.sachess.service.PresenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
@@ -17,8 +18,9 @@ import java.security.Principal;
 @Slf4j
 public class WebSocketEventListener {
 
-    private final UserService userService;
+    private final PresenceService presenceService;
     private final MatchmakingService matchmakingService;
+    private final LagCompensationService lagCompensationService;
 
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
@@ -27,7 +29,7 @@ public class WebSocketEventListener {
         
         if (principal != null) {
             String userId = principal.getName();
-            userService.setOnlineStatus(userId, true);
+            presenceService.sessionConnected(userId, headerAccessor.getSessionId());
             log.info("User connected: {}", userId);
         }
     }
@@ -39,8 +41,9 @@ public class WebSocketEventListener {
         
         if (principal != null) {
             String userId = principal.getName();
-            userService.setOnlineStatus(userId, false);
+            presenceService.sessionDisconnected(userId, event.getSessionId());
             matchmakingService.leaveQueue(userId);
+            lagCompensationService.forgetSession(userId, event.getSessionId());
             log.info("User disconnected: {}", userId);
         }
     }
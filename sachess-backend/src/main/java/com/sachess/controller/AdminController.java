@@ -0,0 +1,54 @@
+package com.sachess.controller;
+
+import com.sachess.service.EngineJobScheduler;
+import com.sachess.service.PositionSearchService;
+import com.sachess.service.RatingRecomputeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final RatingRecomputeService ratingRecomputeService;
+    private final EngineJobScheduler engineJobScheduler;
+    private final PositionSearchService positionSearchService;
+
+    @PostMapping("/ratings/recompute")
+    public ResponseEntity<Map<String, Object>> recomputeRatings(
+            @RequestParam(defaultValue = "elo") String model) {
+        try {
+            return ResponseEntity.accepted().body(ratingRecomputeService.start(model));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/ratings/recompute")
+    public ResponseEntity<Map<String, Object>> getRecomputeStatus() {
+        return ResponseEntity.ok(ratingRecomputeService.getStatus());
+    }
+
+    @PostMapping("/positions/backfill")
+    public ResponseEntity<Map<String, Object>> backfillPositions() {
+        try {
+            return ResponseEntity.accepted().body(positionSearchService.startBackfill());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/positions/backfill")
+    public ResponseEntity<Map<String, Object>> getBackfillStatus() {
+        return ResponseEntity.ok(positionSearchService.getStatus());
+    }
+
+    @GetMapping("/engine/stats")
+    public ResponseEntity<Map<String, Object>> getEngineStats() {
+        return ResponseEntity.ok(engineJobScheduler.getStats());
+    }
+}
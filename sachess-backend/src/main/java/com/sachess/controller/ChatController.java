@@ -25,7 +25,7 @@ public class ChatController {
             @RequestBody Map<String, String> request) {
         try {
             String content = request.get("content");
-            ChatMessageDTO message = chatService.sendMessage(gameId, user.getId(), content);
+            ChatMessageDTO message = chatService.sendMessage(gameId, user.getId(), user.getUsername(), content);
             return ResponseEntity.ok(message);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
@@ -0,0 +1,25 @@
+package com.sachess.controller;
+
+import com.sachess.service.OpeningExplorerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/explorer")
+@RequiredArgsConstructor
+public class ExplorerController {
+
+    private final OpeningExplorerService openingExplorerService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> explore(@RequestParam String fen) {
+        try {
+            return ResponseEntity.ok(openingExplorerService.explore(fen));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid FEN"));
+        }
+    }
+}
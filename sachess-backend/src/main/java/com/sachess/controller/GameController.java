@@ -1,14 +1,20 @@
 package com.sachess.controller;
 
 import com.sachess.dto.GameDTO;
+import com.sachess.dto.GamePage;
 import com.sachess.dto.MoveRequest;
 import com.sachess.entity.User;
 import com.sachess.service.GameService;
+import com.sachess.service.GameSnapshotCache;
 import com.sachess.service.MatchmakingService;
+import com.sachess.service.PositionSearchService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -20,6 +26,7 @@ public class GameController {
 
     private final GameService gameService;
     private final MatchmakingService matchmakingService;
+    private final PositionSearchService positionSearchService;
 
     @PostMapping("/create")
     public ResponseEntity<GameDTO> createGame(
@@ -58,6 +65,29 @@ public class GameController {
         }
     }
 
+    @PostMapping("/{gameId}/premove")
+    public ResponseEntity<Void> queuePremove(
+            @PathVariable String gameId,
+            @AuthenticationPrincipal User user,
+            @RequestBody MoveRequest moveRequest) {
+        try {
+            moveRequest.setGameId(gameId);
+            moveRequest.setPlayerId(user.getId());
+            gameService.queuePremove(moveRequest);
+            return ResponseEntity.ok().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/{gameId}/premove/cancel")
+    public ResponseEntity<Void> cancelPremoves(
+            @PathVariable String gameId,
+            @AuthenticationPrincipal User user) {
+        gameService.cancelPremoves(gameId, user.getId());
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping("/{gameId}/resign")
     public ResponseEntity<GameDTO> resign(
             @PathVariable String gameId,
@@ -107,10 +137,18 @@ public class GameController {
     }
 
     @GetMapping("/{gameId}")
-    public ResponseEntity<GameDTO> getGame(@PathVariable String gameId) {
+    public ResponseEntity<byte[]> getGame(@PathVariable String gameId, WebRequest request) {
         try {
-            GameDTO game = gameService.getGame(gameId);
-            return ResponseEntity.ok(game);
+            GameSnapshotCache.Snapshot snapshot = gameService.getGameSnapshot(gameId);
+            if (request.checkNotModified(snapshot.etag())) {
+                // 304 with the ETag already set by checkNotModified
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(snapshot.body());
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -131,13 +169,66 @@ public class GameController {
         return ResponseEntity.ok(gameService.getPlayerGames(user.getId()));
     }
 
+    // Keyset-paginated list views: summaries without move lists, players fetched in the same query
+    @GetMapping("/active/page")
+    public ResponseEntity<GamePage> getActiveGamesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(gameService.getActiveGamesPage(cursor, clampPageSize(limit)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/waiting/page")
+    public ResponseEntity<GamePage> getWaitingGamesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(gameService.getWaitingGamesPage(cursor, clampPageSize(limit)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/my-games/page")
+    public ResponseEntity<GamePage> getMyGamesPage(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(gameService.getPlayerGamesPage(user.getId(), cursor, clampPageSize(limit)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Completed games that reached the position, most recently finished first
+    @GetMapping("/positions/page")
+    public ResponseEntity<GamePage> getPositionGamesPage(
+            @RequestParam String fen,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(positionSearchService.getGamesPage(fen, cursor, clampPageSize(limit)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, 100));
+    }
+
     @PostMapping("/{gameId}/analyze")
     public ResponseEntity<Void> analyzePosition(
             @PathVariable String gameId,
+            @AuthenticationPrincipal User user,
             @RequestBody Map<String, String> request) {
         String fen = request.get("fen");
         if (fen != null) {
-            gameService.analyzePosition(gameId, fen);
+            gameService.analyzePosition(gameId, fen, user.getId());
         }
         return ResponseEntity.ok().build();
     }
@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/leaderboard")
@@ -18,6 +19,22 @@ public class LeaderboardController {
     @GetMapping
     public ResponseEntity<List<UserDTO>> getLeaderboard(
             @RequestParam(defaultValue = "100") int limit) {
-        return ResponseEntity.ok(userService.getLeaderboard(Math.min(limit, 100)));
+        return ResponseEntity.ok(userService.getLeaderboard(Math.max(1, Math.min(limit, 100))));
+    }
+
+    @GetMapping("/rank/{userId}")
+    public ResponseEntity<Map<String, Object>> getRank(@PathVariable String userId) {
+        try {
+            return ResponseEntity.ok(userService.getRank(userId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/around/{userId}")
+    public ResponseEntity<List<Map<String, Object>>> getPlayersAround(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "5") int window) {
+        return ResponseEntity.ok(userService.getPlayersAround(userId, Math.max(0, Math.min(window, 25))));
     }
 }
@@ -3,8 +3,11 @@ package com.sachess.controller;
 import com.sachess.dto.ChatMessageDTO;
 import com.sachess.dto.GameMessage;
 import com.sachess.dto.MoveRequest;
+import com.sachess.security.StompPrincipal;
 import com.sachess.service.ChatService;
 import com.sachess.service.GameService;
+import com.sachess.service.LagCompensationService;
+import com.sachess.service.LobbyService;
 import com.sachess.service.MatchmakingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +15,9 @@ import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
@@ -25,6 +31,9 @@ public class WebSocketController {
     private final GameService gameService;
     private final ChatService chatService;
     private final MatchmakingService matchmakingService;
+    private final LagCompensationService lagCompensationService;
+    private final LobbyService lobbyService;
+    private final SimpMessagingTemplate messagingTemplate;
 
     @MessageMapping("/game/{gameId}/move")
     public void handleMove(
@@ -42,6 +51,31 @@ public class WebSocketController {
         }
     }
 
+    @MessageMapping("/game/{gameId}/premove")
+    public void handlePremove(
+            @DestinationVariable String gameId,
+            @Payload MoveRequest moveRequest,
+            Principal principal) {
+        try {
+            if (principal != null) {
+                moveRequest.setGameId(gameId);
+                moveRequest.setPlayerId(principal.getName());
+                gameService.queuePremove(moveRequest);
+            }
+        } catch (Exception e) {
+            log.error("Error queueing premove: {}", e.getMessage());
+        }
+    }
+
+    @MessageMapping("/game/{gameId}/premove/cancel")
+    public void handlePremoveCancel(
+            @DestinationVariable String gameId,
+            Principal principal) {
+        if (principal != null) {
+            gameService.cancelPremoves(gameId, principal.getName());
+        }
+    }
+
     @MessageMapping("/game/{gameId}/resign")
     public void handleResign(
             @DestinationVariable String gameId,
@@ -94,13 +128,20 @@ public class WebSocketController {
         }
     }
 
+    // Subscribing to /app/lobby answers once with the current seeks; diffs follow on /topic/lobby
+    @SubscribeMapping("/lobby")
+    public LobbyService.LobbySnapshot handleLobbySubscribe() {
+        return lobbyService.snapshot();
+    }
+
     @MessageMapping("/game/{gameId}/analyze")
     public void handleAnalyzeRequest(
             @DestinationVariable String gameId,
-            @Payload Map<String, String> request) {
+            @Payload Map<String, String> request,
+            Principal principal) {
         String fen = request.get("fen");
-        if (fen != null) {
-            gameService.analyzePosition(gameId, fen);
+        if (fen != null && principal != null) {
+            gameService.analyzePosition(gameId, fen, principal.getName());
         }
     }
 
@@ -110,9 +151,10 @@ public class WebSocketController {
             @Payload Map<String, String> message,
             Principal principal) {
         try {
-            if (principal != null) {
+            // The sender's name comes from the session principal, not a user lookup
+            if (principal instanceof StompPrincipal sender) {
                 String content = message.get("content");
-                chatService.sendMessage(gameId, principal.getName(), content);
+                chatService.sendMessage(gameId, sender.userId(), sender.username(), content);
             }
         } catch (Exception e) {
             log.error("Error processing chat message: {}", e.getMessage());
@@ -134,6 +176,29 @@ public class WebSocketController {
         }
     }
 
+    // Answered on the pinging session only; the user's other tabs measure their own links
+    @MessageMapping("/ping")
+    @SendToUser(destinations = "/queue/pong", broadcast = false)
+    public Map<String, Long> handlePing(Principal principal, SimpMessageHeaderAccessor headerAccessor) {
+        if (principal == null) {
+            return null;
+        }
+        // Client must echo the token to /app/pong immediately; the gap is the round trip
+        long token = lagCompensationService.issueProbe(headerAccessor.getSessionId());
+        return Map.of("token", token, "serverTime", System.currentTimeMillis());
+    }
+
+    @MessageMapping("/pong")
+    public void handlePong(
+            @Payload Map<String, Long> request,
+            Principal principal,
+            SimpMessageHeaderAccessor headerAccessor) {
+        Long token = request.get("token");
+        if (principal != null && token != null) {
+            lagCompensationService.recordEcho(principal.getName(), headerAccessor.getSessionId(), token);
+        }
+    }
+
     @MessageMapping("/matchmaking/leave")
     public void handleLeaveMatchmaking(Principal principal) {
         try {
@@ -6,6 +6,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -51,7 +53,13 @@ public class GameMessage {
         private String bestMove;
         private int evaluation; // Centipawns
         private String pv; // Principal variation
-        private int depth;
+        private int depth; // Depth actually reached
         private String mate; // Mate in X moves
+        private long nodes;
+        private long nodesPerSecond;
+        private long timeMs;
+        private String limit; // "depth N" or "movetime N", as chosen by the adaptive policy
+        private String engine; // "stockfish", "java" (in-process fallback), "tablebase" or "book"
+        private List<String> bookMoves; // Book moves by descending weight, when answered from the opening book
     }
 }
@@ -0,0 +1,16 @@
+package com.sachess.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GamePage {
+    private List<GameSummary> games;
+    // Pass back as ?cursor= for the next page; null on the last page
+    private String nextCursor;
+}
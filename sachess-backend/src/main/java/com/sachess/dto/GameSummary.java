@@ -0,0 +1,69 @@
+package com.sachess.dto;
+
+import com.sachess.entity.Game;
+import com.sachess.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// List-view projection of a game: no move list or PGN, players resolved in the same query
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameSummary {
+    private String id;
+    private GameDTO.PlayerInfo whitePlayer;
+    private GameDTO.PlayerInfo blackPlayer;
+    private String currentFen;
+    private Game.GameStatus status;
+    private Game.GameResult result;
+    private Game.Color currentTurn;
+    private int timeControlMinutes;
+    private int incrementSeconds;
+    private long whiteTimeRemaining;
+    private long blackTimeRemaining;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime endedAt;
+
+    // Target of the JPQL constructor expressions in GameRepository
+    public GameSummary(String id,
+                       String whiteId, String whiteUsername, Integer whiteRating, String whiteAvatar,
+                       String blackId, String blackUsername, Integer blackRating, String blackAvatar,
+                       String currentFen, Game.GameStatus status, Game.GameResult result, Game.Color currentTurn,
+                       int timeControlMinutes, int incrementSeconds,
+                       long whiteTimeRemaining, long blackTimeRemaining,
+                       LocalDateTime createdAt, LocalDateTime startedAt, LocalDateTime endedAt) {
+        this(id, player(whiteId, whiteUsername, whiteRating, whiteAvatar),
+                player(blackId, blackUsername, blackRating, blackAvatar),
+                currentFen, status, result, currentTurn, timeControlMinutes, incrementSeconds,
+                whiteTimeRemaining, blackTimeRemaining, createdAt, startedAt, endedAt);
+    }
+
+    public static GameSummary fromGame(Game game) {
+        User white = game.getWhitePlayer();
+        User black = game.getBlackPlayer();
+        return new GameSummary(game.getId(),
+                white != null ? player(white.getId(), white.getUsername(), white.getRating(), white.getAvatar()) : null,
+                black != null ? player(black.getId(), black.getUsername(), black.getRating(), black.getAvatar()) : null,
+                game.getCurrentFen(),
+                game.getStatus(), game.getResult(), game.getCurrentTurn(),
+                game.getTimeControlMinutes(), game.getIncrementSeconds(),
+                game.getWhiteTimeRemaining(), game.getBlackTimeRemaining(),
+                game.getCreatedAt(), game.getStartedAt(), game.getEndedAt());
+    }
+
+    private static GameDTO.PlayerInfo player(String id, String username, Integer rating, String avatar) {
+        if (id == null) {
+            return null;
+        }
+        return GameDTO.PlayerInfo.builder()
+                .id(id)
+                .username(username)
+                .rating(rating != null ? rating : 0)
+                .avatar(avatar)
+                .build();
+    }
+}
@@ -0,0 +1,540 @@
+package com.sachess.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Mutable 0x88 board with incremental Zobrist hashing and make/unmake. Pieces are
+ * {@code type | color << 3}; squares are {@code rank * 16 + file} with a1 = 0 and h8 = 0x77.
+ *
+ * Moves are ints: from (7 bits) | to << 7 | promotion type << 14 | flags << 17.
+ */
+public final class Board {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+
+    public static final int FLAG_EN_PASSANT = 1;
+    public static final int FLAG_CASTLE = 2;
+    public static final int FLAG_DOUBLE_PUSH = 4;
+
+    public static final int MAX_MOVES = 256;
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    static final int[] KNIGHT_DELTAS = {33, 31, 18, 14, -33, -31, -18, -14};
+    static final int[] KING_DELTAS = {1, -1, 16, -16, 17, 15, -17, -15};
+    static final int[] BISHOP_DELTAS = {17, 15, -17, -15};
+    static final int[] ROOK_DELTAS = {1, -1, 16, -16};
+
+    private static final long[][] PIECE_KEYS = new long[16][128];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[128];
+    private static final long SIDE_KEY;
+
+    // Castling rights kept when a move touches the square (king or rook leaving/being captured)
+    private static final int[] CASTLING_MASK = new int[128];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5AC4E55L);
+        for (long[] keys : PIECE_KEYS) {
+            for (int sq = 0; sq < 128; sq++) keys[sq] = random.nextLong();
+        }
+        for (int i = 0; i < 16; i++) CASTLING_KEYS[i] = random.nextLong();
+        for (int sq = 0; sq < 128; sq++) EN_PASSANT_KEYS[sq] = random.nextLong();
+        SIDE_KEY = random.nextLong();
+
+        java.util.Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[0x04] = ~3 & 15;
+        CASTLING_MASK[0x07] = ~1 & 15;
+        CASTLING_MASK[0x00] = ~2 & 15;
+        CASTLING_MASK[0x74] = ~12 & 15;
+        CASTLING_MASK[0x77] = ~4 & 15;
+        CASTLING_MASK[0x70] = ~8 & 15;
+    }
+
+    final int[] squares = new int[128];
+    final int[] kingSquare = new int[2];
+    int side;
+    int castling; // 1 = white O-O, 2 = white O-O-O, 4 = black O-O, 8 = black O-O-O
+    int enPassant = -1;
+    int halfmoveClock;
+    long key;
+
+    // Undo stack, indexed by moves made since the root position
+    private static final int MAX_HISTORY = 1024;
+    private final int[] undoCaptured = new int[MAX_HISTORY];
+    private final int[] undoCastling = new int[MAX_HISTORY];
+    private final int[] undoEnPassant = new int[MAX_HISTORY];
+    private final int[] undoHalfmove = new int[MAX_HISTORY];
+    private final long[] keyHistory = new long[MAX_HISTORY];
+    private int historyPly;
+
+    public static Board fromFen(String fen) {
+        Board board = new Board();
+        String[] parts = fen.trim().split("\\s+");
+
+        int rank = 7;
+        int file = 0;
+        for (char c : parts[0].toCharArray()) {
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (Character.isDigit(c)) {
+                file += c - '0';
+            } else {
+                int color = Character.isUpperCase(c) ? WHITE : BLACK;
+                int type = switch (Character.toLowerCase(c)) {
+                    case 'p' -> PAWN;
+                    case 'n' -> KNIGHT;
+                    case 'b' -> BISHOP;
+                    case 'r' -> ROOK;
+                    case 'q' -> QUEEN;
+                    case 'k' -> KING;
+                    default -> throw new IllegalArgumentException("Invalid FEN piece: " + c);
+                };
+                int sq = rank * 16 + file;
+                board.squares[sq] = type | color << 3;
+                if (type == KING) board.kingSquare[color] = sq;
+                file++;
+            }
+        }
+
+        board.side = parts.length > 1 && parts[1].equals("b") ? BLACK : WHITE;
+        if (parts.length > 2) {
+            for (char c : parts[2].toCharArray()) {
+                switch (c) {
+                    case 'K' -> board.castling |= 1;
+                    case 'Q' -> board.castling |= 2;
+                    case 'k' -> board.castling |= 4;
+                    case 'q' -> board.castling |= 8;
+                    default -> { }
+                }
+            }
+        }
+        if (parts.length > 3 && !parts[3].equals("-")) {
+            board.enPassant = parseSquare(parts[3]);
+        }
+        if (parts.length > 4) {
+            board.halfmoveClock = Integer.parseInt(parts[4]);
+        }
+        board.key = board.computeKey();
+        return board;
+    }
+
+    public int sideToMove() {
+        return side;
+    }
+
+    public long key() {
+        return key;
+    }
+
+    public int pieceAt(int sq) {
+        return squares[sq];
+    }
+
+    /**
+     * Zobrist key that leaves out an en passant square no pawn can capture on, so transposed positions
+     * hash alike. Keys come from a fixed seed and are stable across restarts.
+     */
+    public long positionKey() {
+        if (enPassant == -1) return key;
+        int pawn = PAWN | side << 3;
+        int behind = side == WHITE ? -16 : 16;
+        int left = enPassant + behind - 1;
+        int right = enPassant + behind + 1;
+        boolean capturable = ((left & 0x88) == 0 && squares[left] == pawn) || ((right & 0x88) == 0 && squares[right] == pawn);
+        return capturable ? key : key ^ EN_PASSANT_KEYS[enPassant];
+    }
+
+    /** Plays a move given in UCI notation; returns false (board unchanged) if it is not legal here. */
+    public boolean makeUciMove(String uci) {
+        int[] moves = new int[MAX_MOVES];
+        int count = generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            if (toUci(moves[i]).equals(uci)) {
+                return makeMove(moves[i]);
+            }
+        }
+        return false;
+    }
+
+    public boolean inCheck() {
+        return isAttacked(kingSquare[side], side ^ 1);
+    }
+
+    // Fifty-move rule or a repetition since the last irreversible move
+    public boolean isDraw() {
+        if (halfmoveClock >= 100) return true;
+        int limit = Math.max(0, historyPly - halfmoveClock);
+        for (int i = historyPly - 2; i >= limit; i -= 2) {
+            if (keyHistory[i] == key) return true;
+        }
+        return false;
+    }
+
+    /** Legal moves in UCI notation. */
+    public java.util.List<String> legalMoves() {
+        int[] moves = new int[MAX_MOVES];
+        int count = generateMoves(moves, false);
+        java.util.List<String> legal = new java.util.ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (makeMove(moves[i])) {
+                unmakeMove(moves[i]);
+                legal.add(toUci(moves[i]));
+            }
+        }
+        return legal;
+    }
+
+    public boolean isCapture(int move) {
+        return squares[to(move)] != 0 || (flags(move) & FLAG_EN_PASSANT) != 0;
+    }
+
+    public boolean hasNonPawnMaterial(int color) {
+        for (int sq = 0; sq < 128; sq++) {
+            if ((sq & 0x88) != 0) { sq += 7; continue; }
+            int piece = squares[sq];
+            if (piece != 0 && colorOf(piece) == color && typeOf(piece) != PAWN && typeOf(piece) != KING) return true;
+        }
+        return false;
+    }
+
+    /** Plays a pseudo-legal move; returns false (with the board unchanged) if it leaves the mover in check. */
+    public boolean makeMove(int move) {
+        int from = from(move);
+        int to = to(move);
+        int promotion = promotion(move);
+        int flags = flags(move);
+        int piece = squares[from];
+        int captured = squares[to];
+
+        undoCastling[historyPly] = castling;
+        undoEnPassant[historyPly] = enPassant;
+        undoHalfmove[historyPly] = halfmoveClock;
+        keyHistory[historyPly] = key;
+
+        key ^= PIECE_KEYS[piece][from];
+        squares[from] = 0;
+
+        if (captured != 0) {
+            key ^= PIECE_KEYS[captured][to];
+        }
+        if ((flags & FLAG_EN_PASSANT) != 0) {
+            int capturedSquare = to + (side == WHITE ? -16 : 16);
+            captured = squares[capturedSquare];
+            key ^= PIECE_KEYS[captured][capturedSquare];
+            squares[capturedSquare] = 0;
+        }
+        undoCaptured[historyPly] = captured;
+        historyPly++;
+
+        int placed = promotion != 0 ? promotion | side << 3 : piece;
+        squares[to] = placed;
+        key ^= PIECE_KEYS[placed][to];
+
+        if ((flags & FLAG_CASTLE) != 0) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = to > from ? from + 1 : from - 1;
+            int rook = squares[rookFrom];
+            squares[rookFrom] = 0;
+            squares[rookTo] = rook;
+            key ^= PIECE_KEYS[rook][rookFrom] ^ PIECE_KEYS[rook][rookTo];
+        }
+        if (typeOf(piece) == KING) {
+            kingSquare[side] = to;
+        }
+
+        key ^= CASTLING_KEYS[castling];
+        castling &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        key ^= CASTLING_KEYS[castling];
+
+        if (enPassant != -1) {
+            key ^= EN_PASSANT_KEYS[enPassant];
+            enPassant = -1;
+        }
+        if ((flags & FLAG_DOUBLE_PUSH) != 0) {
+            enPassant = (from + to) / 2;
+            key ^= EN_PASSANT_KEYS[enPassant];
+        }
+
+        halfmoveClock = typeOf(piece) == PAWN || captured != 0 ? 0 : halfmoveClock + 1;
+        side ^= 1;
+        key ^= SIDE_KEY;
+
+        if (isAttacked(kingSquare[side ^ 1], side)) {
+            unmakeMove(move);
+            return false;
+        }
+        return true;
+    }
+
+    public void unmakeMove(int move) {
+        int from = from(move);
+        int to = to(move);
+        int flags = flags(move);
+
+        historyPly--;
+        side ^= 1;
+
+        int placed = squares[to];
+        int piece = promotion(move) != 0 ? PAWN | side << 3 : placed;
+        squares[from] = piece;
+
+        if ((flags & FLAG_EN_PASSANT) != 0) {
+            squares[to] = 0;
+            squares[to + (side == WHITE ? -16 : 16)] = undoCaptured[historyPly];
+        } else {
+            squares[to] = undoCaptured[historyPly];
+        }
+
+        if ((flags & FLAG_CASTLE) != 0) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = to > from ? from + 1 : from - 1;
+            squares[rookFrom] = squares[rookTo];
+            squares[rookTo] = 0;
+        }
+        if (typeOf(piece) == KING) {
+            kingSquare[side] = from;
+        }
+
+        castling = undoCastling[historyPly];
+        enPassant = undoEnPassant[historyPly];
+        halfmoveClock = undoHalfmove[historyPly];
+        key = keyHistory[historyPly];
+    }
+
+    /** Fills {@code moves} with pseudo-legal moves and returns the count. */
+    public int generateMoves(int[] moves, boolean capturesOnly) {
+        int count = 0;
+        int us = side;
+        int them = us ^ 1;
+
+        for (int sq = 0; sq < 128; sq++) {
+            if ((sq & 0x88) != 0) { sq += 7; continue; }
+            int piece = squares[sq];
+            if (piece == 0 || colorOf(piece) != us) continue;
+
+            switch (typeOf(piece)) {
+                case PAWN -> count = generatePawnMoves(moves, count, sq, us, capturesOnly);
+                case KNIGHT -> count = generateSteps(moves, count, sq, KNIGHT_DELTAS, them, capturesOnly);
+                case BISHOP -> count = generateSlides(moves, count, sq, BISHOP_DELTAS, them, capturesOnly);
+                case ROOK -> count = generateSlides(moves, count, sq, ROOK_DELTAS, them, capturesOnly);
+                case QUEEN -> {
+                    count = generateSlides(moves, count, sq, BISHOP_DELTAS, them, capturesOnly);
+                    count = generateSlides(moves, count, sq, ROOK_DELTAS, them, capturesOnly);
+                }
+                case KING -> {
+                    count = generateSteps(moves, count, sq, KING_DELTAS, them, capturesOnly);
+                    if (!capturesOnly) count = generateCastling(moves, count, sq, us);
+                }
+                default -> { }
+            }
+        }
+        return count;
+    }
+
+    private int generatePawnMoves(int[] moves, int count, int sq, int us, boolean capturesOnly) {
+        int forward = us == WHITE ? 16 : -16;
+        int startRank = us == WHITE ? 1 : 6;
+        int promotionRank = us == WHITE ? 7 : 0;
+
+        int to = sq + forward;
+        if ((to & 0x88) == 0 && squares[to] == 0) {
+            if (rankOf(to) == promotionRank) {
+                count = addPromotions(moves, count, sq, to, capturesOnly);
+            } else if (!capturesOnly) {
+                moves[count++] = encode(sq, to, 0, 0);
+                int twoAhead = to + forward;
+                if (rankOf(sq) == startRank && squares[twoAhead] == 0) {
+                    moves[count++] = encode(sq, twoAhead, 0, FLAG_DOUBLE_PUSH);
+                }
+            }
+        }
+
+        for (int delta : new int[]{forward - 1, forward + 1}) {
+            to = sq + delta;
+            if ((to & 0x88) != 0) continue;
+            int target = squares[to];
+            if (target != 0 && colorOf(target) != us) {
+                if (rankOf(to) == promotionRank) {
+                    count = addPromotions(moves, count, sq, to, false);
+                } else {
+                    moves[count++] = encode(sq, to, 0, 0);
+                }
+            } else if (to == enPassant) {
+                moves[count++] = encode(sq, to, 0, FLAG_EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    // Quiescence only looks at queen promotions
+    private static int addPromotions(int[] moves, int count, int from, int to, boolean queenOnly) {
+        moves[count++] = encode(from, to, QUEEN, 0);
+        if (!queenOnly) {
+            moves[count++] = encode(from, to, KNIGHT, 0);
+            moves[count++] = encode(from, to, ROOK, 0);
+            moves[count++] = encode(from, to, BISHOP, 0);
+        }
+        return count;
+    }
+
+    private int generateSteps(int[] moves, int count, int sq, int[] deltas, int them, boolean capturesOnly) {
+        for (int delta : deltas) {
+            int to = sq + delta;
+            if ((to & 0x88) != 0) continue;
+            int target = squares[to];
+            if (target == 0 ? !capturesOnly : colorOf(target) == them) {
+                moves[count++] = encode(sq, to, 0, 0);
+            }
+        }
+        return count;
+    }
+
+    private int generateSlides(int[] moves, int count, int sq, int[] deltas, int them, boolean capturesOnly) {
+        for (int delta : deltas) {
+            for (int to = sq + delta; (to & 0x88) == 0; to += delta) {
+                int target = squares[to];
+                if (target == 0) {
+                    if (!capturesOnly) moves[count++] = encode(sq, to, 0, 0);
+                } else {
+                    if (colorOf(target) == them) moves[count++] = encode(sq, to, 0, 0);
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int generateCastling(int[] moves, int count, int sq, int us) {
+        int home = us == WHITE ? 0x04 : 0x74;
+        if (sq != home) return count;
+        int them = us ^ 1;
+        int kingSide = us == WHITE ? 1 : 4;
+        int queenSide = us == WHITE ? 2 : 8;
+
+        // The destination square is covered by the normal legality check after the move
+        if ((castling & kingSide) != 0 && squares[home + 1] == 0 && squares[home + 2] == 0
+                && !isAttacked(home, them) && !isAttacked(home + 1, them)) {
+            moves[count++] = encode(home, home + 2, 0, FLAG_CASTLE);
+        }
+        if ((castling & queenSide) != 0 && squares[home - 1] == 0 && squares[home - 2] == 0 && squares[home - 3] == 0
+                && !isAttacked(home, them) && !isAttacked(home - 1, them)) {
+            moves[count++] = encode(home, home - 2, 0, FLAG_CASTLE);
+        }
+        return count;
+    }
+
+    public boolean isAttacked(int sq, int by) {
+        int pawn = PAWN | by << 3;
+        if (by == WHITE) {
+            if (isPiece(sq - 15, pawn) || isPiece(sq - 17, pawn)) return true;
+        } else {
+            if (isPiece(sq + 15, pawn) || isPiece(sq + 17, pawn)) return true;
+        }
+
+        int knight = KNIGHT | by << 3;
+        for (int delta : KNIGHT_DELTAS) {
+            if (isPiece(sq + delta, knight)) return true;
+        }
+        int king = KING | by << 3;
+        for (int delta : KING_DELTAS) {
+            if (isPiece(sq + delta, king)) return true;
+        }
+
+        int queen = QUEEN | by << 3;
+        int bishop = BISHOP | by << 3;
+        int rook = ROOK | by << 3;
+        for (int delta : BISHOP_DELTAS) {
+            int target = firstPiece(sq, delta);
+            if (target == bishop || target == queen) return true;
+        }
+        for (int delta : ROOK_DELTAS) {
+            int target = firstPiece(sq, delta);
+            if (target == rook || target == queen) return true;
+        }
+        return false;
+    }
+
+    private boolean isPiece(int sq, int piece) {
+        return (sq & 0x88) == 0 && squares[sq] == piece;
+    }
+
+    private int firstPiece(int sq, int delta) {
+        for (int to = sq + delta; (to & 0x88) == 0; to += delta) {
+            if (squares[to] != 0) return squares[to];
+        }
+        return 0;
+    }
+
+    private long computeKey() {
+        long k = 0;
+        for (int sq = 0; sq < 128; sq++) {
+            if ((sq & 0x88) != 0) { sq += 7; continue; }
+            if (squares[sq] != 0) k ^= PIECE_KEYS[squares[sq]][sq];
+        }
+        k ^= CASTLING_KEYS[castling];
+        if (enPassant != -1) k ^= EN_PASSANT_KEYS[enPassant];
+        if (side == BLACK) k ^= SIDE_KEY;
+        return k;
+    }
+
+    public static int encode(int from, int to, int promotion, int flags) {
+        return from | to << 7 | promotion << 14 | flags << 17;
+    }
+
+    public static int from(int move) {
+        return move & 0x7F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 7) & 0x7F;
+    }
+
+    public static int promotion(int move) {
+        return (move >>> 14) & 7;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 17) & 7;
+    }
+
+    public static int typeOf(int piece) {
+        return piece & 7;
+    }
+
+    public static int colorOf(int piece) {
+        return piece >>> 3;
+    }
+
+    static int rankOf(int sq) {
+        return sq >>> 4;
+    }
+
+    public static String toUci(int move) {
+        String uci = squareName(from(move)) + squareName(to(move));
+        return switch (promotion(move)) {
+            case KNIGHT -> uci + "n";
+            case BISHOP -> uci + "b";
+            case ROOK -> uci + "r";
+            case QUEEN -> uci + "q";
+            default -> uci;
+        };
+    }
+
+    static String squareName(int sq) {
+        return "" + (char) ('a' + (sq & 7)) + (char) ('1' + (sq >>> 4));
+    }
+
+    static int parseSquare(String name) {
+        return (name.charAt(1) - '1') * 16 + (name.charAt(0) - 'a');
+    }
+}
@@ -0,0 +1,160 @@
+package com.sachess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Builds one three-piece distance-to-mate table. Every position's successors are resolved once into a
+ * compact edge list (in-table index, or the value of an already generated table after a capture or
+ * promotion), then positions are settled ply by ply: a win in n if some successor loses in n - 1, a loss
+ * in n if every successor wins and the slowest does so in n - 1. Whatever never settles is a draw.
+ */
+final class EndgameGenerator {
+
+    private static final int UNKNOWN = 254;
+
+    private EndgameGenerator() {
+    }
+
+    static byte[] generate(int extraType, EndgameTables subTables) {
+        int size = EndgameTables.TABLE_SIZE;
+        int[] value = new int[size];
+        int[] edgeStart = new int[size + 1];
+        int[] edges = new int[size * 8];
+        int edgeCount = 0;
+        int maxExternalPlies = 0;
+
+        Board board = new Board();
+        int[] moves = new int[Board.MAX_MOVES];
+        int extraPiece = extraType | Board.WHITE << 3;
+
+        for (int index = 0; index < size; index++) {
+            edgeStart[index] = edgeCount;
+            int extra = EndgameTables.square0x88(index & 63);
+            int blackKing = EndgameTables.square0x88((index >>> 6) & 63);
+            int whiteKing = EndgameTables.square0x88((index >>> 12) & 63);
+            int side = index >>> 18;
+
+            if (!place(board, side, whiteKing, blackKing, extra, extraPiece)) {
+                value[index] = EndgameTables.ILLEGAL;
+                continue;
+            }
+
+            int legal = 0;
+            int count = board.generateMoves(moves, false);
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                if (!board.makeMove(move)) continue;
+                legal++;
+
+                int edge;
+                if (Board.to(move) == extra) {
+                    edge = external(EndgameTables.DRAW); // only the extra piece can be captured: bare kings
+                } else if (Board.promotion(move) != 0) {
+                    int promoted = subTables.rawValue(board);
+                    if (promoted < 0) {
+                        throw new IllegalStateException("Missing table for promotion from " + Board.toUci(move));
+                    }
+                    edge = external(promoted);
+                    if (promoted != EndgameTables.DRAW) {
+                        maxExternalPlies = Math.max(maxExternalPlies, promoted - 1);
+                    }
+                } else {
+                    int movedExtra = Board.from(move) == extra ? Board.to(move) : extra;
+                    edge = EndgameTables.index(board.side, board.kingSquare[Board.WHITE],
+                            board.kingSquare[Board.BLACK], movedExtra);
+                }
+                board.unmakeMove(move);
+
+                if (edgeCount == edges.length) {
+                    edges = Arrays.copyOf(edges, edges.length * 2);
+                }
+                edges[edgeCount++] = edge;
+            }
+
+            if (legal == 0) {
+                value[index] = board.inCheck() ? 1 : EndgameTables.DRAW; // mated now, or stalemate
+            } else {
+                value[index] = UNKNOWN;
+            }
+            clear(board, whiteKing, blackKing, extra);
+        }
+        edgeStart[size] = edgeCount;
+
+        for (int n = 1; n < UNKNOWN - 1; n++) {
+            boolean changed = false;
+            for (int index = 0; index < size; index++) {
+                if (value[index] != UNKNOWN) continue;
+
+                int fastestLoss = Integer.MAX_VALUE;
+                int slowestWin = -1;
+                boolean allWin = true;
+                for (int e = edgeStart[index]; e < edgeStart[index + 1]; e++) {
+                    int child = edges[e] >= 0 ? value[edges[e]] : -edges[e] - 1;
+                    if (child == UNKNOWN || child == EndgameTables.DRAW) {
+                        allWin = false;
+                        continue;
+                    }
+                    int plies = child - 1;
+                    if (plies % 2 == 0) {
+                        fastestLoss = Math.min(fastestLoss, plies);
+                        allWin = false;
+                    } else {
+                        slowestWin = Math.max(slowestWin, plies);
+                    }
+                }
+
+                if (fastestLoss != Integer.MAX_VALUE && fastestLoss + 1 == n) {
+                    value[index] = n + 1;
+                    changed = true;
+                } else if (allWin && slowestWin + 1 == n) {
+                    value[index] = n + 1;
+                    changed = true;
+                }
+            }
+            if (!changed && n > maxExternalPlies + 1) {
+                break;
+            }
+        }
+
+        byte[] table = new byte[size];
+        for (int index = 0; index < size; index++) {
+            table[index] = (byte) (value[index] == UNKNOWN ? EndgameTables.DRAW : value[index]);
+        }
+        return table;
+    }
+
+    private static int external(int rawValue) {
+        return -rawValue - 1;
+    }
+
+    // False (board left empty) for overlapping pieces, pawns on the back ranks, or the side not to move in check
+    private static boolean place(Board board, int side, int whiteKing, int blackKing, int extra, int extraPiece) {
+        if (whiteKing == blackKing || extra == whiteKing || extra == blackKing) {
+            return false;
+        }
+        int rank = extra >>> 4;
+        if (Board.typeOf(extraPiece) == Board.PAWN && (rank == 0 || rank == 7)) {
+            return false;
+        }
+
+        board.squares[whiteKing] = Board.KING;
+        board.squares[blackKing] = Board.KING | Board.BLACK << 3;
+        board.squares[extra] = extraPiece;
+        board.kingSquare[Board.WHITE] = whiteKing;
+        board.kingSquare[Board.BLACK] = blackKing;
+        board.side = side;
+        board.halfmoveClock = 0;
+
+        if (board.isAttacked(board.kingSquare[side ^ 1], side)) {
+            clear(board, whiteKing, blackKing, extra);
+            return false;
+        }
+        return true;
+    }
+
+    private static void clear(Board board, int whiteKing, int blackKing, int extra) {
+        board.squares[whiteKing] = 0;
+        board.squares[blackKing] = 0;
+        board.squares[extra] = 0;
+    }
+}
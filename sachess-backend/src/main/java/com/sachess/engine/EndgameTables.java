@@ -0,0 +1,199 @@
+package com.sachess.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Distance-to-mate tables for three-piece endings (KQK, KRK, KPK), one file per material signature,
+ * read through read-only memory maps. KK, KBK and KNK need no table: they are dead draws.
+ *
+ * Each file is a 16-byte header followed by one byte per position, indexed by
+ * side to move, white king, black king and the extra piece (64 squares each) with the extra piece
+ * always White. Byte values: 0 = draw, n = side to move wins (n - 1 odd) or loses (n - 1 even) with
+ * mate after n - 1 plies of best play, 255 = unreachable position.
+ */
+public final class EndgameTables {
+
+    public static final int MAX_PIECES = 3;
+
+    static final int DRAW = 0;
+    static final int ILLEGAL = 255;
+    static final int TABLE_SIZE = 2 * 64 * 64 * 64;
+
+    private static final int MAGIC = 0x53415442; // "SATB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    // Generation order matters: KPK promotes into KQK and KRK
+    private static final Map<String, Integer> SIGNATURES = new LinkedHashMap<>();
+
+    static {
+        SIGNATURES.put("KQK", Board.QUEEN);
+        SIGNATURES.put("KRK", Board.ROOK);
+        SIGNATURES.put("KPK", Board.PAWN);
+    }
+
+    private final Map<Integer, MappedByteBuffer> tables = new LinkedHashMap<>();
+
+    private EndgameTables() {
+    }
+
+    /** Maps every table found in {@code directory}, generating and writing the missing ones first if asked to. */
+    public static EndgameTables open(Path directory, boolean generateMissing) throws IOException {
+        EndgameTables endgameTables = new EndgameTables();
+        if (generateMissing) {
+            Files.createDirectories(directory);
+        }
+
+        for (Map.Entry<String, Integer> signature : SIGNATURES.entrySet()) {
+            Path file = directory.resolve(signature.getKey() + ".satb");
+            if (!isValid(file, signature.getValue())) {
+                if (!generateMissing) {
+                    continue;
+                }
+                write(file, signature.getValue(), EndgameGenerator.generate(signature.getValue(), endgameTables));
+            }
+            endgameTables.tables.put(signature.getValue(), map(file));
+        }
+        return endgameTables;
+    }
+
+    public Set<String> available() {
+        Set<String> names = new java.util.TreeSet<>();
+        SIGNATURES.forEach((name, type) -> {
+            if (tables.containsKey(type)) names.add(name);
+        });
+        return names;
+    }
+
+    /** Returns null when the position is not covered: more pieces, castling rights, or a missing table. */
+    public Result probe(String fen) {
+        Board board = Board.fromFen(fen);
+        if (board.castling != 0) {
+            return null;
+        }
+        int value = rawValue(board);
+        if (value < 0 || value == ILLEGAL) {
+            return null;
+        }
+
+        // Best move: fastest win, any draw, or slowest loss
+        int[] moves = new int[Board.MAX_MOVES];
+        int count = board.generateMoves(moves, false);
+        int bestMove = 0;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            if (!board.makeMove(moves[i])) continue;
+            int child = rawValue(board);
+            board.unmakeMove(moves[i]);
+            if (child < 0 || child == ILLEGAL) continue;
+
+            int score = child == DRAW ? 0 : (child - 1) % 2 == 0 ? 1000 - child : -1000 + child;
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = moves[i];
+            }
+        }
+
+        int wdl = value == DRAW ? 0 : (value - 1) % 2 == 1 ? 1 : -1;
+        return new Result(wdl, value == DRAW ? 0 : value - 1, bestMove != 0 ? Board.toUci(bestMove) : null);
+    }
+
+    /** Raw table byte for the position, or -1 when no table covers it. */
+    int rawValue(Board board) {
+        int whiteKing = -1;
+        int blackKing = -1;
+        int extra = -1;
+        int extraPiece = 0;
+        int pieces = 0;
+
+        for (int sq = 0; sq < 128; sq++) {
+            if ((sq & 0x88) != 0) { sq += 7; continue; }
+            int piece = board.squares[sq];
+            if (piece == 0) continue;
+            if (++pieces > MAX_PIECES) return -1;
+            if (piece == Board.KING) {
+                whiteKing = sq;
+            } else if (piece == (Board.KING | Board.BLACK << 3)) {
+                blackKing = sq;
+            } else {
+                extra = sq;
+                extraPiece = piece;
+            }
+        }
+
+        if (whiteKing == -1 || blackKing == -1) return -1;
+        if (extra == -1) return DRAW;
+        int type = Board.typeOf(extraPiece);
+        if (type == Board.BISHOP || type == Board.KNIGHT) return DRAW;
+
+        int side = board.side;
+        if (Board.colorOf(extraPiece) == Board.BLACK) {
+            // Swap colours and mirror ranks so the extra piece is White
+            int mirroredWhiteKing = blackKing ^ 0x70;
+            blackKing = whiteKing ^ 0x70;
+            whiteKing = mirroredWhiteKing;
+            extra ^= 0x70;
+            side ^= 1;
+        }
+
+        MappedByteBuffer table = tables.get(type);
+        if (table == null) return -1;
+        return table.get(HEADER_SIZE + index(side, whiteKing, blackKing, extra)) & 0xFF;
+    }
+
+    static int index(int side, int whiteKing, int blackKing, int extra) {
+        return ((side * 64 + square64(whiteKing)) * 64 + square64(blackKing)) * 64 + square64(extra);
+    }
+
+    static int square64(int sq) {
+        return (sq >>> 4) * 8 + (sq & 7);
+    }
+
+    static int square0x88(int sq64) {
+        return (sq64 >>> 3) * 16 + (sq64 & 7);
+    }
+
+    private static boolean isValid(Path file, int type) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != HEADER_SIZE + TABLE_SIZE) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            return header.getInt() == MAGIC && header.getInt() == VERSION && header.getInt() == type;
+        }
+    }
+
+    // Written to a temporary file and moved into place so a crash never leaves a truncated table
+    private static void write(Path file, int type, byte[] data) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putInt(type).putInt(0);
+            header.flip();
+            channel.write(header);
+            channel.write(ByteBuffer.wrap(data));
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /** {@code wdl} is 1 / 0 / -1 for the side to move; {@code pliesToMate} is 0 for draws. */
+    public record Result(int wdl, int pliesToMate, String bestMove) {}
+}
@@ -0,0 +1,139 @@
+package com.sachess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process alpha-beta engine. The calling thread runs the main search; helper threads search the
+ * same position concurrently (Lazy SMP) and only share the transposition table. The main thread's
+ * last completed iteration is the result.
+ */
+public final class JavaEngine implements AutoCloseable {
+
+    private static final int MAX_DEPTH = SearchWorker.MAX_PLY - 1;
+    private static final int MAX_PV_LENGTH = 32;
+
+    private final TranspositionTable table;
+    private final int threads;
+    private final ExecutorService helpers;
+
+    public JavaEngine(int threads, int hashMegabytes) {
+        this.threads = Math.max(1, threads);
+        this.table = new TranspositionTable(hashMegabytes);
+        this.helpers = this.threads > 1 ? Executors.newFixedThreadPool(this.threads - 1, r -> {
+            Thread thread = new Thread(r, "java-engine-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /** Searches until {@code maxDepth} completes or {@code timeLimitMs} elapses, whichever is first. */
+    public synchronized SearchResult search(String fen, int maxDepth, long timeLimitMs) {
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(timeLimitMs);
+        int depth = Math.max(1, Math.min(maxDepth, MAX_DEPTH));
+        AtomicBoolean stop = new AtomicBoolean();
+
+        SearchWorker main = new SearchWorker(0, Board.fromFen(fen), table, stop, deadline);
+        List<SearchWorker> workers = new ArrayList<>(List.of(main));
+        List<Future<?>> running = new ArrayList<>();
+        for (int id = 1; id < threads; id++) {
+            SearchWorker helper = new SearchWorker(id, Board.fromFen(fen), table, stop, deadline);
+            workers.add(helper);
+            running.add(helpers.submit(() -> helper.iterate(depth)));
+        }
+
+        try {
+            main.iterate(depth);
+        } finally {
+            stop.set(true);
+            for (Future<?> future : running) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    // A failed helper only costs throughput; the main thread's result stands
+                }
+            }
+        }
+
+        long elapsedNanos = Math.max(1, System.nanoTime() - startedAt);
+        long nodes = workers.stream().mapToLong(SearchWorker::nodes).sum();
+        int score = main.bestScore();
+        Integer mateIn = null;
+        if (Math.abs(score) >= SearchWorker.MATE - SearchWorker.MAX_PLY) {
+            int plies = SearchWorker.MATE - Math.abs(score);
+            mateIn = (score > 0 ? 1 : -1) * (plies + 1) / 2;
+        }
+
+        return new SearchResult(
+                main.bestMove() != 0 ? Board.toUci(main.bestMove()) : null,
+                score,
+                mateIn,
+                main.completedDepth(),
+                principalVariation(fen, main.bestMove()),
+                nodes,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                nodes * 1_000_000_000L / elapsedNanos);
+    }
+
+    public void clearHash() {
+        table.clear();
+    }
+
+    // Follows hash moves from the root, checking each is legal in the position it is played from
+    private String principalVariation(String fen, int firstMove) {
+        if (firstMove == 0) {
+            return "";
+        }
+        Board board = Board.fromFen(fen);
+        int[] moves = new int[Board.MAX_MOVES];
+        StringBuilder pv = new StringBuilder();
+        int move = firstMove;
+
+        for (int i = 0; i < MAX_PV_LENGTH && move != 0; i++) {
+            if (!isPseudoLegal(board, moves, move) || !board.makeMove(move)) {
+                break;
+            }
+            if (!pv.isEmpty()) pv.append(' ');
+            pv.append(Board.toUci(move));
+            if (board.isDraw()) {
+                break;
+            }
+            long entry = table.probe(board.key());
+            move = entry != TranspositionTable.MISS ? TranspositionTable.moveOf(entry) : 0;
+        }
+        return pv.toString();
+    }
+
+    private static boolean isPseudoLegal(Board board, int[] moves, int move) {
+        int count = board.generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    /** Score is centipawns from the side to move; {@code mateIn} is in moves, negative when being mated. */
+    public record SearchResult(
+            String bestMove,
+            int score,
+            Integer mateIn,
+            int depth,
+            String pv,
+            long nodes,
+            long timeMs,
+            long nodesPerSecond
+    ) {}
+}
@@ -0,0 +1,95 @@
+package com.sachess.engine;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only view of a Polyglot {@code .bin} opening book. The file is a key-sorted array of 16-byte
+ * big-endian entries (key, move, weight, learn), so a position is found by binary search over the
+ * memory map without loading the book into the heap.
+ */
+public final class PolyglotBook {
+
+    private static final int ENTRY_SIZE = 16;
+
+    private final Path path;
+    private final MappedByteBuffer entries;
+    private final int count;
+
+    private PolyglotBook(Path path, MappedByteBuffer entries) {
+        this.path = path;
+        this.entries = entries;
+        this.count = entries.capacity() / ENTRY_SIZE;
+    }
+
+    public static PolyglotBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new PolyglotBook(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** All entries for the key, in file order; moves are raw Polyglot encodings. */
+    public List<Entry> find(long key) {
+        // Lower bound over unsigned keys
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        List<Entry> found = new ArrayList<>();
+        for (int i = low; i < count && keyAt(i) == key; i++) {
+            int offset = i * ENTRY_SIZE;
+            found.add(new Entry(entries.getShort(offset + 8) & 0xFFFF, entries.getShort(offset + 10) & 0xFFFF));
+        }
+        return found;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_SIZE);
+    }
+
+    /**
+     * Converts a Polyglot move (to file/row, from file/row, promotion in 3-bit fields) to UCI, with
+     * castling rewritten from "king takes own rook" to the king's destination square.
+     */
+    public static String toUci(int move, Board board) {
+        int toFile = move & 7;
+        int toRow = (move >>> 3) & 7;
+        int fromFile = (move >>> 6) & 7;
+        int fromRow = (move >>> 9) & 7;
+        int promotion = (move >>> 12) & 7;
+
+        int from = fromRow * 16 + fromFile;
+        int to = toRow * 16 + toFile;
+        int piece = board.pieceAt(from);
+        int target = board.pieceAt(to);
+        if (Board.typeOf(piece) == Board.KING && target != 0 && Board.typeOf(target) == Board.ROOK
+                && Board.colorOf(target) == Board.colorOf(piece)) {
+            to = from + (to > from ? 2 : -2);
+        }
+
+        String uci = Board.squareName(from) + Board.squareName(to);
+        return promotion == 0 ? uci : uci + " nbrq".charAt(promotion);
+    }
+
+    public record Entry(int move, int weight) {}
+}
@@ -0,0 +1,262 @@
+package com.sachess.engine;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One Lazy-SMP search thread: iterative-deepening PVS with quiescence over its own board, killer and
+ * history tables. Workers only cooperate through the shared transposition table and stop flag.
+ */
+final class SearchWorker {
+
+    static final int MATE = 30000;
+    static final int MAX_PLY = 128;
+    private static final int INFINITY = 32000;
+
+    private static final int TT_MOVE_SCORE = 2_000_000;
+    private static final int CAPTURE_SCORE = 1_000_000;
+    private static final int PROMOTION_SCORE = 950_000;
+    private static final int FIRST_KILLER_SCORE = 900_000;
+    private static final int SECOND_KILLER_SCORE = 800_000;
+    private static final int HISTORY_LIMIT = 700_000;
+
+    private final int id;
+    private final Board board;
+    private final TranspositionTable table;
+    private final AtomicBoolean stop;
+    private final long deadlineNanos;
+
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[2][128 * 128];
+    private final int[][] moves = new int[MAX_PLY][Board.MAX_MOVES];
+    private final int[][] scores = new int[MAX_PLY][Board.MAX_MOVES];
+
+    private long nodes;
+    private int rootBestMove;
+    private int bestMove;
+    private int bestScore;
+    private int completedDepth;
+
+    SearchWorker(int id, Board board, TranspositionTable table, AtomicBoolean stop, long deadlineNanos) {
+        this.id = id;
+        this.board = board;
+        this.table = table;
+        this.stop = stop;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    void iterate(int maxDepth) {
+        // Odd helpers start one ply deeper so threads spread over different depths of the same tree
+        int startDepth = id > 0 && (id & 1) == 1 ? 2 : 1;
+        for (int depth = Math.min(startDepth, maxDepth); depth <= maxDepth; depth++) {
+            rootBestMove = 0;
+            int score = negamax(depth, -INFINITY, INFINITY, 0);
+            if (stopped()) {
+                break;
+            }
+            completedDepth = depth;
+            bestScore = score;
+            bestMove = rootBestMove;
+            if (Math.abs(score) >= MATE - MAX_PLY) {
+                break;
+            }
+        }
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        countNode();
+        if (stopped()) return 0;
+        if (ply > 0 && board.isDraw()) return 0;
+        if (ply >= MAX_PLY - 1) return Evaluation.evaluate(board);
+
+        boolean inCheck = board.inCheck();
+        if (inCheck) depth++;
+        if (depth <= 0) return quiesce(alpha, beta, ply);
+
+        int ttMove = 0;
+        long entry = table.probe(board.key);
+        if (entry != TranspositionTable.MISS) {
+            ttMove = TranspositionTable.moveOf(entry);
+            if (ply > 0 && TranspositionTable.depthOf(entry) >= depth) {
+                int ttScore = fromTable(TranspositionTable.scoreOf(entry), ply);
+                int bound = TranspositionTable.boundOf(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && ttScore >= beta)
+                        || (bound == TranspositionTable.UPPER && ttScore <= alpha)) {
+                    return ttScore;
+                }
+            }
+        }
+
+        int[] moveList = moves[ply];
+        int[] scoreList = scores[ply];
+        int count = board.generateMoves(moveList, false);
+        scoreMoves(moveList, scoreList, count, ttMove, ply);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMoveHere = 0;
+        int legal = 0;
+
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(moveList, scoreList, i, count);
+            boolean quiet = !board.isCapture(move) && Board.promotion(move) == 0;
+            if (!board.makeMove(move)) continue;
+            legal++;
+
+            int score;
+            if (legal == 1) {
+                score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            board.unmakeMove(move);
+            if (stopped()) return 0;
+
+            if (score > best) {
+                best = score;
+                bestMoveHere = move;
+                if (ply == 0) rootBestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        if (quiet) rememberCutoff(move, depth, ply);
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (legal == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT
+                : TranspositionTable.UPPER;
+        table.store(board.key, bestMoveHere, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    private int quiesce(int alpha, int beta, int ply) {
+        countNode();
+        if (stopped()) return 0;
+
+        int standPat = Evaluation.evaluate(board);
+        if (standPat >= beta) return standPat;
+        if (standPat > alpha) alpha = standPat;
+        if (ply >= MAX_PLY - 1) return standPat;
+
+        int[] moveList = moves[ply];
+        int[] scoreList = scores[ply];
+        int count = board.generateMoves(moveList, true);
+        scoreMoves(moveList, scoreList, count, 0, ply);
+
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(moveList, scoreList, i, count);
+            if (!board.makeMove(move)) continue;
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            board.unmakeMove(move);
+            if (stopped()) return 0;
+
+            if (score >= beta) return score;
+            if (score > alpha) alpha = score;
+        }
+        return alpha;
+    }
+
+    // TT move, then captures by MVV-LVA, promotions, killers, and quiet moves by history
+    private void scoreMoves(int[] moveList, int[] scoreList, int count, int ttMove, int ply) {
+        int[] sideHistory = history[board.side];
+        for (int i = 0; i < count; i++) {
+            int move = moveList[i];
+            if (move == ttMove) {
+                scoreList[i] = TT_MOVE_SCORE;
+            } else if (board.isCapture(move)) {
+                int victim = (Board.flags(move) & Board.FLAG_EN_PASSANT) != 0
+                        ? Board.PAWN : Board.typeOf(board.squares[Board.to(move)]);
+                int attacker = Board.typeOf(board.squares[Board.from(move)]);
+                scoreList[i] = CAPTURE_SCORE + victim * 10 - attacker;
+            } else if (Board.promotion(move) != 0) {
+                scoreList[i] = PROMOTION_SCORE + Board.promotion(move);
+            } else if (killers[ply][0] == move) {
+                scoreList[i] = FIRST_KILLER_SCORE;
+            } else if (killers[ply][1] == move) {
+                scoreList[i] = SECOND_KILLER_SCORE;
+            } else {
+                scoreList[i] = sideHistory[Board.from(move) << 7 | Board.to(move)];
+            }
+        }
+    }
+
+    // Selection sort step: move the best remaining move to position i
+    private static int pickNext(int[] moveList, int[] scoreList, int i, int count) {
+        int bestIndex = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scoreList[j] > scoreList[bestIndex]) bestIndex = j;
+        }
+        int move = moveList[bestIndex];
+        moveList[bestIndex] = moveList[i];
+        moveList[i] = move;
+        int score = scoreList[bestIndex];
+        scoreList[bestIndex] = scoreList[i];
+        scoreList[i] = score;
+        return move;
+    }
+
+    private void rememberCutoff(int move, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] sideHistory = history[board.side];
+        int index = Board.from(move) << 7 | Board.to(move);
+        sideHistory[index] += depth * depth;
+        if (sideHistory[index] > HISTORY_LIMIT) {
+            for (int i = 0; i < sideHistory.length; i++) sideHistory[i] >>= 1;
+        }
+    }
+
+    private void countNode() {
+        long n = ++nodes;
+        if (id == 0 && (n & 2047) == 0 && System.nanoTime() > deadlineNanos) {
+            stop.set(true);
+        }
+    }
+
+    // Depth 1 always completes so there is a move to return
+    private boolean stopped() {
+        return completedDepth > 0 && stop.get();
+    }
+
+    // Mate scores are stored relative to the node, not the root
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score + ply;
+        if (score <= -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score - ply;
+        if (score <= -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+
+    long nodes() {
+        return nodes;
+    }
+
+    int bestMove() {
+        return bestMove;
+    }
+
+    int bestScore() {
+        return bestScore;
+    }
+
+    int completedDepth() {
+        return completedDepth;
+    }
+}
@@ -0,0 +1,71 @@
+package com.sachess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Shared hash table in one preallocated {@code long[]}: two longs per entry, the key stored XOR-ed
+ * with the data so a torn write from a concurrent thread simply fails verification (no locks).
+ *
+ * Data layout: move (20 bits) | score + 32768 (16 bits) | depth (8 bits) | bound (2 bits).
+ */
+public final class TranspositionTable {
+
+    static final int EXACT = 0;
+    static final int LOWER = 1;
+    static final int UPPER = 2;
+
+    static final long MISS = -1L;
+
+    private final long[] table;
+    private final int mask;
+
+    public TranspositionTable(int megabytes) {
+        long entries = Long.highestOneBit(Math.max(1, (long) megabytes << 20) / 16);
+        this.table = new long[(int) Math.min(entries, 1 << 29) * 2];
+        this.mask = table.length / 2 - 1;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    long probe(long key) {
+        int index = ((int) key & mask) << 1;
+        long data = table[index + 1];
+        return (table[index] ^ data) == key ? data : MISS;
+    }
+
+    // Keeps a deeper result for the same position unless the new one is exact
+    void store(long key, int move, int score, int depth, int bound) {
+        int index = ((int) key & mask) << 1;
+        long existing = table[index + 1];
+        if ((table[index] ^ existing) == key && depthOf(existing) > depth && bound != EXACT) {
+            return;
+        }
+        if (move == 0 && (table[index] ^ existing) == key) {
+            move = moveOf(existing);
+        }
+        long data = (move & 0xFFFFFL)
+                | (long) (score + 32768) << 20
+                | (long) Math.min(depth, 255) << 36
+                | (long) bound << 44;
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    static int moveOf(long data) {
+        return (int) (data & 0xFFFFF);
+    }
+
+    static int scoreOf(long data) {
+        return (int) ((data >>> 20) & 0xFFFF) - 32768;
+    }
+
+    static int depthOf(long data) {
+        return (int) ((data >>> 36) & 0xFF);
+    }
+
+    static int boundOf(long data) {
+        return (int) ((data >>> 44) & 3);
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "chat_messages")
@@ -13,9 +14,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class ChatMessage {
 
+    // Assigned on creation: messages are broadcast with their id before the write-behind insert
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private String id;
+    @Builder.Default
+    private String id = UUID.randomUUID().toString();
 
     @Column(nullable = false)
     private String gameId;
@@ -8,7 +8,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "games")
+// Back the keyset list queries, which order by (created_at, id) within a status or a player,
+// and the archive scans over completed games in (ended_at, id) order
+@Table(name = "games", indexes = {
+        @Index(name = "idx_games_status_ended", columnList = "status, ended_at, id"),
+        @Index(name = "idx_games_status_created", columnList = "status, created_at, id"),
+        @Index(name = "idx_games_white_created", columnList = "white_player_id, created_at, id"),
+        @Index(name = "idx_games_black_created", columnList = "black_player_id, created_at, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -77,6 +84,11 @@ public class Game {
 
     private int blackRatingChange;
 
+    // Ratings going into the game, recorded when it is rated; null for unrated games
+    private Integer whiteRatingBefore;
+
+    private Integer blackRatingBefore;
+
     public enum GameStatus {
         WAITING,      // Waiting for opponent
         ACTIVE,       // Game in progress
@@ -0,0 +1,48 @@
+package com.sachess.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Outbox row for a rated game: written in the game-end transaction, marked applied in the one that updates the
+// users. Applied rows are kept for a while so a rating recomputation can replay the games past its watermark.
+@Entity
+@Table(name = "pending_ratings", indexes = @Index(name = "idx_pending_ratings_created", columnList = "applied, created_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingRating {
+
+    @Id
+    private String gameId;
+
+    @Column(nullable = false)
+    private String whiteId;
+
+    @Column(nullable = false)
+    private String blackId;
+
+    private int whiteChange;
+
+    private int blackChange;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Game.GameResult result;
+
+    // Post-game deviation and volatility, which are set rather than added
+    private double whiteDeviation;
+
+    private double whiteVolatility;
+
+    private double blackDeviation;
+
+    private double blackVolatility;
+
+    private boolean applied;
+
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -2,6 +2,7 @@ package com.sachess.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,6 +13,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+// Profile saves write only changed columns, so they don't clobber concurrent rating increments
+@DynamicUpdate
 @Data
 @Builder
 @NoArgsConstructor
@@ -34,6 +37,13 @@ public class User implements UserDetails {
     @Builder.Default
     private int rating = 1200;
 
+    // Only meaningful under Glicko-2; Elo leaves them untouched
+    @Builder.Default
+    private double ratingDeviation = 350.0;
+
+    @Builder.Default
+    private double ratingVolatility = 0.06;
+
     @Builder.Default
     private int gamesPlayed = 0;
 
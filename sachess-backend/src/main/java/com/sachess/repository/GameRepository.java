@@ -1,16 +1,39 @@
 package com.sachess.repository;
 
+import com.sachess.dto.GameSummary;
 import com.sachess.entity.Game;
 import com.sachess.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface GameRepository extends JpaRepository<Game, String> {
     
+    String SUMMARY_SELECT = "SELECT new com.sachess.dto.GameSummary(g.id, " +
+            "w.id, w.username, w.rating, w.avatar, b.id, b.username, b.rating, b.avatar, " +
+            "g.currentFen, g.status, g.result, g.currentTurn, g.timeControlMinutes, g.incrementSeconds, " +
+            "g.whiteTimeRemaining, g.blackTimeRemaining, g.createdAt, g.startedAt, g.endedAt) " +
+            "FROM Game g LEFT JOIN g.whitePlayer w LEFT JOIN g.blackPlayer b ";
+    
+    // Row lock held to the end of the transaction: serializes commands on one game across nodes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT g FROM Game g WHERE g.id = ?1")
+    Optional<Game> findByIdForUpdate(String id);
+
     List<Game> findByStatus(Game.GameStatus status);
     
     List<Game> findByWhitePlayerOrBlackPlayer(User whitePlayer, User blackPlayer);
@@ -26,4 +49,51 @@ public interface GameRepository extends JpaRepository<Game, String> {
     
     @Query("SELECT g FROM Game g WHERE (g.whitePlayer.id = ?1 OR g.blackPlayer.id = ?1) AND g.status = 'COMPLETED' ORDER BY g.endedAt DESC")
     List<Game> findCompletedGamesByPlayer(String playerId);
+    
+    // Keyset pages ordered by (createdAt, id); the cursor is the last row of the previous page
+    
+    @Query(SUMMARY_SELECT + "WHERE g.status = ?1 ORDER BY g.createdAt DESC, g.id DESC")
+    List<GameSummary> findSummariesByStatusNewestFirst(Game.GameStatus status, Limit limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE g.status = ?1 AND (g.createdAt < ?2 OR (g.createdAt = ?2 AND g.id < ?3)) " +
+           "ORDER BY g.createdAt DESC, g.id DESC")
+    List<GameSummary> findSummariesByStatusNewestFirst(Game.GameStatus status, LocalDateTime createdAt, String id, Limit limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE g.status = ?1 ORDER BY g.createdAt ASC, g.id ASC")
+    List<GameSummary> findSummariesByStatusOldestFirst(Game.GameStatus status, Limit limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE g.status = ?1 AND (g.createdAt > ?2 OR (g.createdAt = ?2 AND g.id > ?3)) " +
+           "ORDER BY g.createdAt ASC, g.id ASC")
+    List<GameSummary> findSummariesByStatusOldestFirst(Game.GameStatus status, LocalDateTime createdAt, String id, Limit limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE w.id = ?1 OR b.id = ?1 ORDER BY g.createdAt DESC, g.id DESC")
+    List<GameSummary> findSummariesByPlayer(String playerId, Limit limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE (w.id = ?1 OR b.id = ?1) AND (g.createdAt < ?2 OR (g.createdAt = ?2 AND g.id < ?3)) " +
+           "ORDER BY g.createdAt DESC, g.id DESC")
+    List<GameSummary> findSummariesByPlayer(String playerId, LocalDateTime createdAt, String id, Limit limit);
+    
+    // Scalar rows only, read through a cursor: [whiteId, blackId, result, endedAt]
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT g.whitePlayer.id, g.blackPlayer.id, g.result, g.endedAt FROM Game g " +
+           "WHERE g.status = 'COMPLETED' AND g.blackPlayer IS NOT NULL AND g.endedAt < ?1 " +
+           "AND g.result <> 'ABORTED' ORDER BY g.endedAt, g.id")
+    Stream<Object[]> streamRatedResults(LocalDateTime endedBefore);
+
+    // Keyset over completed games in (endedAt, id) order, settled before a cut-off: [id, endedAt]
+    @Query("SELECT g.id, g.endedAt FROM Game g WHERE g.status = 'COMPLETED' AND g.endedAt < ?1 " +
+           "ORDER BY g.endedAt, g.id")
+    List<Object[]> findCompletedKeys(LocalDateTime endedBefore, Limit limit);
+
+    @Query("SELECT g.id, g.endedAt FROM Game g WHERE g.status = 'COMPLETED' AND g.endedAt < ?3 " +
+           "AND (g.endedAt > ?1 OR (g.endedAt = ?1 AND g.id > ?2)) ORDER BY g.endedAt, g.id")
+    List<Object[]> findCompletedKeysAfter(LocalDateTime endedAt, String id, LocalDateTime endedBefore, Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE g.id IN ?1")
+    List<GameSummary> findSummariesByIdIn(Collection<String> ids);
+
+    // Moves and both players in one round trip
+    @Query("SELECT DISTINCT g FROM Game g LEFT JOIN FETCH g.moves LEFT JOIN FETCH g.whitePlayer " +
+           "LEFT JOIN FETCH g.blackPlayer WHERE g.id IN ?1")
+    List<Game> findAllWithMovesByIdIn(Collection<String> ids);
 }
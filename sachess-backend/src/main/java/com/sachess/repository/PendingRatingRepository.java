@@ -0,0 +1,44 @@
+package com.sachess.repository;
+
+import com.sachess.entity.PendingRating;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PendingRatingRepository extends JpaRepository<PendingRating, String> {
+
+    // Row locks claim the games: a second flusher waits, then finds them applied
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PendingRating p WHERE p.gameId IN ?1 AND p.applied = false ORDER BY p.createdAt, p.gameId")
+    List<PendingRating> lockUnappliedByGameIdIn(Collection<String> gameIds);
+
+    @Modifying
+    @Query("UPDATE PendingRating p SET p.applied = true WHERE p.gameId IN ?1")
+    int markApplied(Collection<String> gameIds);
+
+    @Query("SELECT p.gameId FROM PendingRating p WHERE p.applied = false AND p.createdAt < ?1")
+    List<String> findUnappliedGameIdsCreatedBefore(LocalDateTime createdBefore);
+
+    @Modifying
+    @Query("DELETE FROM PendingRating p WHERE p.applied = true AND p.createdAt < ?1")
+    int deleteAppliedCreatedBefore(LocalDateTime createdBefore);
+
+    // Recomputation: games before the watermark are covered by the rebuild, later ones are replayed on top of it
+
+    @Modifying
+    @Query("UPDATE PendingRating p SET p.applied = true WHERE p.applied = false " +
+           "AND p.gameId IN (SELECT g.id FROM Game g WHERE g.endedAt < ?1)")
+    int markAppliedForGamesEndedBefore(LocalDateTime endedBefore);
+
+    @Query("SELECT p FROM PendingRating p WHERE p.applied = true " +
+           "AND p.gameId IN (SELECT g.id FROM Game g WHERE g.endedAt >= ?1) ORDER BY p.createdAt, p.gameId")
+    List<PendingRating> findAppliedForGamesEndedSince(LocalDateTime endedSince);
+}
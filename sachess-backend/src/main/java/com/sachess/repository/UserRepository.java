@@ -2,9 +2,13 @@ package com.sachess.repository;
 
 import com.sachess.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,4 +30,25 @@ public interface UserRepository extends JpaRepository<User, String> {
     
     @Query("SELECT u FROM User u ORDER BY u.rating DESC LIMIT ?1")
     List<User> findTopPlayers(int limit);
+    
+    @Query("SELECT u.id, u.username FROM User u")
+    List<Object[]> findAllUsernames();
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.isOnline = ?2, u.lastSeen = ?3 WHERE u.id IN ?1")
+    int updatePresence(Collection<String> userIds, boolean online, LocalDateTime lastSeen);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.rating = CASE WHEN u.rating + ?2 < 100 THEN 100 ELSE u.rating + ?2 END, " +
+           "u.gamesPlayed = u.gamesPlayed + ?3, u.wins = u.wins + ?4, u.losses = u.losses + ?5, u.draws = u.draws + ?6, " +
+           "u.ratingDeviation = ?7, u.ratingVolatility = ?8 WHERE u.id = ?1")
+    int applyGameResults(String userId, int ratingDelta, int games, int wins, int losses, int draws,
+                         double deviation, double volatility);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.rating = ?1, u.ratingDeviation = ?2, u.ratingVolatility = ?3, " +
+           "u.gamesPlayed = 0, u.wins = 0, u.losses = 0, u.draws = 0")
+    int resetAllRatings(int rating, double deviation, double volatility);
 }
@@ -0,0 +1,59 @@
+package com.sachess.security;
+
+import com.sachess.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String USER_ID_ATTRIBUTE = "userId";
+
+    private final TokenAuthenticator tokenAuthenticator;
+
+    @Override
+    public boolean beforeHandshake(
+            @NonNull ServerHttpRequest request,
+            @NonNull ServerHttpResponse response,
+            @NonNull WebSocketHandler wsHandler,
+            @NonNull Map<String, Object> attributes) {
+        // Browsers cannot set headers on a WebSocket upgrade, so the token travels as ?token=
+        String token = UriComponentsBuilder.fromUri(request.getURI())
+                .build()
+                .getQueryParams()
+                .getFirst("token");
+
+        if (token != null) {
+            try {
+                UserDetails userDetails = tokenAuthenticator.authenticate(token);
+                if (userDetails instanceof User user) {
+                    attributes.put(USER_ID_ATTRIBUTE, user.getId());
+                }
+            } catch (Exception e) {
+                log.debug("Rejected WebSocket token: {}", e.getMessage());
+            }
+        }
+        // Anonymous sessions may still spectate
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(
+            @NonNull ServerHttpRequest request,
+            @NonNull ServerHttpResponse response,
+            @NonNull WebSocketHandler wsHandler,
+            Exception exception) {
+    }
+}
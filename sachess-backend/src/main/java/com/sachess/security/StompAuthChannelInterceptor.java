@@ -0,0 +1,87 @@
+package com.sachess.security;
+
+import com.sachess.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final String CLUSTER_PREFIX = "/topic/cluster/";
+
+    private final TokenAuthenticator tokenAuthenticator;
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String token = resolveToken(accessor);
+            if (token != null) {
+                // Validated once per session; the principal is then attached to every later frame
+                accessor.setUser(authenticate(token));
+            }
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        if (StompCommand.SEND.equals(accessor.getCommand())) {
+            if (accessor.getUser() == null) {
+                // Anonymous sessions may subscribe (spectate) but not issue commands
+                log.debug("Dropping unauthenticated SEND to {}", destination);
+                return null;
+            }
+            // Anything else would be published straight to the broker as if a node had sent it
+            if (destination == null || !destination.startsWith("/app/")) {
+                log.debug("Dropping client SEND to broker destination {}", destination);
+                return null;
+            }
+        }
+
+        if (StompCommand.SUBSCRIBE.equals(accessor.getCommand()) && destination != null
+                && (destination.startsWith(CLUSTER_PREFIX) || destination.contains("*") || destination.contains("#"))) {
+            // Node-to-node traffic (user index changes include emails); a broker wildcard would match it too
+            log.debug("Dropping client SUBSCRIBE to {}", destination);
+            return null;
+        }
+
+        return message;
+    }
+
+    private StompPrincipal authenticate(String token) {
+        UserDetails userDetails;
+        try {
+            userDetails = tokenAuthenticator.authenticate(token);
+        } catch (Exception e) {
+            throw new MessageDeliveryException("Invalid authentication token");
+        }
+
+        if (!(userDetails instanceof User user)) {
+            throw new MessageDeliveryException("Unsupported principal");
+        }
+        return new StompPrincipal(user.getId(), user.getUsername());
+    }
+
+    private static String resolveToken(StompHeaderAccessor accessor) {
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ")) {
+            return header.substring(7);
+        }
+        return accessor.getFirstNativeHeader("token");
+    }
+}
@@ -0,0 +1,15 @@
+package com.sachess.security;
+
+import java.security.Principal;
+
+/**
+ * Session principal for authenticated WebSocket connections. The name is the user id, which is
+ * what message handlers pass to the services as the player id.
+ */
+public record StompPrincipal(String userId, String username) implements Principal {
+
+    @Override
+    public String getName() {
+        return userId;
+    }
+}
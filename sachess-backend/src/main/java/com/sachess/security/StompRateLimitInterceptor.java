@@ -0,0 +1,108 @@
+package com.sachess.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drops SEND frames that exceed a per-destination token bucket, before they reach any handler. Each
+ * session has its own bucket per rule, and each user a shared one (capacity scaled by
+ * {@code websocket.rate-limit.user-factor}) so opening more tabs doesn't multiply the allowance.
+ */
+@Component
+@Slf4j
+public class StompRateLimitInterceptor implements ChannelInterceptor {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    // "pattern=capacity@refillPerSecond", comma separated, first match wins
+    @Value("${websocket.rate-limit.rules:/app/chat/**=5@1,/app/game/*/analyze=3@0.2,/app/matchmaking/join=2@0.2}")
+    private String ruleSpec;
+
+    @Value("${websocket.rate-limit.user-factor:2}")
+    private int userFactor;
+
+    private final List<Rule> rules = new ArrayList<>();
+
+    // "s:<sessionId>:<pattern>" or "u:<userId>:<pattern>" -> bucket
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (String entry : ruleSpec.split(",")) {
+            if (entry.isBlank()) continue;
+            String[] patternAndLimit = entry.trim().split("=");
+            String[] limit = patternAndLimit[1].split("@");
+            rules.add(new Rule(patternAndLimit[0], Integer.parseInt(limit[0]), Double.parseDouble(limit[1])));
+        }
+        log.info("STOMP rate limits: {}", rules);
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SEND.equals(accessor.getCommand()) || accessor.getDestination() == null) {
+            return message;
+        }
+
+        Rule rule = findRule(accessor.getDestination());
+        if (rule == null) {
+            return message;
+        }
+
+        TokenBucket sessionBucket = buckets.computeIfAbsent("s:" + accessor.getSessionId() + ":" + rule.pattern(),
+                key -> new TokenBucket(rule.capacity(), rule.refillPerSecond()));
+        if (!sessionBucket.tryAcquire()) {
+            return reject(accessor, "session");
+        }
+
+        Principal user = accessor.getUser();
+        if (user != null) {
+            TokenBucket userBucket = buckets.computeIfAbsent("u:" + user.getName() + ":" + rule.pattern(),
+                    key -> new TokenBucket(rule.capacity() * userFactor, rule.refillPerSecond() * userFactor));
+            if (!userBucket.tryAcquire()) {
+                return reject(accessor, "user");
+            }
+        }
+        return message;
+    }
+
+    // Refilled buckets are indistinguishable from new ones; dropping them bounds the map to active senders
+    @Scheduled(fixedRate = 60000)
+    public void evictFullBuckets() {
+        buckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    private Rule findRule(String destination) {
+        for (Rule rule : rules) {
+            if (pathMatcher.match(rule.pattern(), destination)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private static Message<?> reject(StompHeaderAccessor accessor, String scope) {
+        log.debug("Rate limit ({}) exceeded: dropping SEND to {} from session {}",
+                scope, accessor.getDestination(), accessor.getSessionId());
+        return null;
+    }
+
+    private record Rule(String pattern, int capacity, double refillPerSecond) {}
+}
@@ -0,0 +1,34 @@
+package com.sachess.security;
+
+import com.sachess.entity.User;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class TokenAuthenticator {
+
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+    private final VerifiedTokenCache tokenCache;
+
+    /**
+     * Resolves a bearer token to its user. Cached tokens need no parsing and no user lookup;
+     * otherwise the token is verified once and the result cached. Throws if the token is invalid.
+     */
+    public UserDetails authenticate(String token) {
+        UserDetails userDetails = tokenCache.get(token);
+
+        if (userDetails == null) {
+            Claims claims = jwtService.parseVerifiedClaims(token);
+            userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            if (userDetails instanceof User user) {
+                tokenCache.put(token, user, claims.getExpiration().getTime());
+            }
+        }
+        return userDetails;
+    }
+}
@@ -0,0 +1,79 @@
+package com.sachess.security;
+
+import com.sachess.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verified bearer tokens mapped to an immutable snapshot of the user's identity (id, username, role).
+ * Hits hand out a fresh detached {@link User} carrying only those fields, never a shared entity.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    @Value("${jwt.cache.max-size:10000}")
+    private int maxSize;
+
+    // Bounds how stale a cached principal (and a revoked user) can get
+    @Value("${jwt.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public User get(String token) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(token, entry);
+            return null;
+        }
+        return User.builder()
+                .id(entry.userId)
+                .username(entry.username)
+                .role(entry.role)
+                .build();
+    }
+
+    public void put(String token, User user, long tokenExpiresAt) {
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        // Never outlive the token itself
+        entries.put(token, new Entry(user.getId(), user.getUsername(), user.getRole(), Math.min(tokenExpiresAt, now + ttlMs)));
+    }
+
+    /** Drops every token of the user, so the next request re-reads their username and role. */
+    public void evictUser(String userId) {
+        entries.values().removeIf(entry -> entry.userId.equals(userId));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        if (entries.size() < maxSize) {
+            return;
+        }
+
+        // Still full of live tokens: drop the tenth that expires soonest
+        List<Map.Entry<String, Entry>> live = new ArrayList<>(entries.entrySet());
+        live.sort(Comparator.comparingLong(e -> e.getValue().expiresAt));
+        int excess = Math.min(live.size(), Math.max(1, maxSize / 10));
+        for (int i = 0; i < excess; i++) {
+            entries.remove(live.get(i).getKey(), live.get(i).getValue());
+        }
+    }
+
+    private record Entry(String userId, String username, User.Role role, long expiresAt) {}
+}
@@ -0,0 +1,71 @@
+package com.sachess.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chooses how each analysis is bounded. With an idle queue and fixed-depth searches that fit the
+ * latency SLO, the requested depth is used, still capped by what is left of the SLO; otherwise the
+ * search gets a time budget that shares the rest of the SLO with the jobs queued behind it, so quality
+ * degrades instead of latency.
+ */
+@Component
+public class AdaptiveSearchPolicy {
+
+    // Under sustained time-bounded mode, re-measure a fixed-depth search every N idle-queue decisions
+    private static final int PROBE_EVERY = 20;
+
+    @Value("${engine.adaptive.latency-slo-ms:2000}")
+    private long latencySloMs;
+
+    @Value("${engine.adaptive.min-movetime-ms:100}")
+    private long minMovetimeMs;
+
+    // Smoothed duration of recent fixed-depth searches per requested depth, absent until one completes
+    private final Map<Integer, Double> fixedDepthLatencyMs = new ConcurrentHashMap<>();
+
+    private final AtomicLong idleDecisions = new AtomicLong();
+
+    public SearchLimit choose(int depth, int queueDepth, long waitedMs) {
+        long remaining = Math.max(minMovetimeMs, latencySloMs - waitedMs);
+
+        if (queueDepth == 0) {
+            boolean fits = fixedDepthLatencyMs.getOrDefault(depth, 0.0) <= remaining;
+            boolean probe = idleDecisions.incrementAndGet() % PROBE_EVERY == 0;
+            if (fits || probe) {
+                return SearchLimit.depth(depth, remaining);
+            }
+        }
+        return SearchLimit.movetime(Math.max(minMovetimeMs, remaining / (queueDepth + 1)));
+    }
+
+    public void record(SearchLimit limit, long elapsedMs) {
+        if (limit.isDepthBounded()) {
+            // A search cut off by the cap records the cap, which still says this depth does not fit a tighter budget
+            fixedDepthLatencyMs.merge(limit.depth(), (double) elapsedMs, (previous, latest) -> 0.8 * previous + 0.2 * latest);
+        }
+    }
+
+    // movetimeMs is always set; depth, when set, stops the search earlier if reached first
+    public record SearchLimit(int depth, long movetimeMs) {
+        static SearchLimit depth(int depth, long movetimeMs) {
+            return new SearchLimit(depth, movetimeMs);
+        }
+
+        static SearchLimit movetime(long movetimeMs) {
+            return new SearchLimit(0, movetimeMs);
+        }
+
+        public boolean isDepthBounded() {
+            return depth > 0;
+        }
+
+        public String goCommand() {
+            return isDepthBounded() ? "go depth " + depth + " movetime " + movetimeMs : "go movetime " + movetimeMs;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.sachess.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Immutable Aho-Corasick automaton over already-normalized terms. One left-to-right pass over the
+ * text reports every occurrence of every term, independent of how many terms there are.
+ */
+public final class AhoCorasickMatcher {
+
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    private final List<Integer> failure = new ArrayList<>();
+    // Length of the longest term ending at the node, 0 if none
+    private final List<Integer> termLength = new ArrayList<>();
+    // Nearest node on the failure chain that ends a term (-1 if none)
+    private final List<Integer> outputLink = new ArrayList<>();
+    private final int termCount;
+
+    public AhoCorasickMatcher(Collection<String> terms) {
+        newNode();
+        int count = 0;
+        for (String term : terms) {
+            if (term.isEmpty()) continue;
+            int node = 0;
+            for (int i = 0; i < term.length(); i++) {
+                char c = term.charAt(i);
+                Integer child = transitions.get(node).get(c);
+                if (child == null) {
+                    child = newNode();
+                    transitions.get(node).put(c, child);
+                }
+                node = child;
+            }
+            termLength.set(node, Math.max(termLength.get(node), term.length()));
+            count++;
+        }
+        termCount = count;
+        buildFailureLinks();
+    }
+
+    public int size() {
+        return termCount;
+    }
+
+    /** Calls the consumer with (start, endExclusive) for each term occurrence, including overlapping ones. */
+    public void forEachMatch(CharSequence text, MatchConsumer consumer) {
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            node = step(node, text.charAt(i));
+            for (int out = termLength.get(node) > 0 ? node : outputLink.get(node); out > 0; out = outputLink.get(out)) {
+                consumer.accept(i + 1 - termLength.get(out), i + 1);
+            }
+        }
+    }
+
+    private int step(int node, char c) {
+        while (true) {
+            Integer next = transitions.get(node).get(c);
+            if (next != null) return next;
+            if (node == 0) return 0;
+            node = failure.get(node);
+        }
+    }
+
+    private void buildFailureLinks() {
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : transitions.get(0).values()) {
+            failure.set(child, 0);
+            queue.add(child);
+        }
+        // Breadth-first, so a node's failure target is always finished before the node itself
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (Map.Entry<Character, Integer> edge : transitions.get(node).entrySet()) {
+                int child = edge.getValue();
+                int fail = step(failure.get(node), edge.getKey());
+                failure.set(child, fail);
+                outputLink.set(child, termLength.get(fail) > 0 ? fail : outputLink.get(fail));
+                queue.add(child);
+            }
+        }
+    }
+
+    private int newNode() {
+        transitions.add(new HashMap<>());
+        failure.add(0);
+        termLength.add(0);
+        outputLink.add(-1);
+        return transitions.size() - 1;
+    }
+
+    @FunctionalInterface
+    public interface MatchConsumer {
+        void accept(int start, int end);
+    }
+}
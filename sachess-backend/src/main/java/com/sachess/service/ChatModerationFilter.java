@@ -0,0 +1,140 @@
+package com.sachess.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Masks blocked terms in chat messages. The word list is compiled into an Aho-Corasick automaton and
+ * replaced wholesale when the file changes, so readers never see a half-built list.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatModerationFilter {
+
+    private static final String MASK = "***";
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${chat.moderation.word-list:classpath:moderation/blocked-words.txt}")
+    private String wordListLocation;
+
+    private volatile AhoCorasickMatcher matcher = new AhoCorasickMatcher(Set.of());
+
+    private volatile long loadedModified = -1;
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${chat.moderation.reload-interval-ms:30000}")
+    public void reloadIfChanged() {
+        Resource resource = resourceLoader.getResource(wordListLocation);
+        try {
+            if (resource.lastModified() != loadedModified) {
+                reload();
+            }
+        } catch (IOException e) {
+            // Not a file (e.g. inside a jar): the list can't change at runtime
+        }
+    }
+
+    public synchronized void reload() {
+        Resource resource = resourceLoader.getResource(wordListLocation);
+        Set<String> terms = new LinkedHashSet<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    terms.add(normalize(line));
+                }
+            }
+        } catch (IOException e) {
+            // Keep serving the previous list
+            log.error("Failed to load moderation word list {}: {}", wordListLocation, e.getMessage());
+            return;
+        }
+
+        matcher = new AhoCorasickMatcher(terms);
+        try {
+            loadedModified = resource.lastModified();
+        } catch (IOException e) {
+            loadedModified = 0;
+        }
+        log.info("Loaded {} moderation terms from {}", matcher.size(), wordListLocation);
+    }
+
+    public String filter(String content) {
+        AhoCorasickMatcher current = matcher;
+        if (current.size() == 0 || content.isEmpty()) {
+            return content;
+        }
+
+        // Normalization maps char to char, so match offsets apply to the original text as well
+        String normalized = normalize(content);
+        boolean[] masked = new boolean[content.length()];
+        boolean[] any = {false};
+        current.forEachMatch(normalized, (start, end) -> {
+            if (isBoundary(content, start - 1) && isBoundary(content, end)) {
+                for (int i = start; i < end; i++) masked[i] = true;
+                any[0] = true;
+            }
+        });
+        if (!any[0]) {
+            return content;
+        }
+
+        StringBuilder result = new StringBuilder(content.length());
+        for (int i = 0; i < content.length(); i++) {
+            if (!masked[i]) {
+                result.append(content.charAt(i));
+            } else if (i == 0 || !masked[i - 1]) {
+                result.append(MASK);
+            }
+        }
+        return result.toString();
+    }
+
+    // Whole words only, like the previous \b regex
+    private static boolean isBoundary(String text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+
+    static String normalize(String text) {
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(text.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    private static char fold(char c) {
+        return switch (c) {
+            case '0' -> 'o';
+            case '1', '!', '|' -> 'i';
+            case '3' -> 'e';
+            case '4', '@' -> 'a';
+            case '5', '$' -> 's';
+            case '7', '+' -> 't';
+            case '8' -> 'b';
+            case '9' -> 'g';
+            default -> Character.toLowerCase(c);
+        };
+    }
+}
@@ -2,16 +2,28 @@ package com.sachess.service;
 
 import com.sachess.dto.ChatMessageDTO;
 import com.sachess.entity.ChatMessage;
-import com.sachess.entity.User;
 import com.sachess.repository.ChatMessageRepository;
-import com.sachess.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,14 +31,41 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ChatService {
 
+    private static final int RECENT_LIMIT = 50;
+    private static final int FLUSH_BATCH_SIZE = 500;
+
     private final ChatMessageRepository chatMessageRepository;
-    private final UserRepository userRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatModerationFilter chatModerationFilter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${chat.ring.idle-ttl-ms:600000}")
+    private long ringIdleTtlMs;
+
+    @Value("${chat.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    // Other nodes' messages only reach this one through the database
+    @Value("${websocket.broker.relay.enabled:false}")
+    private boolean relayEnabled;
 
-    public ChatMessageDTO sendMessage(String gameId, String senderId, String content) {
-        User sender = userRepository.findById(senderId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    // Attempts before a message that can't be stored individually is dropped
+    @Value("${chat.flush.max-attempts:10}")
+    private int maxAttempts;
 
+    // gameId -> the last RECENT_LIMIT messages, which is what /recent serves
+    private final Map<String, ChatRing> rings = new ConcurrentHashMap<>();
+
+    // Broadcast but not yet persisted
+    private final Queue<ChatMessage> unsaved = new ConcurrentLinkedQueue<>();
+
+    // Messages that failed on their own, retried one at a time with backoff so they never hold up a batch
+    private final Queue<Retry> retries = new ConcurrentLinkedQueue<>();
+
+    public ChatMessageDTO sendMessage(String gameId, String senderId, String senderUsername, String content) {
         // Basic content moderation
         String sanitizedContent = sanitizeMessage(content);
         if (sanitizedContent.isEmpty()) {
@@ -36,20 +75,15 @@ public class ChatService {
         ChatMessage message = ChatMessage.builder()
                 .gameId(gameId)
                 .senderId(senderId)
-                .senderUsername(sender.getUsername())
+                .senderUsername(senderUsername)
                 .content(sanitizedContent)
                 .timestamp(LocalDateTime.now())
                 .type(ChatMessage.MessageType.CHAT)
                 .build();
 
-        message = chatMessageRepository.save(message);
+        ChatMessageDTO dto = publish(message);
 
-        ChatMessageDTO dto = ChatMessageDTO.fromEntity(message);
-
-        // Broadcast to game channel
-        messagingTemplate.convertAndSend("/topic/chat/" + gameId, dto);
-
-        log.debug("Chat message sent in game {}: {} - {}", gameId, sender.getUsername(), sanitizedContent);
+        log.debug("Chat message sent in game {}: {} - {}", gameId, senderUsername, sanitizedContent);
 
         return dto;
     }
@@ -64,31 +98,151 @@ public class ChatService {
                 .type(type)
                 .build();
 
-        message = chatMessageRepository.save(message);
-
-        ChatMessageDTO dto = ChatMessageDTO.fromEntity(message);
-
-        messagingTemplate.convertAndSend("/topic/chat/" + gameId, dto);
-
-        return dto;
+        return publish(message);
     }
 
     public List<ChatMessageDTO> getGameMessages(String gameId) {
-        return chatMessageRepository.findByGameIdOrderByTimestampAsc(gameId)
-                .stream()
+        // Full history lives in the DB, plus whatever the ring holds that hasn't been flushed yet
+        Map<String, ChatMessage> byId = new LinkedHashMap<>();
+        chatMessageRepository.findByGameIdOrderByTimestampAsc(gameId).forEach(m -> byId.put(m.getId(), m));
+        ChatRing ring = rings.get(gameId);
+        if (ring != null) {
+            ring.snapshot().forEach(m -> byId.putIfAbsent(m.getId(), m));
+        }
+        return byId.values().stream()
+                .sorted(Comparator.comparing(ChatMessage::getTimestamp))
                 .map(ChatMessageDTO::fromEntity)
                 .collect(Collectors.toList());
     }
 
     public List<ChatMessageDTO> getRecentMessages(String gameId) {
-        List<ChatMessage> messages = chatMessageRepository.findTop50ByGameIdOrderByTimestampDesc(gameId);
-        // Reverse to get chronological order
+        // Reads never create a ring, so polling arbitrary game ids can't grow the map
+        ChatRing ring = rings.get(gameId);
+        if (ring != null && ring.isLoaded() && !relayEnabled) {
+            return toDtos(ring.snapshot());
+        }
+
+        List<ChatMessage> stored = new ArrayList<>(chatMessageRepository.findTop50ByGameIdOrderByTimestampDesc(gameId));
+        Collections.reverse(stored);
+        if (ring == null) {
+            return toDtos(stored);
+        }
+        if (!relayEnabled) {
+            // First read since the ring was created: seed it from the DB once
+            ring.seed(stored);
+            return toDtos(ring.snapshot());
+        }
+
+        // Messages sent on other nodes never reach this ring; it only adds local ones not flushed yet
+        Map<String, ChatMessage> merged = new LinkedHashMap<>();
+        stored.forEach(m -> merged.put(m.getId(), m));
+        ring.snapshot().forEach(m -> merged.putIfAbsent(m.getId(), m));
+        List<ChatMessage> messages = new ArrayList<>(merged.values());
+        messages.sort(Comparator.comparing(ChatMessage::getTimestamp));
+        return toDtos(messages.subList(Math.max(0, messages.size() - RECENT_LIMIT), messages.size()));
+    }
+
+    private static List<ChatMessageDTO> toDtos(List<ChatMessage> messages) {
         return messages.stream()
-                .sorted((a, b) -> a.getTimestamp().compareTo(b.getTimestamp()))
                 .map(ChatMessageDTO::fromEntity)
                 .collect(Collectors.toList());
     }
 
+    @Scheduled(fixedDelayString = "${chat.flush-interval-ms:200}")
+    public void flush() {
+        retryFailed(false);
+        flushUnsaved();
+    }
+
+    private void flushUnsaved() {
+        while (!unsaved.isEmpty()) {
+            List<ChatMessage> batch = new ArrayList<>(FLUSH_BATCH_SIZE);
+            ChatMessage next;
+            while (batch.size() < FLUSH_BATCH_SIZE && (next = unsaved.poll()) != null) {
+                batch.add(next);
+            }
+
+            try {
+                // Ids are assigned up front, so persist() inserts without a prior SELECT and JDBC batches them
+                transactionTemplate.executeWithoutResult(status -> batch.forEach(entityManager::persist));
+            } catch (RuntimeException e) {
+                // One bad message fails the whole insert: store the rest one by one, hold back what still fails
+                long retryAt = System.currentTimeMillis() + flushIntervalMs;
+                int failed = 0;
+                for (ChatMessage message : batch) {
+                    if (!persist(message)) {
+                        retries.add(new Retry(message, 1, retryAt));
+                        failed++;
+                    }
+                }
+                log.warn("Failed to persist a batch of {} chat messages, {} held for retry: {}",
+                        batch.size(), failed, e.getMessage());
+            }
+        }
+    }
+
+    private void retryFailed(boolean ignoreBackoff) {
+        long time = System.currentTimeMillis();
+        for (int n = retries.size(); n > 0; n--) {
+            Retry retry = retries.poll();
+            if (retry == null) {
+                break;
+            }
+            if (!ignoreBackoff && retry.nextAttemptAt() > time) {
+                retries.add(retry);
+                continue;
+            }
+            if (persist(retry.message())) {
+                continue;
+            }
+
+            int attempts = retry.attempts() + 1;
+            if (attempts >= maxAttempts) {
+                ChatMessage message = retry.message();
+                log.error("Dropping chat message {} in game {} from {} after {} attempts",
+                        message.getId(), message.getGameId(), message.getSenderId(), attempts);
+                continue;
+            }
+            // Doubling backoff, so a database outage of a few minutes still loses nothing
+            retries.add(new Retry(retry.message(), attempts, time + (flushIntervalMs << Math.min(attempts, 16))));
+        }
+    }
+
+    private boolean persist(ChatMessage message) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> entityManager.persist(message));
+            return true;
+        } catch (RuntimeException e) {
+            log.debug("Failed to persist chat message {}: {}", message.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void evictIdleRings() {
+        long cutoff = System.currentTimeMillis() - ringIdleTtlMs;
+        rings.values().removeIf(ring -> ring.lastActivity() < cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Last chance for held-back messages too, whatever their backoff
+        retryFailed(true);
+        flushUnsaved();
+    }
+
+    private ChatMessageDTO publish(ChatMessage message) {
+        rings.computeIfAbsent(message.getGameId(), id -> new ChatRing()).add(message);
+        unsaved.add(message);
+
+        ChatMessageDTO dto = ChatMessageDTO.fromEntity(message);
+
+        // Broadcast to game channel
+        messagingTemplate.convertAndSend("/topic/chat/" + message.getGameId(), dto);
+
+        return dto;
+    }
+
     private String sanitizeMessage(String content) {
         if (content == null) return "";
 
@@ -98,10 +252,65 @@ public class ChatService {
             sanitized = sanitized.substring(0, 500);
         }
 
-        // Basic profanity filter (simplified - in production use a proper library)
-        // This is just a placeholder
-        sanitized = sanitized.replaceAll("(?i)\\b(badword1|badword2)\\b", "***");
+        return chatModerationFilter.filter(sanitized);
+    }
+
+    private record Retry(ChatMessage message, int attempts, long nextAttemptAt) {}
+
+    // Fixed-size circular buffer, oldest message overwritten first
+    private static class ChatRing {
+        private final ChatMessage[] slots = new ChatMessage[RECENT_LIMIT];
+        private int next;
+        private int size;
+        private boolean loaded;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        synchronized void add(ChatMessage message) {
+            slots[next] = message;
+            next = (next + 1) % slots.length;
+            size = Math.min(size + 1, slots.length);
+            lastActivity = System.currentTimeMillis();
+        }
+
+        // Older stored messages go in front of anything already added since the ring was created
+        synchronized void seed(List<ChatMessage> stored) {
+            if (loaded) return;
+            Map<String, ChatMessage> merged = new LinkedHashMap<>();
+            stored.forEach(m -> merged.put(m.getId(), m));
+            snapshotLocked().forEach(m -> merged.putIfAbsent(m.getId(), m));
+
+            List<ChatMessage> messages = new ArrayList<>(merged.values());
+            messages.sort(Comparator.comparing(ChatMessage::getTimestamp));
+            next = 0;
+            size = 0;
+            messages.subList(Math.max(0, messages.size() - slots.length), messages.size()).forEach(m -> {
+                slots[next] = m;
+                next = (next + 1) % slots.length;
+                size = Math.min(size + 1, slots.length);
+            });
+            loaded = true;
+        }
+
+        synchronized boolean isLoaded() {
+            return loaded;
+        }
+
+        // Reads don't count as activity: only new messages keep a ring alive
+        synchronized List<ChatMessage> snapshot() {
+            return snapshotLocked();
+        }
+
+        long lastActivity() {
+            return lastActivity;
+        }
 
-        return sanitized;
+        private List<ChatMessage> snapshotLocked() {
+            List<ChatMessage> result = new ArrayList<>(size);
+            int start = (next - size + slots.length) % slots.length;
+            for (int i = 0; i < size; i++) {
+                result.add(slots[(start + i) % slots.length]);
+            }
+            return result;
+        }
     }
 }
@@ -0,0 +1,36 @@
+package com.sachess.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class EloRatingModel implements RatingModel {
+
+    @Value("${rating.elo.k-factor:32}")
+    private double kFactor;
+
+    @Value("${rating.initial:1200}")
+    private double initialRating;
+
+    @Override
+    public String name() {
+        return "elo";
+    }
+
+    @Override
+    public PlayerRating initial() {
+        return new PlayerRating(initialRating, 350.0, 0.06);
+    }
+
+    @Override
+    public PlayerRating rate(PlayerRating player, List<Outcome> outcomes) {
+        double change = 0;
+        for (Outcome outcome : outcomes) {
+            double expected = 1.0 / (1.0 + Math.pow(10, (outcome.opponent().rating() - player.rating()) / 400.0));
+            change += kFactor * (outcome.score() - expected);
+        }
+        return new PlayerRating(player.rating() + change, player.deviation(), player.volatility());
+    }
+}
@@ -0,0 +1,192 @@
+package com.sachess.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-worker priority queue in front of the engine. Jobs run by class (players' own games first,
+ * then spectators, then batch work) and FIFO within a class. A job still queued at its deadline is
+ * dropped rather than run late, and each user may have only a few jobs pending at once.
+ */
+@Component
+@Slf4j
+public class EngineJobScheduler {
+
+    @Value("${engine.jobs.max-per-user:2}")
+    private int maxPerUser;
+
+    @Value("${engine.jobs.deadline.interactive-ms:5000}")
+    private long interactiveDeadlineMs;
+
+    @Value("${engine.jobs.deadline.spectator-ms:15000}")
+    private long spectatorDeadlineMs;
+
+    @Value("${engine.jobs.deadline.batch-ms:600000}")
+    private long batchDeadlineMs;
+
+    private final PriorityBlockingQueue<Job<?>> queue = new PriorityBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // userId -> queued + running jobs; only changed inside compute so a count is never updated after removal
+    private final Map<String, Integer> pendingPerUser = new ConcurrentHashMap<>();
+
+    private final Map<JobClass, AtomicInteger> queuedByClass = new ConcurrentHashMap<>();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile JobClass running;
+
+    private Thread worker;
+
+    public enum JobClass {
+        INTERACTIVE, // a player analysing their own game
+        SPECTATOR,
+        BATCH
+    }
+
+    @PostConstruct
+    public void start() {
+        for (JobClass jobClass : JobClass.values()) {
+            queuedByClass.put(jobClass, new AtomicInteger());
+        }
+        worker = new Thread(this::runJobs, "engine-jobs");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.interrupt();
+    }
+
+    // userId null marks server-initiated work, which is not subject to the per-user cap
+    public <T> CompletableFuture<T> submit(JobClass jobClass, String userId, Callable<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        if (userId != null) {
+            boolean[] admitted = new boolean[1];
+            pendingPerUser.compute(userId, (id, count) -> {
+                int pending = count == null ? 0 : count;
+                if (pending >= maxPerUser) {
+                    return count;
+                }
+                admitted[0] = true;
+                return pending + 1;
+            });
+            if (!admitted[0]) {
+                rejected.incrementAndGet();
+                future.completeExceptionally(new RuntimeException("Too many pending engine requests"));
+                return future;
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs(jobClass));
+        queuedByClass.get(jobClass).incrementAndGet();
+        queue.add(new Job<>(jobClass, sequence.incrementAndGet(), deadline, userId, work, future));
+        return future;
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Integer> depth = new LinkedHashMap<>();
+        queuedByClass.forEach((jobClass, count) -> depth.put(jobClass.name(), count.get()));
+        stats.put("queued", depth);
+        stats.put("running", running);
+        stats.put("completed", completed.get());
+        stats.put("expired", expired.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    private void runJobs() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job<?> job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            queuedByClass.get(job.jobClass).decrementAndGet();
+
+            try {
+                if (job.future.isDone()) {
+                    // Cancelled by the caller while queued
+                    continue;
+                }
+                if (System.nanoTime() > job.deadline) {
+                    expired.incrementAndGet();
+                    job.future.complete(null);
+                    log.debug("Dropped stale {} engine job for {}", job.jobClass, job.owner);
+                    continue;
+                }
+
+                running = job.jobClass;
+                job.run();
+                completed.incrementAndGet();
+            } finally {
+                running = null;
+                if (job.owner != null) {
+                    pendingPerUser.computeIfPresent(job.owner, (id, count) -> count == 1 ? null : count - 1);
+                }
+            }
+        }
+    }
+
+    private long deadlineMs(JobClass jobClass) {
+        return switch (jobClass) {
+            case INTERACTIVE -> interactiveDeadlineMs;
+            case SPECTATOR -> spectatorDeadlineMs;
+            case BATCH -> batchDeadlineMs;
+        };
+    }
+
+    private static final class Job<T> implements Comparable<Job<?>> {
+        final JobClass jobClass;
+        final long sequence;
+        final long deadline;
+        final String owner;
+        final Callable<T> work;
+        final CompletableFuture<T> future;
+
+        Job(JobClass jobClass, long sequence, long deadline, String owner, Callable<T> work, CompletableFuture<T> future) {
+            this.jobClass = jobClass;
+            this.sequence = sequence;
+            this.deadline = deadline;
+            this.owner = owner;
+            this.work = work;
+            this.future = future;
+        }
+
+        void run() {
+            try {
+                future.complete(work.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public int compareTo(Job<?> other) {
+            int byClass = jobClass.compareTo(other.jobClass);
+            return byClass != 0 ? byClass : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.sachess.service;
+
+import com.sachess.dto.GameMessage;
+import com.sachess.engine.JavaEngine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-process engine used when the Stockfish binary is unavailable. Much weaker than Stockfish, so
+ * depth-bounded requests are also capped in time.
+ */
+@Service
+@Slf4j
+public class FallbackEngineService {
+
+    @Value("${engine.fallback.enabled:true}")
+    private boolean enabled;
+
+    @Value("${engine.fallback.threads:2}")
+    private int threads;
+
+    @Value("${engine.fallback.hash-mb:64}")
+    private int hashMegabytes;
+
+    @Value("${engine.fallback.max-time-ms:3000}")
+    private long maxTimeMs;
+
+    private JavaEngine engine;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            engine = new JavaEngine(threads, hashMegabytes);
+            log.info("Java fallback engine ready ({} threads, {} MB hash)", threads, hashMegabytes);
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    public boolean isAvailable() {
+        return engine != null;
+    }
+
+    public GameMessage.AnalysisResult analyze(String fen, AdaptiveSearchPolicy.SearchLimit limit) {
+        JavaEngine.SearchResult result = engine.search(fen, limit.isDepthBounded() ? limit.depth() : Integer.MAX_VALUE,
+                Math.min(limit.movetimeMs(), maxTimeMs));
+
+        return GameMessage.AnalysisResult.builder()
+                .bestMove(result.bestMove())
+                .evaluation(result.mateIn() != null ? (result.mateIn() > 0 ? 10000 : -10000) : result.score())
+                .pv(result.pv())
+                .depth(result.depth())
+                .mate(result.mateIn() != null ? String.valueOf(result.mateIn()) : null)
+                .nodes(result.nodes())
+                .nodesPerSecond(result.nodesPerSecond())
+                .timeMs(result.timeMs())
+                .limit(limit.goCommand().substring("go ".length()))
+                .engine("java")
+                .build();
+    }
+
+    public String getBestMove(String fen, int timeMs) {
+        return engine.search(fen, Integer.MAX_VALUE, Math.min(timeMs, maxTimeMs)).bestMove();
+    }
+
+    public void newGame() {
+        if (engine != null) {
+            engine.clearHash();
+        }
+    }
+}
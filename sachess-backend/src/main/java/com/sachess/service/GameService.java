@@ -2,6 +2,8 @@ package com.sachess.service;
 
 import com.sachess.dto.GameDTO;
 import com.sachess.dto.GameMessage;
+import com.sachess.dto.GamePage;
+import com.sachess.dto.GameSummary;
 import com.sachess.dto.MoveRequest;
 import com.sachess.entity.Game;
 import com.sachess.entity.User;
@@ -9,17 +11,26 @@ import com.sachess.repository.GameRepository;
 import com.sachess.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
@@ -30,11 +41,30 @@ public class GameService {
     private final UserRepository userRepository;
     private final ChessService chessService;
     private final StockfishService stockfishService;
+    private final TablebaseService tablebaseService;
+    private final LagCompensationService lagCompensationService;
+    private final RatingModels ratingModels;
+    private final GameSnapshotCache gameSnapshotCache;
     private final SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final int MAX_QUEUED_PREMOVES = 5;
 
     // In-memory storage for active game timers
     private final Map<String, GameTimer> gameTimers = new ConcurrentHashMap<>();
 
+    private static final int GAME_LOCK_STRIPES = 1024;
+
+    // Every command that changes a game runs its whole transaction under the game's monitor and loads the
+    // game with a row lock. The monitor is the fast path on one node; the row lock serializes commands
+    // arriving on different nodes. The monitors are striped and never removed, so ending a game can't
+    // drop a lock another command is waiting on.
+    private final Object[] gameLocks = IntStream.range(0, GAME_LOCK_STRIPES).mapToObj(i -> new Object()).toArray();
+
+    // "gameId:playerId" -> queued conditional moves, oldest first (guarded by the game lock)
+    private final Map<String, Deque<MoveRequest>> premoves = new ConcurrentHashMap<>();
+
     @Transactional
     public GameDTO createGame(String playerId, int timeControlMinutes, int incrementSeconds) {
         User player = userRepository.findById(playerId)
@@ -54,58 +84,131 @@ public class GameService {
         game = gameRepository.save(game);
         log.info("Game created: {} by player: {}", game.getId(), player.getUsername());
 
+        eventPublisher.publishEvent(new LobbyService.SeekOpened(GameSummary.fromGame(game)));
+
         return GameDTO.fromGame(game);
     }
 
-    @Transactional
     public GameDTO joinGame(String gameId, String playerId) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Game not found"));
+        synchronized (gameLock(gameId)) {
+            return transactionTemplate.execute(status -> {
+                Game game = gameRepository.findByIdForUpdate(gameId)
+                        .orElseThrow(() -> new RuntimeException("Game not found"));
 
-        if (game.getStatus() != Game.GameStatus.WAITING) {
-            throw new RuntimeException("Game is not available to join");
-        }
+                if (game.getStatus() != Game.GameStatus.WAITING) {
+                    throw new RuntimeException("Game is not available to join");
+                }
 
-        User player = userRepository.findById(playerId)
-                .orElseThrow(() -> new RuntimeException("Player not found"));
+                User player = userRepository.findById(playerId)
+                        .orElseThrow(() -> new RuntimeException("Player not found"));
+
+                if (game.getWhitePlayer().getId().equals(playerId)) {
+                    throw new RuntimeException("Cannot join your own game");
+                }
+
+                game.setBlackPlayer(player);
+                game.setStatus(Game.GameStatus.ACTIVE);
+                game.setStartedAt(LocalDateTime.now());
+                game.setLastMoveTime(LocalDateTime.now());
+
+                game = gameRepository.save(game);
+
+                // Start game timer
+                startGameTimer(game);
+
+                // Notify players
+                GameMessage startMessage = GameMessage.builder()
+                        .type(GameMessage.MessageType.GAME_START)
+                        .gameId(game.getId())
+                        .fen(game.getCurrentFen())
+                        .status(game.getStatus())
+                        .currentTurn(game.getCurrentTurn())
+                        .whiteTimeRemaining(game.getWhiteTimeRemaining())
+                        .blackTimeRemaining(game.getBlackTimeRemaining())
+                        .build();
+
+                broadcast(gameId, startMessage);
+
+                log.info("Player {} joined game {}", player.getUsername(), gameId);
 
-        if (game.getWhitePlayer().getId().equals(playerId)) {
-            throw new RuntimeException("Cannot join your own game");
+                return GameDTO.fromGame(game);
+            });
         }
+    }
 
-        game.setBlackPlayer(player);
-        game.setStatus(Game.GameStatus.ACTIVE);
-        game.setStartedAt(LocalDateTime.now());
-        game.setLastMoveTime(LocalDateTime.now());
+    public GameDTO makeMove(MoveRequest moveRequest) {
+        // Lock spans the whole transaction so a concurrent move can never read uncommitted state
+        synchronized (gameLock(moveRequest.getGameId())) {
+            return transactionTemplate.execute(status -> {
+                Game game = gameRepository.findByIdForUpdate(moveRequest.getGameId())
+                        .orElseThrow(() -> new RuntimeException("Game not found"));
 
-        game = gameRepository.save(game);
+                game = applyMove(game, moveRequest, false);
 
-        // Start game timer
-        startGameTimer(game);
+                // The opponent's premove fires inside the same critical section
+                MoveRequest premove = nextPremove(game);
+                if (premove != null) {
+                    try {
+                        game = applyMove(game, premove, true);
+                    } catch (RuntimeException e) {
+                        // Later queued moves were planned on top of this one, so drop them too
+                        cancelPremoves(game.getId(), premove.getPlayerId());
+                        messagingTemplate.convertAndSendToUser(premove.getPlayerId(), "/queue/premove",
+                                Map.of("gameId", game.getId(), "status", "CANCELLED"));
+                    }
+                }
 
-        // Notify players
-        GameMessage startMessage = GameMessage.builder()
-                .type(GameMessage.MessageType.GAME_START)
-                .gameId(game.getId())
-                .fen(game.getCurrentFen())
-                .status(game.getStatus())
-                .currentTurn(game.getCurrentTurn())
-                .whiteTimeRemaining(game.getWhiteTimeRemaining())
-                .blackTimeRemaining(game.getBlackTimeRemaining())
-                .build();
+                return GameDTO.fromGame(game);
+            });
+        }
+    }
 
-        messagingTemplate.convertAndSend("/topic/game/" + gameId, startMessage);
+    public void queuePremove(MoveRequest moveRequest) {
+        synchronized (gameLock(moveRequest.getGameId())) {
+            Game game = gameRepository.findById(moveRequest.getGameId())
+                    .orElseThrow(() -> new RuntimeException("Game not found"));
 
-        log.info("Player {} joined game {}", player.getUsername(), gameId);
+            if (game.getStatus() != Game.GameStatus.ACTIVE) {
+                throw new RuntimeException("Game is not active");
+            }
 
-        return GameDTO.fromGame(game);
+            String playerId = moveRequest.getPlayerId();
+            boolean isWhitePlayer = game.getWhitePlayer().getId().equals(playerId);
+            boolean isBlackPlayer = game.getBlackPlayer() != null &&
+                    game.getBlackPlayer().getId().equals(playerId);
+
+            if (!isWhitePlayer && !isBlackPlayer) {
+                throw new RuntimeException("You are not a player in this game");
+            }
+
+            // Legality is checked only when the premove is played, against the position at that time
+            Deque<MoveRequest> queue = premoves.computeIfAbsent(
+                    premoveKey(game.getId(), playerId), key -> new ArrayDeque<>());
+            if (queue.size() >= MAX_QUEUED_PREMOVES) {
+                throw new RuntimeException("Premove queue is full");
+            }
+            queue.addLast(moveRequest);
+        }
     }
 
-    @Transactional
-    public GameDTO makeMove(MoveRequest moveRequest) {
-        Game game = gameRepository.findById(moveRequest.getGameId())
-                .orElseThrow(() -> new RuntimeException("Game not found"));
+    public void cancelPremoves(String gameId, String playerId) {
+        synchronized (gameLock(gameId)) {
+            premoves.remove(premoveKey(gameId, playerId));
+        }
+    }
+
+    private MoveRequest nextPremove(Game game) {
+        if (game.getStatus() != Game.GameStatus.ACTIVE) {
+            return null;
+        }
 
+        String playerToMove = game.getCurrentTurn() == Game.Color.WHITE ?
+                game.getWhitePlayer().getId() : game.getBlackPlayer().getId();
+        Deque<MoveRequest> queue = premoves.get(premoveKey(game.getId(), playerToMove));
+        return queue != null ? queue.pollFirst() : null;
+    }
+
+    private Game applyMove(Game game, MoveRequest moveRequest, boolean premove) {
         if (game.getStatus() != Game.GameStatus.ACTIVE) {
             throw new RuntimeException("Game is not active");
         }
@@ -132,7 +235,7 @@ public class GameService {
         }
 
         // Update time
-        updateGameTime(game);
+        updateGameTime(game, moveRequest.getPlayerId(), premove);
 
         // Get move notation
         String moveNotation = chessService.getMoveNotation(
@@ -178,6 +281,16 @@ public class GameService {
             game.setEndedAt(LocalDateTime.now());
             updatePlayerRatings(game);
             stopGameTimer(game.getId());
+        } else {
+            // Known tablebase result (only when engine.tablebase.adjudicate is on)
+            Game.GameResult adjudicated = tablebaseService.adjudicate(newFen);
+            if (adjudicated != null) {
+                game.setStatus(Game.GameStatus.COMPLETED);
+                game.setResult(adjudicated);
+                game.setEndedAt(LocalDateTime.now());
+                updatePlayerRatings(game);
+                stopGameTimer(game.getId());
+            }
         }
 
         game = gameRepository.save(game);
@@ -200,131 +313,143 @@ public class GameService {
                 .blackTimeRemaining(game.getBlackTimeRemaining())
                 .build();
 
-        messagingTemplate.convertAndSend("/topic/game/" + game.getId(), moveMessage);
+        broadcast(game.getId(), moveMessage);
 
-        return GameDTO.fromGame(game);
+        return game;
     }
 
-    @Transactional
     public GameDTO resign(String gameId, String playerId) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Game not found"));
+        synchronized (gameLock(gameId)) {
+            return transactionTemplate.execute(status -> {
+                Game game = gameRepository.findByIdForUpdate(gameId)
+                        .orElseThrow(() -> new RuntimeException("Game not found"));
 
-        if (game.getStatus() != Game.GameStatus.ACTIVE) {
-            throw new RuntimeException("Game is not active");
-        }
+                if (game.getStatus() != Game.GameStatus.ACTIVE) {
+                    throw new RuntimeException("Game is not active");
+                }
 
-        boolean isWhitePlayer = game.getWhitePlayer().getId().equals(playerId);
-        boolean isBlackPlayer = game.getBlackPlayer() != null && 
-                game.getBlackPlayer().getId().equals(playerId);
+                boolean isWhitePlayer = game.getWhitePlayer().getId().equals(playerId);
+                boolean isBlackPlayer = game.getBlackPlayer() != null && 
+                        game.getBlackPlayer().getId().equals(playerId);
 
-        if (!isWhitePlayer && !isBlackPlayer) {
-            throw new RuntimeException("You are not a player in this game");
-        }
+                if (!isWhitePlayer && !isBlackPlayer) {
+                    throw new RuntimeException("You are not a player in this game");
+                }
 
-        game.setStatus(Game.GameStatus.COMPLETED);
-        game.setResult(isWhitePlayer ? Game.GameResult.BLACK_WINS : Game.GameResult.WHITE_WINS);
-        game.setEndedAt(LocalDateTime.now());
+                game.setStatus(Game.GameStatus.COMPLETED);
+                game.setResult(isWhitePlayer ? Game.GameResult.BLACK_WINS : Game.GameResult.WHITE_WINS);
+                game.setEndedAt(LocalDateTime.now());
 
-        updatePlayerRatings(game);
-        stopGameTimer(gameId);
+                updatePlayerRatings(game);
+                stopGameTimer(gameId);
 
-        game = gameRepository.save(game);
+                game = gameRepository.save(game);
 
-        GameMessage resignMessage = GameMessage.builder()
-                .type(GameMessage.MessageType.RESIGN)
-                .gameId(gameId)
-                .playerId(playerId)
-                .status(game.getStatus())
-                .result(game.getResult())
-                .message((isWhitePlayer ? "White" : "Black") + " resigned")
-                .build();
+                GameMessage resignMessage = GameMessage.builder()
+                        .type(GameMessage.MessageType.RESIGN)
+                        .gameId(gameId)
+                        .playerId(playerId)
+                        .status(game.getStatus())
+                        .result(game.getResult())
+                        .message((isWhitePlayer ? "White" : "Black") + " resigned")
+                        .build();
 
-        messagingTemplate.convertAndSend("/topic/game/" + gameId, resignMessage);
+                broadcast(gameId, resignMessage);
 
-        return GameDTO.fromGame(game);
+                return GameDTO.fromGame(game);
+            });
+        }
     }
 
-    @Transactional
     public GameDTO offerDraw(String gameId, String playerId) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Game not found"));
+        synchronized (gameLock(gameId)) {
+            return transactionTemplate.execute(status -> {
+                Game game = gameRepository.findByIdForUpdate(gameId)
+                        .orElseThrow(() -> new RuntimeException("Game not found"));
 
-        if (game.getStatus() != Game.GameStatus.ACTIVE) {
-            throw new RuntimeException("Game is not active");
-        }
+                if (game.getStatus() != Game.GameStatus.ACTIVE) {
+                    throw new RuntimeException("Game is not active");
+                }
 
-        game.setStatus(Game.GameStatus.DRAW_OFFERED);
-        game = gameRepository.save(game);
+                game.setStatus(Game.GameStatus.DRAW_OFFERED);
+                game = gameRepository.save(game);
 
-        User player = userRepository.findById(playerId).orElse(null);
-        String playerName = player != null ? player.getUsername() : "Unknown";
+                User player = userRepository.findById(playerId).orElse(null);
+                String playerName = player != null ? player.getUsername() : "Unknown";
 
-        GameMessage drawMessage = GameMessage.builder()
-                .type(GameMessage.MessageType.DRAW_OFFER)
-                .gameId(gameId)
-                .playerId(playerId)
-                .playerUsername(playerName)
-                .message(playerName + " offers a draw")
-                .build();
+                GameMessage drawMessage = GameMessage.builder()
+                        .type(GameMessage.MessageType.DRAW_OFFER)
+                        .gameId(gameId)
+                        .playerId(playerId)
+                        .playerUsername(playerName)
+                        .message(playerName + " offers a draw")
+                        .build();
 
-        messagingTemplate.convertAndSend("/topic/game/" + gameId, drawMessage);
+                broadcast(gameId, drawMessage);
 
-        return GameDTO.fromGame(game);
+                return GameDTO.fromGame(game);
+            });
+        }
     }
 
-    @Transactional
     public GameDTO acceptDraw(String gameId, String playerId) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Game not found"));
+        synchronized (gameLock(gameId)) {
+            return transactionTemplate.execute(status -> {
+                Game game = gameRepository.findByIdForUpdate(gameId)
+                        .orElseThrow(() -> new RuntimeException("Game not found"));
 
-        if (game.getStatus() != Game.GameStatus.DRAW_OFFERED) {
-            throw new RuntimeException("No draw offer to accept");
-        }
+                if (game.getStatus() != Game.GameStatus.DRAW_OFFERED) {
+                    throw new RuntimeException("No draw offer to accept");
+                }
 
-        game.setStatus(Game.GameStatus.COMPLETED);
-        game.setResult(Game.GameResult.DRAW);
-        game.setEndedAt(LocalDateTime.now());
+                game.setStatus(Game.GameStatus.COMPLETED);
+                game.setResult(Game.GameResult.DRAW);
+                game.setEndedAt(LocalDateTime.now());
 
-        updatePlayerRatings(game);
-        stopGameTimer(gameId);
+                updatePlayerRatings(game);
+                stopGameTimer(gameId);
 
-        game = gameRepository.save(game);
+                game = gameRepository.save(game);
 
-        GameMessage drawMessage = GameMessage.builder()
-                .type(GameMessage.MessageType.DRAW_ACCEPT)
-                .gameId(gameId)
-                .status(game.getStatus())
-                .result(game.getResult())
-                .message("Draw accepted")
-                .build();
+                GameMessage drawMessage = GameMessage.builder()
+                        .type(GameMessage.MessageType.DRAW_ACCEPT)
+                        .gameId(gameId)
+                        .status(game.getStatus())
+                        .result(game.getResult())
+                        .message("Draw accepted")
+                        .build();
 
-        messagingTemplate.convertAndSend("/topic/game/" + gameId, drawMessage);
+                broadcast(gameId, drawMessage);
 
-        return GameDTO.fromGame(game);
+                return GameDTO.fromGame(game);
+            });
+        }
     }
 
-    @Transactional
     public GameDTO declineDraw(String gameId, String playerId) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Game not found"));
+        synchronized (gameLock(gameId)) {
+            return transactionTemplate.execute(status -> {
+                Game game = gameRepository.findByIdForUpdate(gameId)
+                        .orElseThrow(() -> new RuntimeException("Game not found"));
 
-        if (game.getStatus() != Game.GameStatus.DRAW_OFFERED) {
-            throw new RuntimeException("No draw offer to decline");
-        }
+                if (game.getStatus() != Game.GameStatus.DRAW_OFFERED) {
+                    throw new RuntimeException("No draw offer to decline");
+                }
 
-        game.setStatus(Game.GameStatus.ACTIVE);
-        game = gameRepository.save(game);
+                game.setStatus(Game.GameStatus.ACTIVE);
+                game = gameRepository.save(game);
 
-        GameMessage drawMessage = GameMessage.builder()
-                .type(GameMessage.MessageType.DRAW_DECLINE)
-                .gameId(gameId)
-                .message("Draw declined")
-                .build();
+                GameMessage drawMessage = GameMessage.builder()
+                        .type(GameMessage.MessageType.DRAW_DECLINE)
+                        .gameId(gameId)
+                        .message("Draw declined")
+                        .build();
 
-        messagingTemplate.convertAndSend("/topic/game/" + gameId, drawMessage);
+                broadcast(gameId, drawMessage);
 
-        return GameDTO.fromGame(game);
+                return GameDTO.fromGame(game);
+            });
+        }
     }
 
     public GameDTO getGame(String gameId) {
@@ -333,6 +458,11 @@ public class GameService {
         return GameDTO.fromGame(game);
     }
 
+    // No transaction here: a cache hit must not check out a connection
+    public GameSnapshotCache.Snapshot getGameSnapshot(String gameId) {
+        return gameSnapshotCache.get(gameId, () -> getGame(gameId));
+    }
+
     public List<GameDTO> getActiveGames() {
         return gameRepository.findActiveGames().stream()
                 .map(GameDTO::fromGame)
@@ -351,12 +481,50 @@ public class GameService {
                 .collect(Collectors.toList());
     }
 
-    public void analyzePosition(String gameId, String fen) {
+    public GamePage getActiveGamesPage(String cursor, int limit) {
+        Cursor after = Cursor.decode(cursor);
+        List<GameSummary> games = after == null
+                ? gameRepository.findSummariesByStatusNewestFirst(Game.GameStatus.ACTIVE, Limit.of(limit))
+                : gameRepository.findSummariesByStatusNewestFirst(Game.GameStatus.ACTIVE, after.createdAt(), after.id(), Limit.of(limit));
+        return page(games, limit);
+    }
+
+    public GamePage getWaitingGamesPage(String cursor, int limit) {
+        Cursor after = Cursor.decode(cursor);
+        List<GameSummary> games = after == null
+                ? gameRepository.findSummariesByStatusOldestFirst(Game.GameStatus.WAITING, Limit.of(limit))
+                : gameRepository.findSummariesByStatusOldestFirst(Game.GameStatus.WAITING, after.createdAt(), after.id(), Limit.of(limit));
+        return page(games, limit);
+    }
+
+    public GamePage getPlayerGamesPage(String playerId, String cursor, int limit) {
+        Cursor after = Cursor.decode(cursor);
+        List<GameSummary> games = after == null
+                ? gameRepository.findSummariesByPlayer(playerId, Limit.of(limit))
+                : gameRepository.findSummariesByPlayer(playerId, after.createdAt(), after.id(), Limit.of(limit));
+        return page(games, limit);
+    }
+
+    private static GamePage page(List<GameSummary> games, int limit) {
+        // A short page is the last one
+        if (games.size() < limit) {
+            return new GamePage(games, null);
+        }
+        GameSummary last = games.get(games.size() - 1);
+        return new GamePage(games, new Cursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    public void analyzePosition(String gameId, String fen, String requesterId) {
         if (!stockfishService.isAvailable()) {
             return;
         }
 
-        stockfishService.analyzePosition(fen).thenAccept(analysis -> {
+        // Players get their own game analysed ahead of spectators
+        EngineJobScheduler.JobClass jobClass = requesterId != null && isPlayerInGame(gameId, requesterId)
+                ? EngineJobScheduler.JobClass.INTERACTIVE
+                : EngineJobScheduler.JobClass.SPECTATOR;
+
+        stockfishService.analyzePosition(fen, jobClass, requesterId).thenAccept(analysis -> {
             if (analysis != null) {
                 GameMessage analysisMessage = GameMessage.builder()
                         .type(GameMessage.MessageType.ANALYSIS)
@@ -370,21 +538,55 @@ public class GameService {
         });
     }
 
-    private void updateGameTime(Game game) {
-        if (game.getLastMoveTime() != null) {
-            long elapsedMs = java.time.Duration.between(
-                    game.getLastMoveTime(), LocalDateTime.now()).toMillis();
+    private boolean isPlayerInGame(String gameId, String playerId) {
+        return gameRepository.findById(gameId)
+                .map(game -> playerId.equals(game.getWhitePlayer().getId())
+                        || (game.getBlackPlayer() != null && playerId.equals(game.getBlackPlayer().getId())))
+                .orElse(false);
+    }
+
+    private void broadcast(String gameId, GameMessage message) {
+        messagingTemplate.convertAndSend("/topic/game/" + gameId, message);
+        // Non-STOMP transports (binary endpoint) pick game events up from here
+        eventPublisher.publishEvent(message);
+    }
+
+    private void updateGameTime(Game game, String moverId, boolean premove) {
+        GameTimer timer = gameTimers.get(game.getId());
+        long elapsedMs;
 
-            if (game.getCurrentTurn() == Game.Color.WHITE) {
-                game.setWhiteTimeRemaining(Math.max(0, game.getWhiteTimeRemaining() - elapsedMs));
-                // Add increment
-                game.setWhiteTimeRemaining(game.getWhiteTimeRemaining() + 
-                        game.getIncrementSeconds() * 1000L);
-            } else {
-                game.setBlackTimeRemaining(Math.max(0, game.getBlackTimeRemaining() - elapsedMs));
-                game.setBlackTimeRemaining(game.getBlackTimeRemaining() + 
-                        game.getIncrementSeconds() * 1000L);
+        if (premove) {
+            // Premoves are played the instant the opponent moved, so no thinking time is charged
+            if (timer != null) {
+                timer.turnStartedNanos = System.nanoTime();
             }
+            elapsedMs = 0;
+        } else if (timer != null) {
+            // Monotonic clock, immune to wall-clock adjustments
+            long now = System.nanoTime();
+            elapsedMs = TimeUnit.NANOSECONDS.toMillis(now - timer.turnStartedNanos);
+            timer.turnStartedNanos = now;
+
+            // Don't bill the mover for the time their move spent on the wire
+            boolean white = game.getCurrentTurn() == Game.Color.WHITE;
+            elapsedMs -= lagCompensationService.compensate(game.getId(), white, moverId, elapsedMs);
+        } else if (game.getLastMoveTime() != null) {
+            // Timer is lost after a restart; fall back to the persisted wall-clock timestamp
+            elapsedMs = java.time.Duration.between(
+                    game.getLastMoveTime(), LocalDateTime.now()).toMillis();
+        } else {
+            return;
+        }
+
+        if (game.getCurrentTurn() == Game.Color.WHITE) {
+            game.setWhiteTimeRemaining(Math.max(0, game.getWhiteTimeRemaining() - elapsedMs));
+            // Add increment
+            game.setWhiteTimeRemaining(game.getWhiteTimeRemaining() + 
+                    game.getIncrementSeconds() * 1000L);
+        } else {
+            game.setBlackTimeRemaining(Math.max(0, game.getBlackTimeRemaining() - elapsedMs));
+            game.setBlackTimeRemaining(game.getBlackTimeRemaining() + 
+                    game.getIncrementSeconds() * 1000L);
         }
     }
 
@@ -396,53 +598,28 @@ public class GameService {
         User white = game.getWhitePlayer();
         User black = game.getBlackPlayer();
 
-        int whiteRating = white.getRating();
-        int blackRating = black.getRating();
-
-        // ELO calculation
-        double expectedWhite = 1.0 / (1.0 + Math.pow(10, (blackRating - whiteRating) / 400.0));
-        double expectedBlack = 1.0 - expectedWhite;
-
-        double actualWhite, actualBlack;
-        switch (game.getResult()) {
-            case WHITE_WINS:
-            case BLACK_TIMEOUT:
-            case BLACK_RESIGNED:
-                actualWhite = 1.0;
-                actualBlack = 0.0;
-                white.setWins(white.getWins() + 1);
-                black.setLosses(black.getLosses() + 1);
-                break;
-            case BLACK_WINS:
-            case WHITE_TIMEOUT:
-            case WHITE_RESIGNED:
-                actualWhite = 0.0;
-                actualBlack = 1.0;
-                white.setLosses(white.getLosses() + 1);
-                black.setWins(black.getWins() + 1);
-                break;
-            default:
-                actualWhite = 0.5;
-                actualBlack = 0.5;
-                white.setDraws(white.getDraws() + 1);
-                black.setDraws(black.getDraws() + 1);
-        }
-
-        int K = 32; // K-factor
-        int whiteChange = (int) Math.round(K * (actualWhite - expectedWhite));
-        int blackChange = (int) Math.round(K * (actualBlack - expectedBlack));
+        RatingModel model = ratingModels.active();
+        RatingModel.PlayerRating whiteBefore = RatingModels.of(white);
+        RatingModel.PlayerRating blackBefore = RatingModels.of(black);
 
-        white.setRating(Math.max(100, whiteRating + whiteChange));
-        black.setRating(Math.max(100, blackRating + blackChange));
+        double actualWhite = RatingUpdateService.scoreForWhite(game.getResult());
+        RatingModel.PlayerRating whiteAfter = model.rate(whiteBefore,
+                List.of(new RatingModel.Outcome(blackBefore, actualWhite)));
+        RatingModel.PlayerRating blackAfter = model.rate(blackBefore,
+                List.of(new RatingModel.Outcome(whiteBefore, 1.0 - actualWhite)));
 
-        white.setGamesPlayed(white.getGamesPlayed() + 1);
-        black.setGamesPlayed(black.getGamesPlayed() + 1);
+        int whiteChange = (int) Math.round(whiteAfter.rating() - whiteBefore.rating());
+        int blackChange = (int) Math.round(blackAfter.rating() - blackBefore.rating());
 
+        game.setWhiteRatingBefore(white.getRating());
+        game.setBlackRatingBefore(black.getRating());
         game.setWhiteRatingChange(whiteChange);
         game.setBlackRatingChange(blackChange);
 
-        userRepository.save(white);
-        userRepository.save(black);
+        // User rows are updated after commit by RatingUpdateService, off the move transaction
+        eventPublisher.publishEvent(new RatingUpdateService.GameRated(
+                game.getId(), white.getId(), black.getId(), whiteChange, blackChange, game.getResult(),
+                whiteAfter, blackAfter));
     }
 
     private void startGameTimer(Game game) {
@@ -456,35 +633,70 @@ public class GameService {
         if (timer != null) {
             timer.stop();
         }
+        lagCompensationService.releaseGame(gameId);
+        premoves.keySet().removeIf(key -> key.startsWith(gameId + ":"));
+    }
+
+    private Object gameLock(String gameId) {
+        return gameLocks[Math.floorMod(gameId.hashCode(), GAME_LOCK_STRIPES)];
+    }
+
+    private static String premoveKey(String gameId, String playerId) {
+        return gameId + ":" + playerId;
     }
 
-    @Transactional
     public void handleTimeout(String gameId) {
-        Optional<Game> optGame = gameRepository.findById(gameId);
-        if (optGame.isEmpty()) return;
+        synchronized (gameLock(gameId)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                Optional<Game> optGame = gameRepository.findByIdForUpdate(gameId);
+                if (optGame.isEmpty()) return;
 
-        Game game = optGame.get();
-        if (game.getStatus() != Game.GameStatus.ACTIVE) return;
+                Game game = optGame.get();
+                if (game.getStatus() != Game.GameStatus.ACTIVE) return;
 
-        // Determine who timed out
-        boolean whiteTimeout = game.getWhiteTimeRemaining() <= 0;
+                // Determine who timed out
+                boolean whiteTimeout = game.getWhiteTimeRemaining() <= 0;
 
-        game.setStatus(Game.GameStatus.COMPLETED);
-        game.setResult(whiteTimeout ? Game.GameResult.WHITE_TIMEOUT : Game.GameResult.BLACK_TIMEOUT);
-        game.setEndedAt(LocalDateTime.now());
+                game.setStatus(Game.GameStatus.COMPLETED);
+                game.setResult(whiteTimeout ? Game.GameResult.WHITE_TIMEOUT : Game.GameResult.BLACK_TIMEOUT);
+                game.setEndedAt(LocalDateTime.now());
 
-        updatePlayerRatings(game);
-        gameRepository.save(game);
+                updatePlayerRatings(game);
+                stopGameTimer(gameId);
+                gameRepository.save(game);
 
-        GameMessage timeoutMessage = GameMessage.builder()
-                .type(GameMessage.MessageType.TIMEOUT)
-                .gameId(gameId)
-                .status(game.getStatus())
-                .result(game.getResult())
-                .message((whiteTimeout ? "White" : "Black") + " ran out of time")
-                .build();
+                GameMessage timeoutMessage = GameMessage.builder()
+                        .type(GameMessage.MessageType.TIMEOUT)
+                        .gameId(gameId)
+                        .status(game.getStatus())
+                        .result(game.getResult())
+                        .message((whiteTimeout ? "White" : "Black") + " ran out of time")
+                        .build();
 
-        messagingTemplate.convertAndSend("/topic/game/" + gameId, timeoutMessage);
+                broadcast(gameId, timeoutMessage);
+            });
+        }
+    }
+
+    // Opaque keyset position: the (createdAt, id) of the last game on the previous page
+    private record Cursor(LocalDateTime createdAt, String id) {
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
     }
 
     // Inner class for game timer
@@ -493,6 +705,8 @@ public class GameService {
         private final GameService gameService;
         private volatile boolean running = false;
         private Thread timerThread;
+        // System.nanoTime() when the side to move started thinking
+        private volatile long turnStartedNanos = System.nanoTime();
 
         public GameTimer(String gameId, GameService gameService) {
             this.gameId = gameId;
@@ -0,0 +1,139 @@
+package com.sachess.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sachess.dto.GameDTO;
+import com.sachess.dto.GameMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Serialized GameDTO per game. Every committed game event, and every rating or profile change of one
+ * of its players, drops the game's snapshot and is stamped from one global, monotonic sequence. A load
+ * that started before a change to its game or players is not kept, so reads between changes skip the
+ * database and re-serialization without ever pinning stale state. The ETag is a hash of the body,
+ * which keeps it stable across restarts and nodes.
+ */
+@Component
+@RequiredArgsConstructor
+public class GameSnapshotCache {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${game.snapshot.max-entries:10000}")
+    private int maxEntries;
+
+    // Other nodes' game events never reach this one, so a local cache could go stale
+    @Value("${websocket.broker.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // gameId / userId -> sequence of the last change; only needed while a load that predates it can be
+    // running, so entries are forgotten after a minute
+    private final Map<String, Long> gameChanges = new ConcurrentHashMap<>();
+    private final Map<String, Long> playerChanges = new ConcurrentHashMap<>();
+
+    // Changes up to this sequence may have been forgotten; loads that started by then are not cached
+    private volatile long forgottenUpTo;
+    private volatile long allChangedAt;
+    private long lastPrune;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    // After commit, so a reader can never cache pre-commit state after the change is stamped
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGameMessage(GameMessage message) {
+        String gameId = message.getGameId();
+        gameChanges.put(gameId, sequence.incrementAndGet());
+        snapshots.remove(gameId);
+    }
+
+    /** Ratings or profiles of these users changed: every cached game they play in is stale. */
+    public void invalidatePlayers(Collection<String> userIds) {
+        long change = sequence.incrementAndGet();
+        userIds.forEach(userId -> playerChanges.put(userId, change));
+        snapshots.values().removeIf(snapshot -> userIds.contains(snapshot.whiteId()) || userIds.contains(snapshot.blackId()));
+    }
+
+    public void invalidateAll() {
+        allChangedAt = sequence.incrementAndGet();
+        snapshots.clear();
+    }
+
+    public Snapshot get(String gameId, Supplier<GameDTO> loader) {
+        Snapshot cached = snapshots.get(gameId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long start = sequence.get();
+        Snapshot fresh = serialize(start, loader.get());
+        if (relayEnabled) {
+            return fresh;
+        }
+
+        if (snapshots.size() >= maxEntries) {
+            evict();
+        }
+        snapshots.put(gameId, fresh);
+        // A change may have landed while loading; drop what we just stored rather than serve it stale
+        if (changedSince(start, gameId, fresh)) {
+            snapshots.remove(gameId, fresh);
+        }
+        return fresh;
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public synchronized void forgetOldChanges() {
+        long floor = lastPrune;
+        lastPrune = sequence.get();
+        // Raised before anything is removed, so a load checking in between is refused instead of missing a change
+        forgottenUpTo = floor;
+        gameChanges.values().removeIf(change -> change <= floor);
+        playerChanges.values().removeIf(change -> change <= floor);
+    }
+
+    private boolean changedSince(long start, String gameId, Snapshot snapshot) {
+        return start <= forgottenUpTo && forgottenUpTo > 0
+                || allChangedAt > start
+                || gameChanges.getOrDefault(gameId, 0L) > start
+                || snapshot.whiteId() != null && playerChanges.getOrDefault(snapshot.whiteId(), 0L) > start
+                || snapshot.blackId() != null && playerChanges.getOrDefault(snapshot.blackId(), 0L) > start;
+    }
+
+    private Snapshot serialize(long version, GameDTO game) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(game);
+            return new Snapshot(version, "\"" + DigestUtils.md5DigestAsHex(body) + "\"", body,
+                    game.getWhitePlayer() != null ? game.getWhitePlayer().getId() : null,
+                    game.getBlackPlayer() != null ? game.getBlackPlayer().getId() : null);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize game " + game.getId(), e);
+        }
+    }
+
+    private void evict() {
+        // Drop an arbitrary tenth; hot games are re-cached on their next read
+        int excess = Math.max(1, maxEntries / 10);
+        Iterator<String> keys = snapshots.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    // version is the sequence value the snapshot was loaded at
+    public record Snapshot(long version, String etag, byte[] body, String whiteId, String blackId) {}
+}
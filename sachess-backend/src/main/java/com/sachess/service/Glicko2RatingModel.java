@@ -0,0 +1,124 @@
+package com.sachess.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Glicko-2 as described by Glickman ("Example of the Glicko-2 system"), including the Illinois
+ * iteration for the new volatility.
+ */
+@Component
+public class Glicko2RatingModel implements RatingModel {
+
+    private static final double SCALE = 173.7178;
+    private static final double MAX_DEVIATION = 350.0;
+    private static final double CONVERGENCE = 0.000001;
+
+    @Value("${rating.glicko2.tau:0.5}")
+    private double tau;
+
+    @Value("${rating.initial:1200}")
+    private double initialRating;
+
+    @Override
+    public String name() {
+        return "glicko2";
+    }
+
+    @Override
+    public boolean periodic() {
+        return true;
+    }
+
+    @Override
+    public PlayerRating initial() {
+        return new PlayerRating(initialRating, MAX_DEVIATION, 0.06);
+    }
+
+    @Override
+    public PlayerRating rate(PlayerRating player, List<Outcome> outcomes) {
+        if (outcomes.isEmpty()) {
+            return idle(player, 1);
+        }
+
+        double mu = (player.rating() - 1500) / SCALE;
+        double phi = player.deviation() / SCALE;
+        double sigma = player.volatility();
+
+        double vInverse = 0;
+        double improvement = 0;
+        for (Outcome outcome : outcomes) {
+            double muJ = (outcome.opponent().rating() - 1500) / SCALE;
+            double g = g(outcome.opponent().deviation() / SCALE);
+            double expected = 1.0 / (1.0 + Math.exp(-g * (mu - muJ)));
+            vInverse += g * g * expected * (1 - expected);
+            improvement += g * (outcome.score() - expected);
+        }
+        double v = 1.0 / vInverse;
+        double delta = v * improvement;
+
+        double newSigma = volatility(phi, sigma, v, delta);
+        double phiStar = Math.sqrt(phi * phi + newSigma * newSigma);
+        double newPhi = 1.0 / Math.sqrt(1.0 / (phiStar * phiStar) + 1.0 / v);
+        double newMu = mu + newPhi * newPhi * improvement;
+
+        return new PlayerRating(newMu * SCALE + 1500, Math.min(MAX_DEVIATION, newPhi * SCALE), newSigma);
+    }
+
+    @Override
+    public PlayerRating idle(PlayerRating player, int periods) {
+        if (periods <= 0) {
+            return player;
+        }
+        // Deviation grows by the volatility once per inactive period
+        double phi = player.deviation() / SCALE;
+        double grown = Math.sqrt(phi * phi + periods * player.volatility() * player.volatility()) * SCALE;
+        return new PlayerRating(player.rating(), Math.min(MAX_DEVIATION, grown), player.volatility());
+    }
+
+    private double volatility(double phi, double sigma, double v, double delta) {
+        double a = Math.log(sigma * sigma);
+        double deltaSq = delta * delta;
+        double phiSq = phi * phi;
+
+        double lower = a;
+        double upper;
+        if (deltaSq > phiSq + v) {
+            upper = Math.log(deltaSq - phiSq - v);
+        } else {
+            int k = 1;
+            while (f(a - k * tau, a, deltaSq, phiSq, v) < 0) {
+                k++;
+            }
+            upper = a - k * tau;
+        }
+
+        double fLower = f(lower, a, deltaSq, phiSq, v);
+        double fUpper = f(upper, a, deltaSq, phiSq, v);
+        while (Math.abs(upper - lower) > CONVERGENCE) {
+            double c = lower + (lower - upper) * fLower / (fUpper - fLower);
+            double fC = f(c, a, deltaSq, phiSq, v);
+            if (fC * fUpper <= 0) {
+                lower = upper;
+                fLower = fUpper;
+            } else {
+                fLower /= 2;
+            }
+            upper = c;
+            fUpper = fC;
+        }
+        return Math.exp(lower / 2);
+    }
+
+    private double f(double x, double a, double deltaSq, double phiSq, double v) {
+        double ex = Math.exp(x);
+        double denominator = phiSq + v + ex;
+        return ex * (deltaSq - phiSq - v - ex) / (2 * denominator * denominator) - (x - a) / (tau * tau);
+    }
+
+    private static double g(double phi) {
+        return 1.0 / Math.sqrt(1.0 + 3.0 * phi * phi / (Math.PI * Math.PI));
+    }
+}
@@ -0,0 +1,121 @@
+package com.sachess.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@Slf4j
+public class LagCompensationService {
+
+    // Samples above this are treated as stale or forged echoes
+    private static final long MAX_RTT_MS = 10_000;
+
+    @Value("${clock.lag.max-per-move-ms:500}")
+    private long maxPerMoveMs;
+
+    @Value("${clock.lag.quota-initial-ms:1000}")
+    private long quotaInitialMs;
+
+    @Value("${clock.lag.quota-gain-ms:100}")
+    private long quotaGainMs;
+
+    @Value("${clock.lag.quota-max-ms:2000}")
+    private long quotaMaxMs;
+
+    // Tokens stay small: browsers read them as JSON numbers, exact only below 2^53
+    private final AtomicLong probeSequence = new AtomicLong();
+
+    // sessionId -> outstanding probe
+    private final Map<String, Probe> pendingProbes = new ConcurrentHashMap<>();
+
+    // sessionId -> smoothed round-trip time in ms; a user may have several tabs on different links
+    private final Map<String, Long> roundTripMs = new ConcurrentHashMap<>();
+
+    // userId -> sessions with a measured round trip
+    private final Map<String, Set<String>> userSessions = new ConcurrentHashMap<>();
+
+    // gameId -> remaining compensation quota in ms, [0] = white, [1] = black
+    private final Map<String, long[]> quotas = new ConcurrentHashMap<>();
+
+    public long issueProbe(String sessionId) {
+        long token = probeSequence.incrementAndGet();
+        pendingProbes.put(sessionId, new Probe(token, System.nanoTime()));
+        return token;
+    }
+
+    public void recordEcho(String userId, String sessionId, long token) {
+        // Only the most recent probe counts, so a client cannot replay an old token to inflate its lag
+        Probe probe = pendingProbes.get(sessionId);
+        if (probe == null || probe.token() != token || !pendingProbes.remove(sessionId, probe)) {
+            return;
+        }
+
+        long sampleMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - probe.sentAtNanos());
+        if (sampleMs < 0 || sampleMs > MAX_RTT_MS) {
+            return;
+        }
+
+        // Exponential moving average smooths out single jittery samples
+        roundTripMs.merge(sessionId, sampleMs, (previous, sample) -> (previous * 4 + sample) / 5);
+        userSessions.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+    }
+
+    /** Fastest measured session of the user, so a second, slower tab cannot inflate the credit. */
+    public long getRoundTripMs(String userId) {
+        Set<String> sessions = userSessions.get(userId);
+        if (sessions == null) {
+            return 0L;
+        }
+        long best = Long.MAX_VALUE;
+        for (String sessionId : sessions) {
+            Long rtt = roundTripMs.get(sessionId);
+            if (rtt != null) {
+                best = Math.min(best, rtt);
+            }
+        }
+        return best == Long.MAX_VALUE ? 0L : best;
+    }
+
+    public long compensate(String gameId, boolean white, String userId, long elapsedMs) {
+        long[] quota = quotas.computeIfAbsent(gameId, id -> new long[]{quotaInitialMs, quotaInitialMs});
+        int side = white ? 0 : 1;
+
+        synchronized (quota) {
+            // Only the inbound leg of the round trip was billed to the mover
+            long oneWayMs = getRoundTripMs(userId) / 2;
+            long credit = Math.min(Math.min(oneWayMs, maxPerMoveMs), Math.min(quota[side], elapsedMs));
+            credit = Math.max(credit, 0);
+
+            quota[side] = Math.min(quotaMaxMs, quota[side] - credit + quotaGainMs);
+
+            if (credit > 0) {
+                log.debug("Lag compensation in game {}: {}ms credited to {}", gameId, credit, userId);
+            }
+            return credit;
+        }
+    }
+
+    public void releaseGame(String gameId) {
+        quotas.remove(gameId);
+    }
+
+    public void forgetSession(String userId, String sessionId) {
+        pendingProbes.remove(sessionId);
+        roundTripMs.remove(sessionId);
+        if (userId != null) {
+            userSessions.computeIfPresent(userId, (id, sessions) -> {
+                sessions.remove(sessionId);
+                return sessions.isEmpty() ? null : sessions;
+            });
+        }
+    }
+
+    private record Probe(long token, long sentAtNanos) {}
+}
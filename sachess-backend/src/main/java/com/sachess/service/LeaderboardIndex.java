@@ -0,0 +1,257 @@
+package com.sachess.service;
+
+import com.sachess.entity.User;
+import com.sachess.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Rating-ordered view of all players. A Fenwick tree over rating buckets answers "how many players
+ * rate higher" in O(log R); the non-empty buckets are kept in a sorted map so top-N and windows
+ * around a player are read without touching the users table.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderboardIndex {
+
+    private static final int MAX_RATING = 4000;
+
+    private final UserRepository userRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Slot 1 is the highest rating, so a prefix sum counts players rated at or above a bucket
+    private final int[] tree = new int[MAX_RATING + 2];
+
+    // rating -> player ids, highest rating first
+    private final NavigableMap<Integer, TreeSet<String>> buckets = new TreeMap<>(Comparator.reverseOrder());
+
+    private final Map<String, Player> players = new HashMap<>();
+
+    // Updates applied while a rebuild reads the table; its snapshot may predate them, so they are reapplied
+    private final Map<String, Player> updatedDuringRebuild = new HashMap<>();
+    private int rebuilding;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        rebuilding++;
+        lock.writeLock().unlock();
+
+        List<User> users = null;
+        try {
+            users = userRepository.findAll();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // A failed read keeps the current index
+                if (users != null) {
+                    players.clear();
+                    buckets.clear();
+                    Arrays.fill(tree, 0);
+                    users.forEach(user -> insert(Player.from(user)));
+                    updatedDuringRebuild.values().forEach(this::replace);
+                }
+                if (--rebuilding == 0) {
+                    updatedDuringRebuild.clear();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Leaderboard index built with {} players", users.size());
+    }
+
+    public void update(User user) {
+        update(Player.from(user));
+    }
+
+    public void update(Player player) {
+        lock.writeLock().lock();
+        try {
+            replace(player);
+            if (rebuilding > 0) {
+                updatedDuringRebuild.put(player.id(), player);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<RankedPlayer> top(int limit) {
+        lock.readLock().lock();
+        try {
+            return collect(1, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public RankedPlayer rankOf(String userId) {
+        lock.readLock().lock();
+        try {
+            Player player = players.get(userId);
+            if (player == null) {
+                return null;
+            }
+            return new RankedPlayer(countAbove(player.rating()) + 1, player);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<RankedPlayer> around(String userId, int window) {
+        lock.readLock().lock();
+        try {
+            Player player = players.get(userId);
+            if (player == null) {
+                return List.of();
+            }
+            int rank = countAbove(player.rating()) + 1;
+            int span = Math.max(0, window);
+            int start = Math.max(1, rank - span);
+            return collect(start, 2 * span + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return players.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the read lock. Positions are 1-based; ties share the rank of their bucket.
+    private List<RankedPlayer> collect(int startPosition, int limit) {
+        if (startPosition > players.size() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<RankedPlayer> result = new ArrayList<>(Math.min(limit, players.size()));
+
+        int slot = findSlot(startPosition);
+        int rating = ratingOf(slot);
+        int rank = prefix(slot - 1) + 1;
+        int skip = startPosition - rank;
+
+        for (Map.Entry<Integer, TreeSet<String>> bucket : buckets.tailMap(rating, true).entrySet()) {
+            for (String id : bucket.getValue()) {
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                result.add(new RankedPlayer(rank, players.get(id)));
+                if (result.size() == limit) {
+                    return result;
+                }
+            }
+            rank += bucket.getValue().size();
+        }
+        return result;
+    }
+
+    private void replace(Player player) {
+        remove(player.id());
+        insert(player);
+    }
+
+    private void insert(Player player) {
+        players.put(player.id(), player);
+        buckets.computeIfAbsent(clamp(player.rating()), r -> new TreeSet<>()).add(player.id());
+        add(slotOf(player.rating()), 1);
+    }
+
+    private void remove(String userId) {
+        Player previous = players.remove(userId);
+        if (previous == null) {
+            return;
+        }
+        TreeSet<String> bucket = buckets.get(clamp(previous.rating()));
+        bucket.remove(userId);
+        if (bucket.isEmpty()) {
+            buckets.remove(clamp(previous.rating()));
+        }
+        add(slotOf(previous.rating()), -1);
+    }
+
+    private int countAbove(int rating) {
+        return prefix(slotOf(rating) - 1);
+    }
+
+    private void add(int slot, int delta) {
+        for (int i = slot; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private int prefix(int slot) {
+        int sum = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // Smallest slot whose prefix sum reaches position (binary lifting, O(log R))
+    private int findSlot(int position) {
+        int slot = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next < tree.length && tree[next] < position) {
+                slot = next;
+                position -= tree[next];
+            }
+        }
+        return slot + 1;
+    }
+
+    private static int slotOf(int rating) {
+        return MAX_RATING - clamp(rating) + 1;
+    }
+
+    private static int clamp(int rating) {
+        return Math.max(0, Math.min(MAX_RATING, rating));
+    }
+
+    private static int ratingOf(int slot) {
+        return MAX_RATING - slot + 1;
+    }
+
+    public record Player(
+            String id,
+            String username,
+            String email,
+            int rating,
+            int gamesPlayed,
+            int wins,
+            int losses,
+            int draws,
+            String avatar
+    ) {
+        static Player from(User user) {
+            return new Player(user.getId(), user.getUsername(), user.getEmail(), user.getRating(),
+                    user.getGamesPlayed(), user.getWins(), user.getLosses(), user.getDraws(), user.getAvatar());
+        }
+    }
+
+    public record RankedPlayer(int rank, Player player) {}
+}
@@ -0,0 +1,133 @@
+package com.sachess.service;
+
+import com.sachess.dto.GameMessage;
+import com.sachess.dto.GameSummary;
+import com.sachess.entity.Game;
+import com.sachess.repository.GameRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory set of open seeks (WAITING games). Clients take one snapshot from /app/lobby and then
+ * apply the add/remove diffs pushed on /topic/lobby whose seq is greater than the snapshot's.
+ * With the broker relay the seeks and the sequence would be per node, so every snapshot is read from the
+ * database instead and /topic/lobby carries full snapshots (seq 0) after a change.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LobbyService {
+
+    private final GameRepository gameRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Value("${websocket.broker.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    // All fields below are guarded by this
+    private final Map<String, GameSummary> seeks = new LinkedHashMap<>();
+    private final Map<String, GameSummary> pendingAdds = new LinkedHashMap<>();
+    private final Set<String> pendingRemoves = new LinkedHashSet<>();
+    private long sequence;
+    // Relay mode: a seek was opened or taken on this node since the last tick
+    private boolean changed;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (relayEnabled) return;
+        gameRepository.findSummariesByStatusOldestFirst(Game.GameStatus.WAITING, Limit.unlimited())
+                .forEach(game -> seeks.put(game.getId(), game));
+        log.info("Lobby loaded with {} open games", seeks.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onSeekOpened(SeekOpened event) {
+        if (relayEnabled) {
+            changed = true;
+            return;
+        }
+        GameSummary game = event.game();
+        seeks.put(game.getId(), game);
+        pendingAdds.put(game.getId(), game);
+    }
+
+    // Any event for a game (GAME_START on join, or later) means it has left the lobby
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onGameMessage(GameMessage message) {
+        if (relayEnabled) {
+            // Joining is the only way out of the lobby
+            changed |= message.getType() == GameMessage.MessageType.GAME_START;
+            return;
+        }
+        String gameId = message.getGameId();
+        if (seeks.remove(gameId) == null) {
+            return;
+        }
+        // A seek opened and taken within one tick (e.g. a matchmaking pairing) is never announced
+        if (pendingAdds.remove(gameId) == null) {
+            pendingRemoves.add(gameId);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${lobby.diff-interval-ms:500}")
+    public void publishDiff() {
+        if (relayEnabled) {
+            if (takeChanged()) {
+                messagingTemplate.convertAndSend("/topic/lobby", snapshot());
+            }
+            return;
+        }
+
+        // Sent under the monitor so diffs leave in seq order
+        synchronized (this) {
+            if (pendingAdds.isEmpty() && pendingRemoves.isEmpty()) return;
+
+            sequence++;
+            LobbyDiff diff = new LobbyDiff(sequence, new ArrayList<>(pendingAdds.values()), new ArrayList<>(pendingRemoves));
+            pendingAdds.clear();
+            pendingRemoves.clear();
+            messagingTemplate.convertAndSend("/topic/lobby", diff);
+        }
+    }
+
+    public LobbySnapshot snapshot() {
+        if (relayEnabled) {
+            // Seeks opened and taken on any node, off the lobby monitor
+            return new LobbySnapshot(0, gameRepository.findSummariesByStatusOldestFirst(
+                    Game.GameStatus.WAITING, Limit.unlimited()));
+        }
+        synchronized (this) {
+            List<GameSummary> games = new ArrayList<>(seeks.values());
+            games.sort(Comparator.comparing(GameSummary::getCreatedAt));
+            return new LobbySnapshot(sequence, games);
+        }
+    }
+
+    private synchronized boolean takeChanged() {
+        boolean was = changed;
+        changed = false;
+        return was;
+    }
+
+    public record SeekOpened(GameSummary game) {}
+
+    public record LobbySnapshot(long seq, List<GameSummary> games) {}
+
+    public record LobbyDiff(long seq, List<GameSummary> added, List<String> removed) {}
+}
@@ -0,0 +1,161 @@
+package com.sachess.service;
+
+import com.sachess.dto.GameMessage;
+import com.sachess.engine.Board;
+import com.sachess.engine.PolyglotBook;
+import com.sachess.engine.PolyglotKey;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Serves moves from one or more Polyglot books before the engine is asked. Weights of the same move
+ * are summed across books. Books are memory-mapped and swapped wholesale when a file changes, so
+ * lookups never see a half-loaded set.
+ */
+@Service
+@Slf4j
+public class OpeningBookService {
+
+    @Value("${engine.book.paths:}")
+    private String bookPaths;
+
+    private volatile Books books = new Books(List.of(), Map.of());
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${engine.book.reload-interval-ms:30000}")
+    public void reloadIfChanged() {
+        if (!modifiedTimes().equals(books.modified())) {
+            reload();
+        }
+    }
+
+    public synchronized void reload() {
+        if (bookPaths.isBlank()) {
+            return;
+        }
+
+        try {
+            Map<Path, Long> modified = modifiedTimes();
+            List<PolyglotBook> opened = new ArrayList<>();
+            for (Path path : modified.keySet()) {
+                if (Files.isRegularFile(path)) {
+                    opened.add(PolyglotBook.open(path));
+                } else {
+                    log.warn("Opening book {} not found", path);
+                }
+            }
+            books = new Books(opened, modified);
+            log.info("Loaded {} opening book(s) with {} entries", opened.size(),
+                    opened.stream().mapToInt(PolyglotBook::size).sum());
+        } catch (IOException e) {
+            // Keep serving the previous books
+            log.error("Failed to load opening books: {}", e.getMessage());
+        }
+    }
+
+    /** Book moves for the position, highest total weight first; empty when out of book. */
+    public List<BookMove> lookup(String fen) {
+        Books current = books;
+        if (current.books().isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            Board board = Board.fromFen(fen);
+            long hash = PolyglotKey.hash(board);
+
+            // Legality check guards against hash collisions and damaged books
+            List<String> legal = board.legalMoves();
+            Map<String, Integer> weights = new LinkedHashMap<>();
+            for (PolyglotBook book : current.books()) {
+                for (PolyglotBook.Entry entry : book.find(hash)) {
+                    String move = PolyglotBook.toUci(entry.move(), board);
+                    if (legal.contains(move)) {
+                        weights.merge(move, entry.weight(), Integer::sum);
+                    }
+                }
+            }
+
+            List<BookMove> moves = new ArrayList<>(weights.size());
+            weights.forEach((move, weight) -> {
+                if (weight > 0) moves.add(new BookMove(move, weight));
+            });
+            moves.sort(Comparator.comparingInt(BookMove::weight).reversed());
+            return moves;
+        } catch (Exception e) {
+            log.debug("Book lookup failed for {}: {}", fen, e.getMessage());
+            return List.of();
+        }
+    }
+
+    public GameMessage.AnalysisResult analyze(String fen) {
+        List<BookMove> moves = lookup(fen);
+        if (moves.isEmpty()) {
+            return null;
+        }
+        return GameMessage.AnalysisResult.builder()
+                .bestMove(moves.get(0).move())
+                .pv(moves.get(0).move())
+                .bookMoves(moves.stream().map(BookMove::move).toList())
+                .limit("book")
+                .engine("book")
+                .build();
+    }
+
+    /** A book move picked at random in proportion to its weight, or null when out of book. */
+    public String pickMove(String fen) {
+        List<BookMove> moves = lookup(fen);
+        if (moves.isEmpty()) {
+            return null;
+        }
+        int total = moves.stream().mapToInt(BookMove::weight).sum();
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (BookMove move : moves) {
+            roll -= move.weight();
+            if (roll < 0) {
+                return move.move();
+            }
+        }
+        return moves.get(0).move();
+    }
+
+    private Map<Path, Long> modifiedTimes() {
+        Map<Path, Long> modified = new LinkedHashMap<>();
+        if (bookPaths.isBlank()) {
+            return modified;
+        }
+        for (String location : Arrays.stream(bookPaths.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList()) {
+            Path path = Path.of(location);
+            long lastModified;
+            try {
+                lastModified = Files.getLastModifiedTime(path).toMillis();
+            } catch (IOException e) {
+                lastModified = -1;
+            }
+            modified.put(path, lastModified);
+        }
+        return modified;
+    }
+
+    private record Books(List<PolyglotBook> books, Map<Path, Long> modified) {}
+
+    public record BookMove(String move, int weight) {}
+}
@@ -0,0 +1,312 @@
+package com.sachess.service;
+
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * (position, move) -> results, in an open-addressing table of parallel primitive arrays: no boxing and
+ * no per-entry objects, about 36 bytes per distinct move. Also tracks the (endedAt, id) of the last game
+ * folded in, so a persisted snapshot knows where catch-up has to resume.
+ */
+@Component
+public class OpeningExplorerIndex {
+
+    private static final int MAGIC = 0x4F504558; // "OPEX"
+    private static final int VERSION = 1;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int ENTRY_BYTES = 8 + 4 * 4 + 8;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] moves = new int[INITIAL_CAPACITY]; // 0 marks an empty slot (real codes are never 0)
+    private int[] whiteWins = new int[INITIAL_CAPACITY];
+    private int[] draws = new int[INITIAL_CAPACITY];
+    private int[] blackWins = new int[INITIAL_CAPACITY];
+    private long[] ratingSums = new long[INITIAL_CAPACITY];
+    private int size;
+
+    private LocalDateTime watermarkEndedAt;
+    private String watermarkId;
+
+    // Bumped per recorded game; a save is needed while it differs from the version last written
+    private long version;
+    private long savedVersion;
+
+    /** Adds one game's result to every (position, move) it played; outcome is 1 / 0 / -1 from White's side. */
+    public void recordGame(long[] positionKeys, int[] moveCodes, int plies, int outcome, int averageRating,
+                           LocalDateTime endedAt, String gameId) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < plies; i++) {
+                int slot = slotFor(positionKeys[i], moveCodes[i]);
+                if (outcome > 0) whiteWins[slot]++;
+                else if (outcome < 0) blackWins[slot]++;
+                else draws[slot]++;
+                ratingSums[slot] += averageRating;
+            }
+            watermarkEndedAt = endedAt;
+            watermarkId = gameId;
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Results for the move, or null if it was never played from the position. */
+    public MoveStats get(long positionKey, int moveCode) {
+        lock.readLock().lock();
+        try {
+            int slot = find(positionKey, moveCode);
+            if (slot < 0) {
+                return null;
+            }
+            int games = whiteWins[slot] + draws[slot] + blackWins[slot];
+            return new MoveStats(whiteWins[slot], draws[slot], blackWins[slot], (int) (ratingSums[slot] / games));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public LocalDateTime watermarkEndedAt() {
+        lock.readLock().lock();
+        try {
+            return watermarkEndedAt;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String watermarkId() {
+        lock.readLock().lock();
+        try {
+            return watermarkId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Compact move code: from square, to square (0-63 each) and promotion piece, never 0. */
+    public static int moveCode(String uci) {
+        int from = (uci.charAt(1) - '1') * 8 + (uci.charAt(0) - 'a');
+        int to = (uci.charAt(3) - '1') * 8 + (uci.charAt(2) - 'a');
+        int promotion = uci.length() > 4 ? "nbrq".indexOf(Character.toLowerCase(uci.charAt(4))) + 1 : 0;
+        return 1 << 15 | promotion << 12 | to << 6 | from;
+    }
+
+    // Writes a temporary file and moves it into place; returns false if nothing changed since the last save
+    public synchronized boolean save(Path file) throws IOException {
+        lock.readLock().lock();
+        try {
+            if (version == savedVersion) {
+                return false;
+            }
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(watermarkEndedAt != null ? watermarkEndedAt.toString() : "");
+                out.writeUTF(watermarkId != null ? watermarkId : "");
+                out.writeInt(size);
+                for (int slot = 0; slot < moves.length; slot++) {
+                    if (moves[slot] == 0) continue;
+                    out.writeLong(keys[slot]);
+                    out.writeInt(moves[slot]);
+                    out.writeInt(whiteWins[slot]);
+                    out.writeInt(draws[slot]);
+                    out.writeInt(blackWins[slot]);
+                    out.writeLong(ratingSums[slot]);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Writers are excluded while the read lock is held, so this is exactly what was written
+            savedVersion = version;
+        } finally {
+            lock.readLock().unlock();
+        }
+        return true;
+    }
+
+    // The whole file is read before anything is replaced, so a truncated or corrupt file leaves the index as it was
+    public void load(Path file) throws IOException {
+        LocalDateTime endedAt;
+        String id;
+        long[] fileKeys;
+        int[] fileMoves;
+        int[] fileWhiteWins;
+        int[] fileDraws;
+        int[] fileBlackWins;
+        long[] fileRatingSums;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unrecognized explorer index file " + file);
+            }
+            String endedAtText = in.readUTF();
+            String idText = in.readUTF();
+            int entries = in.readInt();
+            if (entries < 0 || entries > Files.size(file) / ENTRY_BYTES) {
+                throw new IOException("Corrupt explorer index file " + file + ": " + entries + " entries");
+            }
+
+            fileKeys = new long[entries];
+            fileMoves = new int[entries];
+            fileWhiteWins = new int[entries];
+            fileDraws = new int[entries];
+            fileBlackWins = new int[entries];
+            fileRatingSums = new long[entries];
+            for (int i = 0; i < entries; i++) {
+                fileKeys[i] = in.readLong();
+                fileMoves[i] = in.readInt();
+                if (fileMoves[i] == 0) {
+                    throw new IOException("Corrupt explorer index file " + file + ": empty move at entry " + i);
+                }
+                fileWhiteWins[i] = in.readInt();
+                fileDraws[i] = in.readInt();
+                fileBlackWins[i] = in.readInt();
+                fileRatingSums[i] = in.readLong();
+            }
+            try {
+                endedAt = endedAtText.isEmpty() ? null : LocalDateTime.parse(endedAtText);
+            } catch (DateTimeParseException e) {
+                throw new IOException("Corrupt explorer index file " + file + ": " + e.getMessage(), e);
+            }
+            id = idText.isEmpty() ? null : idText;
+        }
+
+        lock.writeLock().lock();
+        try {
+            allocate(Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, fileKeys.length * 2)) * 2));
+            for (int i = 0; i < fileKeys.length; i++) {
+                int slot = slotFor(fileKeys[i], fileMoves[i]);
+                whiteWins[slot] = fileWhiteWins[i];
+                draws[slot] = fileDraws[i];
+                blackWins[slot] = fileBlackWins[i];
+                ratingSums[slot] = fileRatingSums[i];
+            }
+            watermarkEndedAt = endedAt;
+            watermarkId = id;
+            savedVersion = version;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Empties the index and its watermark; the next save replaces whatever snapshot is on disk. */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            allocate(INITIAL_CAPACITY);
+            watermarkEndedAt = null;
+            watermarkId = null;
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private int slotFor(long key, int move) {
+        if ((size + 1) * 10L > moves.length * 7L) {
+            grow();
+        }
+        int mask = moves.length - 1;
+        int slot = hash(key, move) & mask;
+        while (moves[slot] != 0) {
+            if (keys[slot] == key && moves[slot] == move) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        moves[slot] = move;
+        size++;
+        return slot;
+    }
+
+    // Caller holds a lock
+    private int find(long key, int move) {
+        int mask = moves.length - 1;
+        int slot = hash(key, move) & mask;
+        while (moves[slot] != 0) {
+            if (keys[slot] == key && moves[slot] == move) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldMoves = moves;
+        int[] oldWhiteWins = whiteWins;
+        int[] oldDraws = draws;
+        int[] oldBlackWins = blackWins;
+        long[] oldRatingSums = ratingSums;
+
+        int entries = size;
+        allocate(oldMoves.length * 2);
+        int mask = moves.length - 1;
+        for (int i = 0; i < oldMoves.length; i++) {
+            if (oldMoves[i] == 0) continue;
+            int slot = hash(oldKeys[i], oldMoves[i]) & mask;
+            while (moves[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            moves[slot] = oldMoves[i];
+            whiteWins[slot] = oldWhiteWins[i];
+            draws[slot] = oldDraws[i];
+            blackWins[slot] = oldBlackWins[i];
+            ratingSums[slot] = oldRatingSums[i];
+        }
+        size = entries;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        moves = new int[capacity];
+        whiteWins = new int[capacity];
+        draws = new int[capacity];
+        blackWins = new int[capacity];
+        ratingSums = new long[capacity];
+        size = 0;
+    }
+
+    // Zobrist keys are already uniform; mixing in the move spreads the moves of one position apart
+    private static int hash(long key, int move) {
+        long h = key ^ (move * 0x9E3779B97F4A7C15L);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    public record MoveStats(int whiteWins, int draws, int blackWins, int averageRating) {
+        public int games() {
+            return whiteWins + draws + blackWins;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.sachess.service;
+
+import com.sachess.engine.Board;
+import com.sachess.entity.Game;
+import com.sachess.entity.User;
+import com.sachess.repository.GameRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opening explorer over our own games. Completed games are folded into {@link OpeningExplorerIndex}
+ * in (endedAt, id) order by polling past a watermark, so a restart resumes from the persisted
+ * snapshot without double counting. Games younger than {@code explorer.settle-ms} are left for the
+ * next poll so a transaction that commits late is not skipped.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OpeningExplorerService {
+
+    private final GameRepository gameRepository;
+    private final OpeningExplorerIndex index;
+    private final ChessService chessService;
+
+    @Value("${explorer.max-plies:20}")
+    private int maxPlies;
+
+    @Value("${explorer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${explorer.settle-ms:5000}")
+    private long settleMs;
+
+    @Value("${explorer.index.path:data/explorer/opening-index.bin}")
+    private String indexPath;
+
+    // Loading and the first catch-up run here; until they finish the scheduled ticks leave the index alone
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "explorer-catch-up");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Snapshots wait for the persisted index to be read, or they could overwrite it
+    private volatile boolean loaded;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        executor.submit(() -> {
+            Path file = Path.of(indexPath);
+            if (Files.isRegularFile(file)) {
+                try {
+                    index.load(file);
+                    log.info("Opening explorer index loaded: {} entries, resuming after game {}", index.size(), index.watermarkId());
+                } catch (IOException e) {
+                    log.warn("Could not load opening explorer index, rebuilding: {}", e.getMessage());
+                }
+                // A snapshot from another database (or one since reset) would resume at a watermark
+                // that means nothing here and count foreign games
+                String watermarkId = index.watermarkId();
+                if (watermarkId != null && !gameRepository.existsById(watermarkId)) {
+                    log.warn("Opening explorer index ends at game {}, which is not in this database; rebuilding", watermarkId);
+                    index.clear();
+                }
+            }
+            loaded = true;
+
+            // On a first run this folds the whole archive, off the shared scheduler
+            try {
+                int folded = 0;
+                int batch;
+                while ((batch = foldBatch()) == batchSize) {
+                    folded += batch;
+                }
+                log.info("Opening explorer caught up: {} games folded", folded + batch);
+            } catch (RuntimeException e) {
+                log.error("Opening explorer catch-up failed, continuing from the scheduler: {}", e.getMessage());
+            }
+            ready = true;
+        });
+    }
+
+    // One batch per tick; the backlog after start-up is handled by init
+    @Scheduled(fixedDelayString = "${explorer.poll-interval-ms:5000}")
+    public void catchUp() {
+        if (!ready) {
+            return;
+        }
+        int folded = foldBatch();
+        if (folded > 0) {
+            log.debug("Opening explorer folded {} games", folded);
+        }
+    }
+
+    // Folds the next batch past the watermark; returns the number of games read
+    private synchronized int foldBatch() {
+        LocalDateTime settledBefore = LocalDateTime.now().minusNanos(settleMs * 1_000_000);
+        List<Object[]> keys = index.watermarkEndedAt() == null
+                ? gameRepository.findCompletedKeys(settledBefore, Limit.of(batchSize))
+                : gameRepository.findCompletedKeysAfter(index.watermarkEndedAt(), index.watermarkId(),
+                        settledBefore, Limit.of(batchSize));
+        if (keys.isEmpty()) {
+            return 0;
+        }
+
+        List<String> ids = keys.stream().map(row -> (String) row[0]).toList();
+        Map<String, Game> games = new HashMap<>();
+        gameRepository.findAllWithMovesByIdIn(ids).forEach(game -> games.put(game.getId(), game));
+        for (String id : ids) {
+            Game game = games.get(id);
+            if (game != null) {
+                fold(game);
+            }
+        }
+        return keys.size();
+    }
+
+    @Scheduled(fixedDelayString = "${explorer.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        if (!loaded) {
+            return;
+        }
+        try {
+            if (index.save(Path.of(indexPath))) {
+                log.debug("Opening explorer index saved ({} entries)", index.size());
+            }
+        } catch (IOException e) {
+            log.error("Failed to save opening explorer index: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        snapshot();
+    }
+
+    public Map<String, Object> explore(String fen) {
+        Board board = Board.fromFen(fen);
+        long key = board.positionKey();
+
+        List<Map<String, Object>> moves = new ArrayList<>();
+        int total = 0;
+        for (String uci : board.legalMoves()) {
+            OpeningExplorerIndex.MoveStats stats = index.get(key, OpeningExplorerIndex.moveCode(uci));
+            if (stats == null) {
+                continue;
+            }
+            total += stats.games();
+            Map<String, Object> move = new HashMap<>();
+            move.put("uci", uci);
+            move.put("white", stats.whiteWins());
+            move.put("draws", stats.draws());
+            move.put("black", stats.blackWins());
+            move.put("games", stats.games());
+            move.put("averageRating", stats.averageRating());
+            moves.add(move);
+        }
+
+        moves.sort(Comparator.comparingInt((Map<String, Object> m) -> (int) m.get("games")).reversed());
+        for (Map<String, Object> move : moves) {
+            String uci = (String) move.get("uci");
+            move.put("san", chessService.getMoveNotation(fen, uci.substring(0, 2), uci.substring(2, 4),
+                    uci.length() > 4 ? uci.substring(4) : null));
+            move.put("percentage", Math.round((int) move.get("games") * 1000.0 / total) / 10.0);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("fen", fen);
+        response.put("games", total);
+        response.put("moves", moves);
+        return response;
+    }
+
+    private void fold(Game game) {
+        int outcome = outcome(game.getResult());
+        List<String> gameMoves = game.getMoves();
+        int plies = Math.min(maxPlies, gameMoves.size());
+        long[] positionKeys = new long[plies];
+        int[] moveCodes = new int[plies];
+
+        Board board = Board.fromFen(Board.START_FEN);
+        int played = 0;
+        if (outcome != Integer.MIN_VALUE) {
+            for (; played < plies; played++) {
+                String uci = gameMoves.get(played).toLowerCase();
+                positionKeys[played] = board.positionKey();
+                moveCodes[played] = OpeningExplorerIndex.moveCode(uci);
+                if (!board.makeUciMove(uci)) {
+                    log.debug("Opening explorer stopped game {} at illegal move {}", game.getId(), uci);
+                    break;
+                }
+            }
+        }
+
+        // Still advances the watermark for aborted or unreadable games
+        index.recordGame(positionKeys, moveCodes, played, Math.max(outcome, -1), averageRating(game),
+                game.getEndedAt(), game.getId());
+    }
+
+    // 1 / 0 / -1 from White's side, MIN_VALUE for games without a result
+    static int outcome(Game.GameResult result) {
+        if (result == null) {
+            return Integer.MIN_VALUE;
+        }
+        return switch (result) {
+            case WHITE_WINS, BLACK_TIMEOUT, BLACK_RESIGNED -> 1;
+            case BLACK_WINS, WHITE_TIMEOUT, WHITE_RESIGNED -> -1;
+            case DRAW, STALEMATE -> 0;
+            case ABORTED -> Integer.MIN_VALUE;
+        };
+    }
+
+    // Ratings the players had going into the game, as recorded when it was rated
+    private static int averageRating(Game game) {
+        int white = ratingBefore(game.getWhiteRatingBefore(), game.getWhitePlayer(), game.getWhiteRatingChange());
+        if (game.getBlackPlayer() == null) {
+            return white;
+        }
+        int black = ratingBefore(game.getBlackRatingBefore(), game.getBlackPlayer(), game.getBlackRatingChange());
+        return (white + black) / 2;
+    }
+
+    // Games rated before the pre-game rating was recorded only have an estimate from the current rating
+    private static int ratingBefore(Integer recorded, User player, int change) {
+        return recorded != null ? recorded : player.getRating() - change;
+    }
+}
@@ -0,0 +1,376 @@
+package com.sachess.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Position hash -> the games that reached it. Games get dense ordinals in (endedAt, id) order, so every
+ * posting list is ascending. Most positions are reached by a single game, whose ordinal is stored
+ * inline in the hash slot. Longer lists are chains of chunks in a shared, paged byte arena, holding
+ * varint gaps (usually one byte per game). Each chunk header records its predecessor and the ordinal
+ * preceding its first entry, so a page of the newest matches decodes only the chunks it needs. There
+ * are no per-position objects: a position costs its slot, plus a chunk header and a tail pointer once
+ * a second game reaches it.
+ */
+public class PositionIndex {
+
+    // Chunk header: previous chunk (int, -1 for the first), ordinal before the first entry (int),
+    // entries (u16), bytes used (u16), capacity (u16)
+    private static final int HEADER = 14;
+    private static final int FIRST_CHUNK = 8;
+    static final int MAX_CHUNK = 512;
+    private static final int PAGE_BITS = 20;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ordinal -> game id and (endedAt, id) sort key
+    private final List<String> gameIds = new ArrayList<>();
+    private long[] endedAtNanos = new long[1 << 12];
+
+    // Open addressing: position key -> ordinal + 1 of its only game (> 0), or -(list + 1) (< 0); 0 = empty
+    private long[] keys = new long[1 << 16];
+    private int[] values = new int[1 << 16];
+    private int positions;
+
+    // Per list: arena offset of its newest chunk, and its newest ordinal
+    private int[] tails = new int[1 << 12];
+    private int[] lasts = new int[1 << 12];
+    private int lists;
+
+    // Offsets are page << PAGE_BITS | offset in page; a chunk never spans pages
+    private byte[][] pages = new byte[4][];
+    private int arenaPage = -1;
+    private int arenaUsed = PAGE_SIZE;
+    private long arenaBytes;
+
+    private LocalDateTime watermarkEndedAt;
+    private String watermarkId;
+
+    /** Appends a game; it must end after every game already added. Returns its ordinal. */
+    public int addGame(String gameId, long[] positionKeys, int count, LocalDateTime endedAt) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = gameIds.size();
+            gameIds.add(gameId);
+            if (ordinal == endedAtNanos.length) {
+                endedAtNanos = Arrays.copyOf(endedAtNanos, ordinal * 2);
+            }
+            endedAtNanos[ordinal] = nanos(endedAt);
+            for (int i = 0; i < count; i++) {
+                add(positionKeys[i], ordinal);
+            }
+            watermarkEndedAt = endedAt;
+            watermarkId = gameId;
+            return ordinal;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Newest-first games that reached the position, strictly before the game (beforeEndedAt, beforeId)
+     * in (endedAt, id) order, or from the newest when beforeEndedAt is null. The bound need not be in
+     * the index, so a cursor stays valid across rebuilds.
+     */
+    public Page find(long positionKey, LocalDateTime beforeEndedAt, String beforeId, int limit) {
+        lock.readLock().lock();
+        try {
+            int before = beforeEndedAt == null ? Integer.MAX_VALUE : ordinalOf(beforeEndedAt, beforeId);
+            int slot = findSlot(positionKey);
+            if (slot < 0) {
+                return new Page(List.of(), List.of());
+            }
+
+            int[] ordinals;
+            int value = values[slot];
+            if (value > 0) {
+                ordinals = value - 1 < before && limit > 0 ? new int[]{value - 1} : new int[0];
+            } else {
+                ordinals = newestBefore(-value - 1, before, limit);
+            }
+
+            List<String> ids = new ArrayList<>(ordinals.length);
+            List<LocalDateTime> endedAts = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals) {
+                ids.add(gameIds.get(ordinal));
+                endedAts.add(dateTime(endedAtNanos[ordinal]));
+            }
+            return new Page(ids, endedAts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int games() {
+        lock.readLock().lock();
+        try {
+            return gameIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int positions() {
+        lock.readLock().lock();
+        try {
+            return positions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Arena bytes in use by posting lists, chunk headers included
+    public long compressedBytes() {
+        lock.readLock().lock();
+        try {
+            return arenaBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public LocalDateTime watermarkEndedAt() {
+        lock.readLock().lock();
+        try {
+            return watermarkEndedAt;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String watermarkId() {
+        lock.readLock().lock();
+        try {
+            return watermarkId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void add(long key, int ordinal) {
+        if ((positions + 1) * 10L > keys.length * 7L) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int value = values[slot];
+        if (value == 0) {
+            keys[slot] = key;
+            values[slot] = ordinal + 1;
+            positions++;
+        } else if (value > 0) {
+            if (value - 1 != ordinal) { // the game reached this position again
+                values[slot] = -(newList(value - 1) + 1);
+                append(-values[slot] - 1, ordinal);
+            }
+        } else {
+            append(-value - 1, ordinal);
+        }
+    }
+
+    private int newList(int firstOrdinal) {
+        if (lists == tails.length) {
+            tails = Arrays.copyOf(tails, lists * 2);
+            lasts = Arrays.copyOf(lasts, lists * 2);
+        }
+        tails[lists] = allocateChunk(-1, -1, FIRST_CHUNK);
+        lasts[lists] = -1;
+        append(lists, firstOrdinal);
+        return lists++;
+    }
+
+    private void append(int list, int ordinal) {
+        if (ordinal == lasts[list]) {
+            return;
+        }
+        int tail = tails[list];
+        byte[] page = pages[tail >>> PAGE_BITS];
+        int at = tail & (PAGE_SIZE - 1);
+        int used = readShort(page, at + 10);
+        int capacity = readShort(page, at + 12);
+        if (used + 5 > capacity) {
+            tail = allocateChunk(tail, lasts[list], Math.min(capacity * 2, MAX_CHUNK));
+            tails[list] = tail;
+            page = pages[tail >>> PAGE_BITS];
+            at = tail & (PAGE_SIZE - 1);
+            used = 0;
+        }
+
+        int offset = at + HEADER + used;
+        int gap = ordinal - lasts[list];
+        while ((gap & ~0x7F) != 0) {
+            page[offset++] = (byte) ((gap & 0x7F) | 0x80);
+            gap >>>= 7;
+        }
+        page[offset++] = (byte) gap;
+        writeShort(page, at + 8, readShort(page, at + 8) + 1);
+        writeShort(page, at + 10, offset - at - HEADER);
+        lasts[list] = ordinal;
+    }
+
+    private int allocateChunk(int previous, int base, int capacity) {
+        if (arenaUsed + HEADER + capacity > PAGE_SIZE) {
+            arenaPage++;
+            if (arenaPage == pages.length) {
+                pages = Arrays.copyOf(pages, pages.length * 2);
+            }
+            if (arenaPage >= 1 << (31 - PAGE_BITS)) {
+                throw new IllegalStateException("Position index arena is full");
+            }
+            pages[arenaPage] = new byte[PAGE_SIZE];
+            arenaUsed = 0;
+        }
+        byte[] page = pages[arenaPage];
+        int at = arenaUsed;
+        writeInt(page, at, previous);
+        writeInt(page, at + 4, base);
+        writeShort(page, at + 12, capacity);
+        arenaUsed += HEADER + capacity;
+        arenaBytes += HEADER + capacity;
+        return arenaPage << PAGE_BITS | at;
+    }
+
+    // Caller holds a lock
+    private int[] newestBefore(int list, int beforeOrdinal, int limit) {
+        int[] result = new int[Math.min(limit, Math.max(0, beforeOrdinal))];
+        int found = 0;
+        int[] decoded = new int[MAX_CHUNK];
+
+        for (int chunk = tails[list]; chunk >= 0 && found < result.length; ) {
+            byte[] page = pages[chunk >>> PAGE_BITS];
+            int at = chunk & (PAGE_SIZE - 1);
+            int previous = readInt(page, at);
+            int base = readInt(page, at + 4);
+            if (base + 1 >= beforeOrdinal) {
+                chunk = previous; // every entry in this chunk is too new
+                continue;
+            }
+
+            int entries = readShort(page, at + 8);
+            int offset = at + HEADER;
+            int value = base;
+            for (int i = 0; i < entries; i++) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = page[offset++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value += gap;
+                decoded[i] = value;
+            }
+            for (int i = entries - 1; i >= 0 && found < result.length; i--) {
+                if (decoded[i] < beforeOrdinal) {
+                    result[found++] = decoded[i];
+                }
+            }
+            chunk = previous;
+        }
+        return found == result.length ? result : Arrays.copyOf(result, found);
+    }
+
+    // Number of games ordered before (endedAt, id); caller holds a lock
+    private int ordinalOf(LocalDateTime endedAt, String id) {
+        long target = nanos(endedAt);
+        int low = 0;
+        int high = gameIds.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int cmp = Long.compare(endedAtNanos[middle], target);
+            if (cmp == 0) {
+                cmp = gameIds.get(middle).compareTo(id);
+            }
+            if (cmp < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == 0) continue;
+            int slot = mix(oldKeys[i]) & mask;
+            while (values[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    // Only used for ordering, so the zone does not matter as long as it is fixed
+    private static long nanos(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    private static LocalDateTime dateTime(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private static int readInt(byte[] page, int at) {
+        return (page[at] & 0xFF) << 24 | (page[at + 1] & 0xFF) << 16 | (page[at + 2] & 0xFF) << 8 | page[at + 3] & 0xFF;
+    }
+
+    private static void writeInt(byte[] page, int at, int value) {
+        page[at] = (byte) (value >>> 24);
+        page[at + 1] = (byte) (value >>> 16);
+        page[at + 2] = (byte) (value >>> 8);
+        page[at + 3] = (byte) value;
+    }
+
+    private static int readShort(byte[] page, int at) {
+        return (page[at] & 0xFF) << 8 | page[at + 1] & 0xFF;
+    }
+
+    private static void writeShort(byte[] page, int at, int value) {
+        page[at] = (byte) (value >>> 8);
+        page[at + 1] = (byte) value;
+    }
+
+    // endedAts[i] is the end time of gameIds[i]; together they form the keyset cursor of the next page
+    public record Page(List<String> gameIds, List<LocalDateTime> endedAts) {}
+}
@@ -0,0 +1,266 @@
+package com.sachess.service;
+
+import com.sachess.dto.GamePage;
+import com.sachess.dto.GameSummary;
+import com.sachess.engine.Board;
+import com.sachess.entity.Game;
+import com.sachess.repository.GameRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * "Which games reached this position" over completed games. A backfill replays the archive in
+ * parallel chunks and appends them to a fresh {@link PositionIndex} in (endedAt, id) order, then swaps
+ * it in; afterwards newly completed games are appended by polling past the index's watermark.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PositionSearchService {
+
+    private final GameRepository gameRepository;
+
+    @Value("${positions.max-plies:300}")
+    private int maxPlies;
+
+    @Value("${positions.batch-size:500}")
+    private int batchSize;
+
+    @Value("${positions.settle-ms:5000}")
+    private long settleMs;
+
+    @Value("${positions.backfill.threads:0}")
+    private int backfillThreads;
+
+    private volatile PositionIndex index = new PositionIndex();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "position-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean backfilling = new AtomicBoolean(false);
+
+    private volatile Map<String, Object> lastBackfill = Map.of("status", "IDLE");
+
+    // Set once the start-up backfill is submitted; before that an empty index would replay the whole archive
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        startBackfill();
+        ready = true;
+    }
+
+    public Map<String, Object> startBackfill() {
+        if (!backfilling.compareAndSet(false, true)) {
+            throw new RuntimeException("Position backfill already running");
+        }
+
+        lastBackfill = Map.of("status", "RUNNING", "startedAt", LocalDateTime.now());
+        executor.submit(() -> {
+            try {
+                backfill();
+            } catch (Exception e) {
+                log.error("Position backfill failed", e);
+                lastBackfill = Map.of("status", "FAILED", "error", String.valueOf(e.getMessage()));
+            } finally {
+                backfilling.set(false);
+            }
+        });
+        return lastBackfill;
+    }
+
+    public Map<String, Object> getStatus() {
+        return lastBackfill;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Paused while a backfill runs; the backfilled index carries its own watermark. One batch per tick,
+    // so a burst of finished games can't hold the shared scheduler thread
+    @Scheduled(fixedDelayString = "${positions.poll-interval-ms:5000}")
+    public synchronized void catchUp() {
+        if (!ready || backfilling.get()) {
+            return;
+        }
+        PositionIndex current = index;
+        List<String> ids = completedAfter(current.watermarkEndedAt(), current.watermarkId(), settledBefore());
+        for (GamePositions game : replay(ids)) {
+            current.addGame(game.id(), game.keys(), game.count(), game.endedAt());
+        }
+    }
+
+    public GamePage getGamesPage(String fen, String cursor, int limit) {
+        long key = Board.fromFen(fen).positionKey();
+        Cursor after = Cursor.decode(cursor);
+        PositionIndex.Page page = after == null
+                ? index.find(key, null, null, limit)
+                : index.find(key, after.endedAt(), after.id(), limit);
+        if (page.gameIds().isEmpty()) {
+            return new GamePage(List.of(), null);
+        }
+
+        Map<String, GameSummary> byId = new HashMap<>();
+        gameRepository.findSummariesByIdIn(page.gameIds()).forEach(summary -> byId.put(summary.getId(), summary));
+        List<GameSummary> games = page.gameIds().stream().map(byId::get).filter(Objects::nonNull).toList();
+
+        // A short page is the last one
+        int last = page.gameIds().size() - 1;
+        String nextCursor = page.gameIds().size() < limit ? null
+                : new Cursor(page.endedAts().get(last), page.gameIds().get(last)).encode();
+        return new GamePage(games, nextCursor);
+    }
+
+    private void backfill() throws Exception {
+        long started = System.currentTimeMillis();
+        LocalDateTime settledBefore = settledBefore();
+
+        // Keys only (id + endedAt); the games themselves are loaded chunk by chunk in the workers
+        List<String> ids = new ArrayList<>();
+        LocalDateTime lastEndedAt = null;
+        String lastId = null;
+        while (true) {
+            List<Object[]> keys = lastId == null
+                    ? gameRepository.findCompletedKeys(settledBefore, Limit.of(batchSize))
+                    : gameRepository.findCompletedKeysAfter(lastEndedAt, lastId, settledBefore, Limit.of(batchSize));
+            for (Object[] row : keys) {
+                ids.add((String) row[0]);
+            }
+            if (keys.size() < batchSize) {
+                break;
+            }
+            lastId = (String) keys.get(keys.size() - 1)[0];
+            lastEndedAt = (LocalDateTime) keys.get(keys.size() - 1)[1];
+        }
+
+        // Chunks are replayed in parallel but appended strictly in order, keeping posting lists ascending
+        int threads = backfillThreads > 0 ? backfillThreads : Runtime.getRuntime().availableProcessors();
+        PositionIndex rebuilt = new PositionIndex();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Deque<Future<List<GamePositions>>> inFlight = new ArrayDeque<>();
+            int next = 0;
+            while (next < ids.size() || !inFlight.isEmpty()) {
+                while (inFlight.size() < threads * 2 && next < ids.size()) {
+                    List<String> chunk = ids.subList(next, Math.min(next + batchSize, ids.size()));
+                    inFlight.add(pool.submit(() -> replay(chunk)));
+                    next += chunk.size();
+                }
+                for (GamePositions game : inFlight.poll().get()) {
+                    rebuilt.addGame(game.id(), game.keys(), game.count(), game.endedAt());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        synchronized (this) {
+            index = rebuilt;
+        }
+
+        long elapsed = System.currentTimeMillis() - started;
+        log.info("Position index built: {} games, {} positions, {} KB of postings in {} ms",
+                rebuilt.games(), rebuilt.positions(), rebuilt.compressedBytes() / 1024, elapsed);
+        lastBackfill = Map.of("status", "COMPLETED", "games", rebuilt.games(), "positions", rebuilt.positions(),
+                "postingBytes", rebuilt.compressedBytes(), "elapsedMs", elapsed);
+    }
+
+    private List<String> completedAfter(LocalDateTime endedAt, String id, LocalDateTime settledBefore) {
+        List<Object[]> keys = id == null
+                ? gameRepository.findCompletedKeys(settledBefore, Limit.of(batchSize))
+                : gameRepository.findCompletedKeysAfter(endedAt, id, settledBefore, Limit.of(batchSize));
+        return keys.stream().map(row -> (String) row[0]).toList();
+    }
+
+    // Loads the games with their moves in one query and returns their positions in the given order
+    private List<GamePositions> replay(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Game> games = new HashMap<>();
+        gameRepository.findAllWithMovesByIdIn(ids).forEach(game -> games.put(game.getId(), game));
+
+        List<GamePositions> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Game game = games.get(id);
+            if (game != null) {
+                result.add(positionsOf(game));
+            }
+        }
+        return result;
+    }
+
+    private GamePositions positionsOf(Game game) {
+        List<String> moves = game.getMoves();
+        int plies = Math.min(maxPlies, moves.size());
+        long[] keys = new long[plies + 1];
+
+        Board board = Board.fromFen(Board.START_FEN);
+        keys[0] = board.positionKey();
+        int count = 1;
+        for (int i = 0; i < plies; i++) {
+            if (!board.makeUciMove(moves.get(i).toLowerCase())) {
+                log.debug("Position index stopped game {} at illegal move {}", game.getId(), moves.get(i));
+                break;
+            }
+            keys[count++] = board.positionKey();
+        }
+        return new GamePositions(game.getId(), Arrays.copyOf(keys, count), count, game.getEndedAt());
+    }
+
+    private LocalDateTime settledBefore() {
+        return LocalDateTime.now().minusNanos(settleMs * 1_000_000);
+    }
+
+    // Opaque keyset position: the (endedAt, id) of the last game on the previous page. Unlike an
+    // ordinal it means the same game in every index, so it survives a backfill swapping the index
+    private record Cursor(LocalDateTime endedAt, String id) {
+        String encode() {
+            String raw = endedAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+    }
+
+    private record GamePositions(String id, long[] keys, int count, LocalDateTime endedAt) {}
+}
@@ -0,0 +1,132 @@
+package com.sachess.service;
+
+import com.sachess.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Who is online, kept in memory and written to the users table in batches. With the broker relay the
+ * STOMP user registry is shared between nodes, so a user is only written offline once no node has a
+ * session for them, and every flush re-asserts this node's users in case another node wrote them
+ * offline from a registry view that was a broadcast behind. Binary-endpoint sessions are only known
+ * to the node holding them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceService {
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final UserRepository userRepository;
+    private final SimpUserRegistry userRegistry;
+
+    @Value("${websocket.broker.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    // userId -> open WebSocket session ids; the user is online while this is non-empty
+    private final Map<String, Set<String>> sessions = new ConcurrentHashMap<>();
+
+    // Users whose isOnline/lastSeen columns are behind the registry
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    public void sessionConnected(String userId, String sessionId) {
+        sessions.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        dirty.add(userId);
+    }
+
+    public void sessionDisconnected(String userId, String sessionId) {
+        // Only the last tab closing takes the user offline
+        sessions.computeIfPresent(userId, (id, ids) -> {
+            ids.remove(sessionId);
+            return ids.isEmpty() ? null : ids;
+        });
+        dirty.add(userId);
+    }
+
+    public boolean isOnline(String userId) {
+        return sessions.containsKey(userId) || onlineElsewhere(userId, Set.of());
+    }
+
+    public Set<String> getOnlineUserIds() {
+        if (!relayEnabled) {
+            return sessions.keySet();
+        }
+        Set<String> userIds = new HashSet<>(sessions.keySet());
+        userRegistry.getUsers().forEach(user -> userIds.add(user.getName()));
+        return userIds;
+    }
+
+    @Scheduled(fixedDelayString = "${presence.flush-interval-ms:10000}")
+    public void flush() {
+        if (dirty.isEmpty() && !relayEnabled) return;
+
+        Set<String> online = new LinkedHashSet<>();
+        List<String> offline = new ArrayList<>();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            String userId = it.next();
+            it.remove();
+            if (isOnline(userId)) {
+                online.add(userId);
+            } else {
+                offline.add(userId);
+            }
+        }
+        if (relayEnabled) {
+            online.addAll(sessions.keySet());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        writeBatches(new ArrayList<>(online), true, now);
+        writeBatches(offline, false, now);
+        log.debug("Presence flushed: {} online, {} offline", online.size(), offline.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Sessions on this node end with it; users still connected to another node stay online
+        Map<String, Set<String>> closing = new HashMap<>(sessions);
+        sessions.clear();
+        flush();
+
+        List<String> offline = new ArrayList<>();
+        closing.forEach((userId, sessionIds) -> {
+            if (!onlineElsewhere(userId, sessionIds)) {
+                offline.add(userId);
+            }
+        });
+        writeBatches(offline, false, LocalDateTime.now());
+    }
+
+    // A registered STOMP session that isn't one of the given local ones lives on another node
+    private boolean onlineElsewhere(String userId, Set<String> localSessionIds) {
+        if (!relayEnabled) return false;
+        SimpUser user = userRegistry.getUser(userId);
+        if (user == null) return false;
+        return user.getSessions().stream().anyMatch(session -> !localSessionIds.contains(session.getId()));
+    }
+
+    private void writeBatches(List<String> userIds, boolean online, LocalDateTime lastSeen) {
+        for (int i = 0; i < userIds.size(); i += FLUSH_BATCH_SIZE) {
+            List<String> batch = userIds.subList(i, Math.min(i + FLUSH_BATCH_SIZE, userIds.size()));
+            userRepository.updatePresence(batch, online, lastSeen);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.sachess.service;
+
+import java.util.List;
+
+/**
+ * A rating system. Updates are expressed per rating period: every outcome is rated against the
+ * opponent's rating from before the period, so players within one period can be updated independently.
+ * A single live game is a period containing one outcome.
+ */
+public interface RatingModel {
+
+    String name();
+
+    PlayerRating initial();
+
+    PlayerRating rate(PlayerRating player, List<Outcome> outcomes);
+
+    // Whether history is rated in rating periods; otherwise every game is its own period, in order
+    default boolean periodic() {
+        return false;
+    }
+
+    // Rating after the given number of periods without games
+    default PlayerRating idle(PlayerRating player, int periods) {
+        return player;
+    }
+
+    record PlayerRating(double rating, double deviation, double volatility) {}
+
+    // score is 1 for a win, 0.5 for a draw, 0 for a loss
+    record Outcome(PlayerRating opponent, double score) {}
+}
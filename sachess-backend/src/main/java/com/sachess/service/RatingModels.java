@@ -0,0 +1,40 @@
+package com.sachess.service;
+
+import com.sachess.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class RatingModels {
+
+    private final Map<String, RatingModel> models;
+
+    @Value("${rating.model:elo}")
+    private String activeModel;
+
+    public RatingModels(List<RatingModel> models) {
+        this.models = models.stream().collect(Collectors.toMap(RatingModel::name, Function.identity()));
+    }
+
+    // Model used for live games
+    public RatingModel active() {
+        return get(activeModel);
+    }
+
+    public RatingModel get(String name) {
+        RatingModel model = models.get(name);
+        if (model == null) {
+            throw new RuntimeException("Unknown rating model: " + name);
+        }
+        return model;
+    }
+
+    public static RatingModel.PlayerRating of(User user) {
+        return new RatingModel.PlayerRating(user.getRating(), user.getRatingDeviation(), user.getRatingVolatility());
+    }
+}
@@ -0,0 +1,266 @@
+package com.sachess.service;
+
+import com.sachess.entity.Game;
+import com.sachess.entity.PendingRating;
+import com.sachess.repository.GameRepository;
+import com.sachess.repository.PendingRatingRepository;
+import com.sachess.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds every player's rating from game history. Games are streamed in endedAt order. Periodic models
+ * group them into fixed-length rating periods; periods depend on each other and run in sequence, while
+ * the players within a period are rated in parallel. Per-game models such as Elo replay one game at a
+ * time, as live play rated them. Memory is bounded by the player count plus one period.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RatingRecomputeService {
+
+    private static final int MIN_RATING = 100;
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    private final GameRepository gameRepository;
+    private final UserRepository userRepository;
+    private final PendingRatingRepository pendingRatingRepository;
+    private final RatingUpdateService ratingUpdateService;
+    private final RatingModels ratingModels;
+    private final UserIndexSync userIndexSync;
+    private final GameSnapshotCache gameSnapshotCache;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${rating.recompute.period-hours:24}")
+    private long periodHours;
+
+    // Games that ended within this of the start may still be committing; they are replayed like later ones
+    @Value("${rating.recompute.settle-ms:5000}")
+    private long settleMs;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "rating-recompute");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile Map<String, Object> lastRun = Map.of("status", "IDLE");
+
+    public Map<String, Object> start(String modelName) {
+        RatingModel model = ratingModels.get(modelName);
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Rating recomputation already running");
+        }
+
+        lastRun = Map.of("status", "RUNNING", "model", model.name(), "startedAt", LocalDateTime.now());
+        executor.submit(() -> {
+            try {
+                recompute(model);
+            } catch (RuntimeException e) {
+                log.error("Rating recomputation failed", e);
+                lastRun = Map.of("status", "FAILED", "model", model.name(), "error", String.valueOf(e.getMessage()));
+            } finally {
+                running.set(false);
+            }
+        });
+        return lastRun;
+    }
+
+    public Map<String, Object> getStatus() {
+        return lastRun;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void recompute(RatingModel model) {
+        long started = System.currentTimeMillis();
+        Map<String, PlayerState> players = new HashMap<>();
+        long[] counts = new long[2]; // games, periods
+
+        LocalDateTime watermark = LocalDateTime.now().minus(Duration.ofMillis(settleMs));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = gameRepository.streamRatedResults(watermark)) {
+                List<RatedGame> period = new ArrayList<>();
+                long[] currentPeriod = {Long.MIN_VALUE};
+
+                rows.forEach(row -> {
+                    double whiteScore = RatingUpdateService.scoreForWhite((Game.GameResult) row[2]);
+                    counts[0]++;
+                    if (!model.periodic()) {
+                        // Each game is rated against the ratings its predecessors left, as a live flush would
+                        rateGame(model, players, new RatedGame((String) row[0], (String) row[1], whiteScore, counts[0]));
+                        counts[1]++;
+                        return;
+                    }
+
+                    RatedGame game = new RatedGame((String) row[0], (String) row[1], whiteScore, periodOf((LocalDateTime) row[3]));
+                    if (game.period() != currentPeriod[0] && !period.isEmpty()) {
+                        ratePeriod(model, players, period, currentPeriod[0]);
+                        counts[1]++;
+                        period.clear();
+                    }
+                    currentPeriod[0] = game.period();
+                    period.add(game);
+                });
+                if (!period.isEmpty()) {
+                    ratePeriod(model, players, period, currentPeriod[0]);
+                    counts[1]++;
+                }
+            }
+        });
+
+        int replayed = transactionTemplate.execute(status -> {
+            // Live flushes of games before the watermark would count them twice; claiming their rows waits
+            // for a flush already holding them, before any user row is locked
+            pendingRatingRepository.markAppliedForGamesEndedBefore(watermark);
+
+            // The reset locks every user row: a flush that commits before it is replayed below,
+            // one that commits after it adds its increments on top of the rebuilt ratings
+            RatingModel.PlayerRating initial = model.initial();
+            userRepository.resetAllRatings((int) Math.round(initial.rating()), initial.deviation(), initial.volatility());
+            writeRatings(players);
+
+            List<PendingRating> applied = pendingRatingRepository.findAppliedForGamesEndedSince(watermark);
+            ratingUpdateService.apply(applied);
+            return applied.size();
+        });
+
+        userIndexSync.rebuildAll();
+        gameSnapshotCache.invalidateAll();
+
+        long elapsed = System.currentTimeMillis() - started;
+        log.info("Ratings recomputed with {}: {} games, {} periods, {} players, {} later games replayed in {} ms",
+                model.name(), counts[0], counts[1], players.size(), replayed, elapsed);
+        lastRun = Map.of("status", "COMPLETED", "model", model.name(), "games", counts[0],
+                "periods", counts[1], "players", players.size(), "elapsedMs", elapsed);
+    }
+
+    private void ratePeriod(RatingModel model, Map<String, PlayerState> players, List<RatedGame> games, long period) {
+        // Bring every participant up to the start of this period before anyone is rated against them
+        Map<String, List<RatedGame>> byPlayer = new LinkedHashMap<>();
+        for (RatedGame game : games) {
+            byPlayer.computeIfAbsent(game.whiteId(), id -> new ArrayList<>()).add(game);
+            byPlayer.computeIfAbsent(game.blackId(), id -> new ArrayList<>()).add(game);
+        }
+        for (String playerId : byPlayer.keySet()) {
+            PlayerState state = players.computeIfAbsent(playerId, id -> new PlayerState(model.initial(), period));
+            state.rating = model.idle(state.rating, (int) (period - state.lastPeriod - 1));
+        }
+
+        // Each player's update reads only pre-period ratings, so they are independent
+        Map<String, RatingModel.PlayerRating> updated = byPlayer.entrySet().parallelStream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> {
+                    String playerId = entry.getKey();
+                    List<RatingModel.Outcome> outcomes = new ArrayList<>(entry.getValue().size());
+                    for (RatedGame game : entry.getValue()) {
+                        boolean white = game.whiteId().equals(playerId);
+                        String opponent = white ? game.blackId() : game.whiteId();
+                        outcomes.add(new RatingModel.Outcome(players.get(opponent).rating,
+                                white ? game.whiteScore() : 1.0 - game.whiteScore()));
+                    }
+                    return model.rate(players.get(playerId).rating, outcomes);
+                }));
+
+        for (Map.Entry<String, List<RatedGame>> entry : byPlayer.entrySet()) {
+            PlayerState state = players.get(entry.getKey());
+            state.rating = updated.get(entry.getKey());
+            state.lastPeriod = period;
+            for (RatedGame game : entry.getValue()) {
+                state.count(game.whiteId().equals(entry.getKey()) ? game.whiteScore() : 1.0 - game.whiteScore());
+            }
+        }
+    }
+
+    private void rateGame(RatingModel model, Map<String, PlayerState> players, RatedGame game) {
+        PlayerState white = players.computeIfAbsent(game.whiteId(), id -> new PlayerState(model.initial(), game.period()));
+        PlayerState black = players.computeIfAbsent(game.blackId(), id -> new PlayerState(model.initial(), game.period()));
+        RatingModel.PlayerRating whiteBefore = white.rating;
+        white.record(model.rate(whiteBefore, List.of(new RatingModel.Outcome(black.rating, game.whiteScore()))),
+                game.period(), game.whiteScore());
+        black.record(model.rate(black.rating, List.of(new RatingModel.Outcome(whiteBefore, 1.0 - game.whiteScore()))),
+                game.period(), 1.0 - game.whiteScore());
+    }
+
+    private void writeRatings(Map<String, PlayerState> players) {
+        List<Object[]> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+        for (Map.Entry<String, PlayerState> entry : players.entrySet()) {
+            PlayerState state = entry.getValue();
+            batch.add(new Object[]{
+                    Math.max(MIN_RATING, (int) Math.round(state.rating.rating())),
+                    state.rating.deviation(), state.rating.volatility(),
+                    state.games, state.wins, state.losses, state.draws, entry.getKey()});
+            if (batch.size() == WRITE_BATCH_SIZE) {
+                flushBatch(batch);
+            }
+        }
+        flushBatch(batch);
+    }
+
+    private void flushBatch(List<Object[]> batch) {
+        if (batch.isEmpty()) return;
+        jdbcTemplate.batchUpdate("UPDATE users SET rating = ?, rating_deviation = ?, rating_volatility = ?, " +
+                "games_played = ?, wins = ?, losses = ?, draws = ? WHERE id = ?", batch);
+        batch.clear();
+    }
+
+    private long periodOf(LocalDateTime endedAt) {
+        return endedAt.toEpochSecond(ZoneOffset.UTC) / (periodHours * 3600);
+    }
+
+    // period is the game's ordinal for per-game models
+    private record RatedGame(String whiteId, String blackId, double whiteScore, long period) {}
+
+    private static class PlayerState {
+        RatingModel.PlayerRating rating;
+        long lastPeriod;
+        int games;
+        int wins;
+        int losses;
+        int draws;
+
+        PlayerState(RatingModel.PlayerRating rating, long period) {
+            this.rating = rating;
+            // A new player starts fresh; no idle periods before their first game
+            this.lastPeriod = period - 1;
+        }
+
+        void record(RatingModel.PlayerRating rating, long period, double score) {
+            this.rating = rating;
+            this.lastPeriod = period;
+            count(score);
+        }
+
+        void count(double score) {
+            games++;
+            if (score == 1.0) wins++;
+            else if (score == 0.0) losses++;
+            else draws++;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.sachess.service;
+
+import com.sachess.entity.Game;
+import com.sachess.entity.PendingRating;
+import com.sachess.repository.PendingRatingRepository;
+import com.sachess.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RatingUpdateService {
+
+    private final UserRepository userRepository;
+    private final PendingRatingRepository pendingRatingRepository;
+    private final UserIndexSync userIndexSync;
+    private final GameSnapshotCache gameSnapshotCache;
+    private final TransactionTemplate transactionTemplate;
+
+    // Outbox rows older than this with no flush in sight (crashed or stopped node) are picked up here
+    @Value("${rating.recovery-after-ms:30000}")
+    private long recoveryAfterMs;
+
+    // Must outlast the longest rating recomputation, which replays applied rows past its watermark
+    @Value("${rating.outbox.retention-ms:86400000}")
+    private long retentionMs;
+
+    // Ids of committed games whose outbox rows are waiting for the next flush
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    // Same transaction as the game end: the rating change survives a crash before the flush
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void recordGameRated(GameRated event) {
+        pendingRatingRepository.save(PendingRating.builder()
+                .gameId(event.gameId())
+                .whiteId(event.whiteId())
+                .blackId(event.blackId())
+                .whiteChange(event.whiteChange())
+                .blackChange(event.blackChange())
+                .result(event.result())
+                .whiteDeviation(event.white().deviation())
+                .whiteVolatility(event.white().volatility())
+                .blackDeviation(event.black().deviation())
+                .blackVolatility(event.black().volatility())
+                .build());
+    }
+
+    // Runs once the game-end transaction has committed, so an aborted move never touches ratings
+    @TransactionalEventListener
+    public void onGameRated(GameRated event) {
+        pending.add(event.gameId());
+    }
+
+    @Scheduled(fixedDelayString = "${rating.flush-interval-ms:250}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        List<String> batch = new ArrayList<>(pending);
+        pending.removeAll(batch);
+
+        Set<String> userIds;
+        try {
+            userIds = transactionTemplate.execute(status -> {
+                // Games another node, an earlier flush or a recomputation already applied are skipped
+                List<PendingRating> claimed = pendingRatingRepository.lockUnappliedByGameIdIn(batch);
+                if (!claimed.isEmpty()) {
+                    pendingRatingRepository.markApplied(claimed.stream().map(PendingRating::getGameId).toList());
+                }
+                return apply(claimed);
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to apply rating updates for {} games, retrying: {}", batch.size(), e.getMessage());
+            pending.addAll(batch);
+            return;
+        }
+
+        userIndexSync.updated(userRepository.findAllById(userIds));
+        // Game snapshots embed both players' ratings
+        gameSnapshotCache.invalidatePlayers(userIds);
+        log.debug("Rating updates applied for {} games, {} players", batch.size(), userIds.size());
+    }
+
+    /**
+     * Adds the rows' rating and W/L/D changes to the users, within the caller's transaction.
+     * Returns the ids of the players touched.
+     */
+    public Set<String> apply(List<PendingRating> rows) {
+        // Relative UPDATEs: concurrent results for the same player add up instead of overwriting
+        Map<String, StatsDelta> deltas = merge(rows);
+        deltas.forEach((userId, d) -> userRepository.applyGameResults(userId, d.rating(), d.games(),
+                d.wins(), d.losses(), d.draws(), d.deviation(), d.volatility()));
+        return deltas.keySet();
+    }
+
+    // Also runs right after start, replaying what a crash left in the outbox
+    @Scheduled(fixedDelayString = "${rating.recovery-interval-ms:60000}")
+    public void recover() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> orphaned = pendingRatingRepository.findUnappliedGameIdsCreatedBefore(
+                now.minus(Duration.ofMillis(recoveryAfterMs)));
+        if (!orphaned.isEmpty()) {
+            log.info("Replaying {} rating updates left in the outbox", orphaned.size());
+            pending.addAll(orphaned);
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                pendingRatingRepository.deleteAppliedCreatedBefore(now.minus(Duration.ofMillis(retentionMs))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public static double scoreForWhite(Game.GameResult result) {
+        return switch (result) {
+            case WHITE_WINS, BLACK_TIMEOUT, BLACK_RESIGNED -> 1.0;
+            case BLACK_WINS, WHITE_TIMEOUT, WHITE_RESIGNED -> 0.0;
+            default -> 0.5;
+        };
+    }
+
+    // Rows are in commit order, so the newest deviation and volatility win. Sorted by user id so every
+    // flusher locks user rows in the same order and two of them can't deadlock
+    private static Map<String, StatsDelta> merge(List<PendingRating> rows) {
+        Map<String, StatsDelta> deltas = new TreeMap<>();
+        for (PendingRating row : rows) {
+            double whiteScore = scoreForWhite(row.getResult());
+            deltas.merge(row.getWhiteId(), StatsDelta.of(row.getWhiteChange(), whiteScore,
+                    row.getWhiteDeviation(), row.getWhiteVolatility()), StatsDelta::plus);
+            deltas.merge(row.getBlackId(), StatsDelta.of(row.getBlackChange(), 1.0 - whiteScore,
+                    row.getBlackDeviation(), row.getBlackVolatility()), StatsDelta::plus);
+        }
+        return deltas;
+    }
+
+    // white/black carry the post-game deviation and volatility, which are set rather than added
+    public record GameRated(String gameId, String whiteId, String blackId,
+                            int whiteChange, int blackChange, Game.GameResult result,
+                            RatingModel.PlayerRating white, RatingModel.PlayerRating black) {}
+
+    private record StatsDelta(int rating, int games, int wins, int losses, int draws,
+                              double deviation, double volatility) {
+        static StatsDelta of(int ratingChange, double score, double deviation, double volatility) {
+            return new StatsDelta(ratingChange, 1,
+                    score == 1.0 ? 1 : 0, score == 0.0 ? 1 : 0, score == 0.5 ? 1 : 0,
+                    deviation, volatility);
+        }
+
+        // other is the newer delta
+        StatsDelta plus(StatsDelta other) {
+            return new StatsDelta(rating + other.rating, games + other.games,
+                    wins + other.wins, losses + other.losses, draws + other.draws,
+                    other.deviation, other.volatility);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.sachess.service;
+
+import com.sachess.dto.GameMessage;
+import com.sachess.entity.Game;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpectatorFeedService {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // gameId -> newest undelivered state; later updates overwrite earlier ones
+    private final Map<String, GameMessage> pending = new ConcurrentHashMap<>();
+
+    @Value("${spectator.idle-ttl-ms:600000}")
+    private long idleTtlMs;
+
+    // gameId -> last delivered snapshot, used to fill in what event-only messages omit
+    private final Map<String, Delivered> delivered = new ConcurrentHashMap<>();
+
+    // After commit, so the feed never shows a move that was rolled back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGameMessage(GameMessage message) {
+        pending.merge(message.getGameId(), message, SpectatorFeedService::coalesce);
+    }
+
+    @Scheduled(fixedRateString = "${spectator.snapshot-interval-ms:1000}")
+    public void publishSnapshots() {
+        for (String gameId : pending.keySet()) {
+            GameMessage update = pending.remove(gameId);
+            if (update == null) continue;
+
+            Delivered previous = delivered.get(gameId);
+            GameMessage snapshot = previous != null ? coalesce(previous.snapshot(), update) : update;
+
+            if (snapshot.getResult() != null || snapshot.getStatus() == Game.GameStatus.COMPLETED) {
+                delivered.remove(gameId);
+            } else {
+                delivered.put(gameId, new Delivered(snapshot, System.currentTimeMillis()));
+            }
+
+            messagingTemplate.convertAndSend("/topic/game/" + gameId + "/spectate", snapshot);
+            eventPublisher.publishEvent(new SpectatorSnapshot(snapshot));
+        }
+    }
+
+    // Abandoned games never send the final message that would clear their entry
+    @Scheduled(fixedRate = 60000)
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTtlMs;
+        delivered.values().removeIf(entry -> entry.deliveredAt() < cutoff);
+    }
+
+    private static GameMessage coalesce(GameMessage older, GameMessage newer) {
+        // Resign/draw/timeout messages carry no position, so keep the last known board and clocks
+        GameMessage position = newer.getFen() != null ? newer : older;
+
+        return GameMessage.builder()
+                .type(newer.getType())
+                .gameId(newer.getGameId())
+                .playerId(newer.getPlayerId())
+                .playerUsername(newer.getPlayerUsername())
+                .from(position.getFrom())
+                .to(position.getTo())
+                .promotion(position.getPromotion())
+                .fen(position.getFen())
+                .pgn(position.getPgn())
+                .currentTurn(position.getCurrentTurn())
+                .whiteTimeRemaining(position.getWhiteTimeRemaining())
+                .blackTimeRemaining(position.getBlackTimeRemaining())
+                .status(newer.getStatus() != null ? newer.getStatus() : older.getStatus())
+                .result(newer.getResult() != null ? newer.getResult() : older.getResult())
+                .message(newer.getMessage())
+                .build();
+    }
+
+    public record SpectatorSnapshot(GameMessage message) {}
+
+    private record Delivered(GameMessage snapshot, long deliveredAt) {}
+}
@@ -3,6 +3,7 @@ package com.sachess.service;
 import com.sachess.dto.GameMessage;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -13,9 +14,16 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class StockfishService {
 
+    private final EngineJobScheduler engineJobScheduler;
+    private final AdaptiveSearchPolicy adaptiveSearchPolicy;
+    private final FallbackEngineService fallbackEngineService;
+    private final TablebaseService tablebaseService;
+    private final OpeningBookService openingBookService;
+
     @Value("${stockfish.path:stockfish}")
     private String stockfishPath;
 
@@ -31,7 +39,6 @@ public class StockfishService {
     private Process stockfishProcess;
     private BufferedReader reader;
     private BufferedWriter writer;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
     private boolean isReady = false;
 
     @PostConstruct
@@ -39,14 +46,14 @@ public class StockfishService {
         try {
             startEngine();
         } catch (Exception e) {
-            log.warn("Stockfish engine not available: {}. Analysis features will be disabled.", e.getMessage());
+            log.warn("Stockfish engine not available: {}. {}", e.getMessage(), fallbackEngineService.isAvailable()
+                    ? "Analysis will use the Java fallback engine." : "Analysis features will be disabled.");
         }
     }
 
     @PreDestroy
     public void cleanup() {
         stopEngine();
-        executor.shutdown();
     }
 
     private void startEngine() throws IOException {
@@ -99,28 +106,51 @@ public class StockfishService {
         }
     }
 
-    public CompletableFuture<GameMessage.AnalysisResult> analyzePosition(String fen, int depth) {
-        if (!isReady) {
+    public CompletableFuture<GameMessage.AnalysisResult> analyzePosition(
+            String fen, int depth, EngineJobScheduler.JobClass jobClass, String userId) {
+        // Book and tablebase positions are answered immediately, without queueing
+        GameMessage.AnalysisResult bookResult = openingBookService.analyze(fen);
+        if (bookResult != null) {
+            return CompletableFuture.completedFuture(bookResult);
+        }
+        GameMessage.AnalysisResult tablebaseResult = tablebaseService.analyze(fen);
+        if (tablebaseResult != null) {
+            return CompletableFuture.completedFuture(tablebaseResult);
+        }
+        if (!isAvailable()) {
             return CompletableFuture.completedFuture(null);
         }
 
-        return CompletableFuture.supplyAsync(() -> {
+        long submittedAt = System.nanoTime();
+        return engineJobScheduler.submit(jobClass, userId, () -> {
             try {
-                return performAnalysis(fen, depth > 0 ? depth : defaultDepth);
+                // Decided when the job starts, from the load at that moment
+                long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedAt);
+                AdaptiveSearchPolicy.SearchLimit limit = adaptiveSearchPolicy.choose(
+                        depth > 0 ? depth : defaultDepth, engineJobScheduler.queueDepth(), waitedMs);
+                if (!isReady) {
+                    GameMessage.AnalysisResult result = fallbackEngineService.analyze(fen, limit);
+                    adaptiveSearchPolicy.record(limit, result.getTimeMs());
+                    return result;
+                }
+                return performAnalysis(fen, limit);
             } catch (Exception e) {
                 log.error("Error analyzing position: {}", e.getMessage());
                 return null;
             }
-        }, executor);
+        });
     }
 
-    public CompletableFuture<GameMessage.AnalysisResult> analyzePosition(String fen) {
-        return analyzePosition(fen, defaultDepth);
+    public CompletableFuture<GameMessage.AnalysisResult> analyzePosition(
+            String fen, EngineJobScheduler.JobClass jobClass, String userId) {
+        return analyzePosition(fen, defaultDepth, jobClass, userId);
     }
 
-    private synchronized GameMessage.AnalysisResult performAnalysis(String fen, int depth) throws IOException {
+    private synchronized GameMessage.AnalysisResult performAnalysis(
+            String fen, AdaptiveSearchPolicy.SearchLimit limit) throws IOException {
+        long startedAt = System.nanoTime();
         sendCommand("position fen " + fen);
-        sendCommand("go depth " + depth);
+        sendCommand(limit.goCommand());
 
         GameMessage.AnalysisResult result = GameMessage.AnalysisResult.builder().build();
         String line;
@@ -129,10 +159,14 @@ public class StockfishService {
         String pv = "";
         String mate = null;
         int currentDepth = 0;
+        long nodes = 0;
+        long nodesPerSecond = 0;
 
         Pattern scorePattern = Pattern.compile("score (cp|mate) (-?\\d+)");
         Pattern pvPattern = Pattern.compile("pv (.+)");
-        Pattern depthPattern = Pattern.compile("depth (\\d+)");
+        Pattern depthPattern = Pattern.compile(" depth (\\d+)");
+        Pattern nodesPattern = Pattern.compile(" nodes (\\d+)");
+        Pattern npsPattern = Pattern.compile(" nps (\\d+)");
         Pattern bestMovePattern = Pattern.compile("bestmove (\\w+)");
 
         while ((line = reader.readLine()) != null) {
@@ -152,6 +186,16 @@ public class StockfishService {
                     currentDepth = Integer.parseInt(depthMatcher.group(1));
                 }
 
+                Matcher nodesMatcher = nodesPattern.matcher(line);
+                if (nodesMatcher.find()) {
+                    nodes = Long.parseLong(nodesMatcher.group(1));
+                }
+
+                Matcher npsMatcher = npsPattern.matcher(line);
+                if (npsMatcher.find()) {
+                    nodesPerSecond = Long.parseLong(npsMatcher.group(1));
+                }
+
                 Matcher scoreMatcher = scorePattern.matcher(line);
                 if (scoreMatcher.find()) {
                     String scoreType = scoreMatcher.group(1);
@@ -173,28 +217,44 @@ public class StockfishService {
             }
         }
 
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        adaptiveSearchPolicy.record(limit, elapsedMs);
+
         return GameMessage.AnalysisResult.builder()
                 .bestMove(bestMove)
                 .evaluation(evaluation)
                 .pv(pv)
                 .depth(currentDepth)
                 .mate(mate)
+                .nodes(nodes)
+                .nodesPerSecond(nodesPerSecond)
+                .timeMs(elapsedMs)
+                .limit(limit.goCommand().substring("go ".length()))
+                .engine("stockfish")
                 .build();
     }
 
     public CompletableFuture<String> getBestMove(String fen, int timeMs) {
-        if (!isReady) {
+        String bookMove = openingBookService.pickMove(fen);
+        if (bookMove != null) {
+            return CompletableFuture.completedFuture(bookMove);
+        }
+        String tablebaseMove = tablebaseService.getBestMove(fen);
+        if (tablebaseMove != null) {
+            return CompletableFuture.completedFuture(tablebaseMove);
+        }
+        if (!isAvailable()) {
             return CompletableFuture.completedFuture(null);
         }
 
-        return CompletableFuture.supplyAsync(() -> {
+        return engineJobScheduler.submit(EngineJobScheduler.JobClass.BATCH, null, () -> {
             try {
-                return performGetBestMove(fen, timeMs);
+                return isReady ? performGetBestMove(fen, timeMs) : fallbackEngineService.getBestMove(fen, timeMs);
             } catch (Exception e) {
                 log.error("Error getting best move: {}", e.getMessage());
                 return null;
             }
-        }, executor);
+        });
     }
 
     private synchronized String performGetBestMove(String fen, int timeMs) throws IOException {
@@ -217,10 +277,11 @@ public class StockfishService {
     }
 
     public boolean isAvailable() {
-        return isReady;
+        return isReady || fallbackEngineService.isAvailable();
     }
 
     public void newGame() {
+        fallbackEngineService.newGame();
         if (isReady) {
             try {
                 sendCommand("ucinewgame");
@@ -0,0 +1,142 @@
+package com.sachess.service;
+
+import com.sachess.dto.GameMessage;
+import com.sachess.engine.EndgameTables;
+import com.sachess.entity.Game;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Answers analysis of positions with at most three pieces straight from memory-mapped endgame tables,
+ * and optionally adjudicates games that reach them. Missing tables are generated once in the
+ * background and kept in {@code engine.tablebase.path}; until then every probe misses. Syzygy files
+ * in that directory are not read.
+ */
+@Service
+@Slf4j
+public class TablebaseService {
+
+    @Value("${engine.tablebase.enabled:true}")
+    private boolean enabled;
+
+    @Value("${engine.tablebase.path:data/tablebases}")
+    private String path;
+
+    @Value("${engine.tablebase.generate-missing:true}")
+    private boolean generateMissing;
+
+    @Value("${engine.tablebase.adjudicate:false}")
+    private boolean adjudicate;
+
+    private volatile EndgameTables tables;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                long startedAt = System.currentTimeMillis();
+                tables = EndgameTables.open(Path.of(path), generateMissing);
+                log.info("Endgame tables {} mapped from {} in {} ms",
+                        tables.available(), path, System.currentTimeMillis() - startedAt);
+                warnAboutSyzygyFiles();
+            } catch (Exception e) {
+                log.warn("Endgame tables not available: {}", e.getMessage());
+            }
+        });
+    }
+
+    // Someone may drop Syzygy files here expecting four- to six-piece coverage; they would be silently ignored
+    private void warnAboutSyzygyFiles() throws IOException {
+        if (!Files.isDirectory(Path.of(path))) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(Path.of(path))) {
+            long syzygy = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".rtbw") || name.endsWith(".rtbz"))
+                    .count();
+            if (syzygy > 0) {
+                log.warn("Ignoring {} Syzygy files in {}: only the built-in three-piece tables are probed", syzygy, path);
+            }
+        }
+    }
+
+    public GameMessage.AnalysisResult analyze(String fen) {
+        EndgameTables.Result result = probe(fen);
+        if (result == null) {
+            return null;
+        }
+
+        String mate = null;
+        int evaluation = 0;
+        if (result.wdl() != 0) {
+            // Plies to mate -> moves, negative when the side to move is getting mated
+            mate = String.valueOf(result.wdl() > 0 ? (result.pliesToMate() + 1) / 2 : -result.pliesToMate() / 2);
+            evaluation = result.wdl() > 0 ? 10000 : -10000;
+        }
+
+        return GameMessage.AnalysisResult.builder()
+                .bestMove(result.bestMove())
+                .evaluation(evaluation)
+                .pv(result.bestMove() != null ? result.bestMove() : "")
+                .depth(result.pliesToMate())
+                .mate(mate)
+                .limit("tablebase")
+                .engine("tablebase")
+                .build();
+    }
+
+    public String getBestMove(String fen) {
+        EndgameTables.Result result = probe(fen);
+        return result != null ? result.bestMove() : null;
+    }
+
+    /**
+     * Result of the game under best play, or null if adjudication is off, the position is not covered,
+     * or the fifty-move rule could intervene before the mate.
+     */
+    public Game.GameResult adjudicate(String fen) {
+        if (!adjudicate) {
+            return null;
+        }
+        EndgameTables.Result result = probe(fen);
+        if (result == null) {
+            return null;
+        }
+        if (result.wdl() == 0) {
+            return Game.GameResult.DRAW;
+        }
+        String[] parts = fen.split(" ");
+        // Distance-to-mate tables ignore the clock; leave it to play when the mate may not land in time
+        int halfmoveClock = parts.length > 4 ? Integer.parseInt(parts[4]) : 0;
+        if (halfmoveClock + result.pliesToMate() > 100) {
+            return null;
+        }
+        boolean whiteToMove = parts[1].equals("w");
+        return (result.wdl() > 0) == whiteToMove ? Game.GameResult.WHITE_WINS : Game.GameResult.BLACK_WINS;
+    }
+
+    private EndgameTables.Result probe(String fen) {
+        EndgameTables current = tables;
+        if (current == null) {
+            return null;
+        }
+        try {
+            return current.probe(fen);
+        } catch (Exception e) {
+            log.debug("Tablebase probe failed for {}: {}", fen, e.getMessage());
+            return null;
+        }
+    }
+}
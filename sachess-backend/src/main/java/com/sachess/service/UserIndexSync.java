@@ -0,0 +1,123 @@
+package com.sachess.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sachess.config.RelaySubscriber;
+import com.sachess.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the in-memory user indexes (leaderboard, username search) of every node in step. Changes
+ * are applied locally and, in relay mode, published to a broker topic the other nodes subscribe to.
+ * A node misses what is published while it is disconnected from the broker, so in relay mode it also
+ * rebuilds from the users table every {@code users.index.resync-interval-ms}; that interval bounds
+ * how stale another node's leaderboard or username search can be.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserIndexSync {
+
+    public static final String DESTINATION = "/topic/cluster/users";
+
+    private final LeaderboardIndex leaderboardIndex;
+    private final UsernameSearchIndex usernameSearchIndex;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final RelaySubscriber relaySubscriber;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Applies other nodes' changes in arrival order, off the broker connection's thread
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "user-index-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void subscribe() {
+        relaySubscriber.subscribe(DESTINATION, this::receive);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** These users were saved: their rating or profile may have changed. */
+    public void updated(Collection<User> users) {
+        List<LeaderboardIndex.Player> players = users.stream().map(LeaderboardIndex.Player::from).toList();
+        if (players.isEmpty()) {
+            return;
+        }
+        players.forEach(this::update);
+        publish(new Change(nodeId, false, players));
+    }
+
+    /** Many users changed at once (a rating recompute): every node reloads from the table. */
+    public void rebuildAll() {
+        rebuild();
+        publish(new Change(nodeId, true, List.of()));
+    }
+
+    @Scheduled(fixedDelayString = "${users.index.resync-interval-ms:300000}",
+            initialDelayString = "${users.index.resync-interval-ms:300000}")
+    public void resync() {
+        if (relaySubscriber.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    private void publish(Change change) {
+        if (relaySubscriber.isEnabled()) {
+            messagingTemplate.convertAndSend(DESTINATION, change);
+        }
+    }
+
+    void receive(byte[] body) {
+        Change change;
+        try {
+            change = objectMapper.readValue(body, Change.class);
+        } catch (IOException e) {
+            log.error("Ignoring malformed user index change: {}", e.getMessage());
+            return;
+        }
+        if (nodeId.equals(change.origin())) {
+            return;
+        }
+        executor.execute(() -> apply(change));
+    }
+
+    private void apply(Change change) {
+        if (change.rebuild()) {
+            rebuild();
+        } else {
+            change.players().forEach(this::update);
+        }
+    }
+
+    private void update(LeaderboardIndex.Player player) {
+        leaderboardIndex.update(player);
+        usernameSearchIndex.put(player.id(), player.username());
+    }
+
+    private void rebuild() {
+        leaderboardIndex.rebuild();
+        usernameSearchIndex.rebuild();
+    }
+
+    public record Change(String origin, boolean rebuild, List<LeaderboardIndex.Player> players) {}
+}
@@ -4,11 +4,14 @@ import com.sachess.dto.UserDTO;
 import com.sachess.entity.User;
 import com.sachess.repository.GameRepository;
 import com.sachess.repository.UserRepository;
+import com.sachess.security.VerifiedTokenCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,11 +20,17 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final GameRepository gameRepository;
+    private final PresenceService presenceService;
+    private final LeaderboardIndex leaderboardIndex;
+    private final UsernameSearchIndex usernameSearchIndex;
+    private final UserIndexSync userIndexSync;
+    private final VerifiedTokenCache tokenCache;
+    private final GameSnapshotCache gameSnapshotCache;
 
     public UserDTO getProfile(String userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        return UserDTO.fromUser(user);
+        return toDto(user);
     }
 
     public UserDTO updateProfile(String userId, String username, String avatar) {
@@ -40,42 +49,85 @@ public class UserService {
         }
 
         user = userRepository.save(user);
-        return UserDTO.fromUser(user);
-    }
-
-    public void setOnlineStatus(String userId, boolean online) {
-        userRepository.findById(userId).ifPresent(user -> {
-            user.setOnline(online);
-            user.setLastSeen(LocalDateTime.now());
-            userRepository.save(user);
-        });
+        userIndexSync.updated(List.of(user));
+        tokenCache.evictUser(user.getId());
+        gameSnapshotCache.invalidatePlayers(List.of(user.getId()));
+        return toDto(user);
     }
 
     public List<UserDTO> getOnlineUsers() {
-        return userRepository.findByIsOnlineTrue()
+        // Who is online comes from the presence registry; only profile data is read, by primary key
+        return userRepository.findAllById(presenceService.getOnlineUserIds())
                 .stream()
-                .map(UserDTO::fromUser)
+                .map(this::toDto)
                 .collect(Collectors.toList());
     }
 
     public List<UserDTO> getLeaderboard(int limit) {
-        return userRepository.findTopPlayers(limit)
+        return leaderboardIndex.top(limit)
                 .stream()
-                .map(UserDTO::fromUser)
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    public Map<String, Object> getRank(String userId) {
+        LeaderboardIndex.RankedPlayer ranked = leaderboardIndex.rankOf(userId);
+        if (ranked == null) {
+            throw new RuntimeException("User not found");
+        }
+        return Map.of(
+                "userId", userId,
+                "rating", ranked.player().rating(),
+                "rank", ranked.rank(),
+                "totalPlayers", leaderboardIndex.size()
+        );
+    }
+
+    public List<Map<String, Object>> getPlayersAround(String userId, int window) {
+        return leaderboardIndex.around(userId, window)
+                .stream()
+                .map(ranked -> Map.<String, Object>of("rank", ranked.rank(), "player", toDto(ranked)))
                 .collect(Collectors.toList());
     }
 
     public UserDTO getUserByUsername(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        return UserDTO.fromUser(user);
+        return toDto(user);
     }
 
-    public List<UserDTO> searchUsers(String query) {
-        return userRepository.findAll().stream()
-                .filter(u -> u.getUsername().toLowerCase().contains(query.toLowerCase()))
-                .limit(20)
-                .map(UserDTO::fromUser)
+    public List<UserDTO> searchUsers(String query, int limit) {
+        // The index narrows to at most `limit` ids, already in result order; only those rows are loaded
+        List<String> ids = usernameSearchIndex.search(query, limit);
+        Map<String, User> byId = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::toDto)
                 .collect(Collectors.toList());
     }
+
+    private UserDTO toDto(LeaderboardIndex.RankedPlayer ranked) {
+        LeaderboardIndex.Player player = ranked.player();
+        return UserDTO.builder()
+                .id(player.id())
+                .username(player.username())
+                .email(player.email())
+                .rating(player.rating())
+                .gamesPlayed(player.gamesPlayed())
+                .wins(player.wins())
+                .losses(player.losses())
+                .draws(player.draws())
+                .avatar(player.avatar())
+                .isOnline(presenceService.isOnline(player.id()))
+                .build();
+    }
+
+    private UserDTO toDto(User user) {
+        // The isOnline column lags behind by up to one presence flush
+        UserDTO dto = UserDTO.fromUser(user);
+        dto.setOnline(presenceService.isOnline(user.getId()));
+        return dto;
+    }
 }
@@ -0,0 +1,207 @@
+package com.sachess.service;
+
+import com.sachess.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Case-insensitive username lookup. Queries of three or more characters are answered from a
+ * trigram posting list (substring match); shorter queries use a sorted map (prefix match).
+ * A substring query checks at most {@code users.search.max-scan} candidates, so a very common
+ * trigram costs the same as a rare one; past the cap the results are the first matches in
+ * alphabetical order among the candidates checked, not among all users.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UsernameSearchIndex {
+
+    private final UserRepository userRepository;
+
+    @Value("${users.search.max-scan:5000}")
+    private int maxScan;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // userId -> lower-cased username
+    private final Map<String, String> usernames = new HashMap<>();
+
+    // lower-cased username -> user ids (usernames are unique, but only case-sensitively)
+    private final NavigableMap<String, Set<String>> byName = new TreeMap<>();
+
+    // trigram -> user ids whose username contains it
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+    // Renames applied while a rebuild reads the table; its snapshot may predate them, so they are reapplied
+    private final Map<String, String> putDuringRebuild = new HashMap<>();
+    private int rebuilding;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        rebuilding++;
+        lock.writeLock().unlock();
+
+        List<Object[]> rows = null;
+        try {
+            rows = userRepository.findAllUsernames();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // A failed read keeps the current index
+                if (rows != null) {
+                    usernames.clear();
+                    byName.clear();
+                    trigrams.clear();
+                    for (Object[] row : rows) {
+                        insert((String) row[0], (String) row[1]);
+                    }
+                    putDuringRebuild.forEach(this::replace);
+                }
+                if (--rebuilding == 0) {
+                    putDuringRebuild.clear();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Username index built with {} users", rows.size());
+    }
+
+    public void put(String userId, String username) {
+        lock.writeLock().lock();
+        try {
+            replace(userId, username);
+            if (rebuilding > 0) {
+                putDuringRebuild.put(userId, username);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> search(String query, int limit) {
+        String needle = query == null ? "" : query.trim().toLowerCase();
+        if (needle.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return needle.length() < 3 ? prefixSearch(needle, limit) : substringSearch(needle, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<String> prefixSearch(String prefix, int limit) {
+        List<String> result = new ArrayList<>(limit);
+        for (Set<String> ids : byName.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            for (String id : ids) {
+                result.add(id);
+                if (result.size() == limit) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<String> substringSearch(String needle, int limit) {
+        // Scan the rarest trigram's postings and verify each candidate
+        Set<String> candidates = null;
+        for (String trigram : trigramsOf(needle)) {
+            Set<String> postings = trigrams.get(trigram);
+            if (postings == null) {
+                return List.of();
+            }
+            if (candidates == null || postings.size() < candidates.size()) {
+                candidates = postings;
+            }
+        }
+
+        // Keep the `limit` alphabetically smallest matches; the heap head is the largest kept
+        Comparator<String> order = Comparator.comparing((String id) -> usernames.get(id))
+                .thenComparing(Comparator.naturalOrder());
+        PriorityQueue<String> best = new PriorityQueue<>(limit + 1, order.reversed());
+        int scanned = 0;
+        for (String id : candidates) {
+            if (++scanned > maxScan) {
+                break;
+            }
+            if (usernames.get(id).contains(needle)) {
+                best.add(id);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<String> result = new ArrayList<>(best);
+        result.sort(order);
+        return result;
+    }
+
+    private void replace(String userId, String username) {
+        // Rating updates pass through here too; most of them keep the name
+        if (username.toLowerCase().equals(usernames.get(userId))) {
+            return;
+        }
+        remove(userId);
+        insert(userId, username);
+    }
+
+    private void insert(String userId, String username) {
+        String name = username.toLowerCase();
+        usernames.put(userId, name);
+        byName.computeIfAbsent(name, n -> new HashSet<>()).add(userId);
+        for (String trigram : trigramsOf(name)) {
+            trigrams.computeIfAbsent(trigram, t -> new HashSet<>()).add(userId);
+        }
+    }
+
+    private void remove(String userId) {
+        String name = usernames.remove(userId);
+        if (name == null) {
+            return;
+        }
+        removePosting(byName, name, userId);
+        for (String trigram : trigramsOf(name)) {
+            removePosting(trigrams, trigram, userId);
+        }
+    }
+
+    private static void removePosting(Map<String, Set<String>> index, String key, String userId) {
+        Set<String> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(userId);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> trigramsOf(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(text.substring(i, i + 3));
+        }
+        return result;
+    }
+}
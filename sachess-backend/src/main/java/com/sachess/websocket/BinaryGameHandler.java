@@ -0,0 +1,281 @@
+package com.sachess.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sachess.config.RelaySubscriber;
+import com.sachess.dto.GameMessage;
+import com.sachess.dto.MoveRequest;
+import com.sachess.security.JwtHandshakeInterceptor;
+import com.sachess.service.GameService;
+import com.sachess.service.LagCompensationService;
+import com.sachess.service.PresenceService;
+import com.sachess.service.SpectatorFeedService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.IntStream;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BinaryGameHandler extends BinaryWebSocketHandler {
+
+    private static final String SPECTATOR_ATTRIBUTE = "spectator";
+
+    private final GameService gameService;
+    private final LagCompensationService lagCompensationService;
+    private final PresenceService presenceService;
+    private final RelaySubscriber relaySubscriber;
+    private final ObjectMapper objectMapper;
+
+    @Value("${spring.websocket.send-time-limit:20000}")
+    private int sendTimeLimit;
+
+    @Value("${spring.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${websocket.binary.fan-out-threads:4}")
+    private int fanOutThreads;
+
+    // Events are written off the mover's thread; each game sticks to one single-threaded lane so
+    // its frames keep their order
+    private ExecutorService[] fanOut;
+
+    // Thread-safe wrappers, keyed by session id
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    // gameId -> session ids receiving every event
+    private final Map<String, Set<String>> subscriptions = new ConcurrentHashMap<>();
+
+    // gameId -> session ids receiving coalesced snapshots
+    private final Map<String, Set<String>> spectators = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        fanOut = IntStream.range(0, Math.max(1, fanOutThreads))
+                .mapToObj(i -> Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "binary-fan-out-" + i);
+                    thread.setDaemon(true);
+                    return thread;
+                }))
+                .toArray(ExecutorService[]::new);
+    }
+
+    @Override
+    public void afterConnectionEstablished(@NonNull WebSocketSession session) {
+        boolean spectator = isSpectator(session);
+        session.getAttributes().put(SPECTATOR_ATTRIBUTE, spectator);
+
+        // Spectators lose frames when they fall behind instead of growing the buffer or being cut off
+        ConcurrentWebSocketSessionDecorator.OverflowStrategy overflow = spectator
+                ? ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP
+                : ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE;
+        sessions.put(session.getId(),
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit, sendBufferSizeLimit, overflow));
+
+        String playerId = (String) session.getAttributes().get(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE);
+        if (playerId != null) {
+            presenceService.sessionConnected(playerId, session.getId());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+        sessions.remove(session.getId());
+        for (Map<String, Set<String>> registry : List.of(subscriptions, spectators)) {
+            registry.entrySet().stream()
+                    .filter(entry -> entry.getValue().contains(session.getId()))
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(gameId -> unsubscribe(registry, gameId, session.getId()));
+        }
+
+        String playerId = (String) session.getAttributes().get(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE);
+        if (playerId != null) {
+            presenceService.sessionDisconnected(playerId, session.getId());
+        }
+        lagCompensationService.forgetSession(playerId, session.getId());
+    }
+
+    @Override
+    protected void handleBinaryMessage(@NonNull WebSocketSession session, @NonNull BinaryMessage message) {
+        ByteBuffer frame = message.getPayload();
+        try {
+            byte type = frame.get();
+            String gameId = BinaryProtocol.readGameId(frame);
+            String playerId = (String) session.getAttributes().get(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE);
+
+            switch (type) {
+                case BinaryProtocol.SUBSCRIBE -> subscribe(
+                        Boolean.TRUE.equals(session.getAttributes().get(SPECTATOR_ATTRIBUTE)) ? spectators : subscriptions,
+                        gameId, session.getId());
+                case BinaryProtocol.UNSUBSCRIBE -> {
+                    unsubscribe(subscriptions, gameId, session.getId());
+                    unsubscribe(spectators, gameId, session.getId());
+                }
+                case BinaryProtocol.PING -> {
+                    long clientTimestamp = frame.getLong();
+                    long token = playerId != null ? lagCompensationService.issueProbe(session.getId()) : 0L;
+                    send(session.getId(), BinaryProtocol.encodePong(clientTimestamp, token));
+                }
+                case BinaryProtocol.ECHO -> lagCompensationService.recordEcho(requirePlayer(playerId), session.getId(), frame.getLong());
+                case BinaryProtocol.MOVE -> gameService.makeMove(readMove(frame, gameId, requirePlayer(playerId)));
+                case BinaryProtocol.PREMOVE -> gameService.queuePremove(readMove(frame, gameId, requirePlayer(playerId)));
+                case BinaryProtocol.PREMOVE_CANCEL -> gameService.cancelPremoves(gameId, requirePlayer(playerId));
+                case BinaryProtocol.RESIGN -> gameService.resign(gameId, requirePlayer(playerId));
+                case BinaryProtocol.DRAW_OFFER -> gameService.offerDraw(gameId, requirePlayer(playerId));
+                case BinaryProtocol.DRAW_ACCEPT -> gameService.acceptDraw(gameId, requirePlayer(playerId));
+                case BinaryProtocol.DRAW_DECLINE -> gameService.declineDraw(gameId, requirePlayer(playerId));
+                default -> throw new IllegalArgumentException("Unknown frame type: " + type);
+            }
+        } catch (Exception e) {
+            log.debug("Error processing binary frame: {}", e.getMessage());
+            send(session.getId(), BinaryProtocol.encodeError(e.getMessage() != null ? e.getMessage() : "Bad frame"));
+        }
+    }
+
+    // After commit, so clients never see a move that rolls back; socket writes happen on a fan-out lane.
+    // With a relay, events from every node (this one included) arrive through the broker instead.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGameMessage(GameMessage message) {
+        if (!relaySubscriber.isEnabled()) {
+            dispatch(subscriptions, message);
+        }
+    }
+
+    @EventListener
+    public void onSpectatorSnapshot(SpectatorFeedService.SpectatorSnapshot snapshot) {
+        if (!relaySubscriber.isEnabled()) {
+            dispatch(spectators, snapshot.message());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : fanOut) {
+            lane.shutdown();
+        }
+    }
+
+    private void dispatch(Map<String, Set<String>> registry, GameMessage message) {
+        Set<String> subscribers = registry.get(message.getGameId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            fanOut[Math.floorMod(message.getGameId().hashCode(), fanOut.length)]
+                    .execute(() -> publish(registry, message));
+        } catch (RejectedExecutionException e) {
+            log.debug("Dropping binary event for {} during shutdown", message.getGameId());
+        }
+    }
+
+    private void publish(Map<String, Set<String>> registry, GameMessage message) {
+        Set<String> subscribers = registry.get(message.getGameId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+
+        // Encode once, share the frame across every subscriber
+        byte[] frame = BinaryProtocol.encodeEvent(message);
+        for (String sessionId : subscribers) {
+            send(sessionId, frame);
+        }
+    }
+
+    // Synchronized with unsubscribe so the broker subscription of a game can't be dropped while a
+    // session is joining it
+    private synchronized void subscribe(Map<String, Set<String>> registry, String gameId, String sessionId) {
+        registry.computeIfAbsent(gameId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        if (relaySubscriber.isEnabled()) {
+            // The same JSON the STOMP clients get; a no-op if the node already follows this game
+            relaySubscriber.subscribe(topicOf(registry, gameId), body -> onRelayed(registry, body));
+        }
+    }
+
+    private synchronized void unsubscribe(Map<String, Set<String>> registry, String gameId, String sessionId) {
+        Set<String> subscribers = registry.get(gameId);
+        if (subscribers != null) {
+            subscribers.remove(sessionId);
+            if (subscribers.isEmpty()) {
+                registry.remove(gameId, subscribers);
+                if (relaySubscriber.isEnabled()) {
+                    relaySubscriber.unsubscribe(topicOf(registry, gameId));
+                }
+            }
+        }
+    }
+
+    private String topicOf(Map<String, Set<String>> registry, String gameId) {
+        return registry == spectators ? "/topic/game/" + gameId + "/spectate" : "/topic/game/" + gameId;
+    }
+
+    private void onRelayed(Map<String, Set<String>> registry, byte[] body) {
+        GameMessage message;
+        try {
+            message = objectMapper.readValue(body, GameMessage.class);
+        } catch (IOException e) {
+            log.debug("Ignoring unreadable relayed game event: {}", e.getMessage());
+            return;
+        }
+        dispatch(registry, message);
+    }
+
+    private static boolean isSpectator(WebSocketSession session) {
+        if (session.getUri() == null) {
+            return false;
+        }
+        String mode = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("mode");
+        return "spectate".equals(mode);
+    }
+
+    private void send(String sessionId, byte[] frame) {
+        WebSocketSession session = sessions.get(sessionId);
+        if (session == null || !session.isOpen()) {
+            return;
+        }
+        try {
+            session.sendMessage(new BinaryMessage(frame));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Failed to send binary frame to {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private static MoveRequest readMove(ByteBuffer frame, String gameId, String playerId) {
+        return MoveRequest.builder()
+                .gameId(gameId)
+                .playerId(playerId)
+                .from(BinaryProtocol.readSquare(frame))
+                .to(BinaryProtocol.readSquare(frame))
+                .promotion(BinaryProtocol.readPromotion(frame))
+                .build();
+    }
+
+    private static String requirePlayer(String playerId) {
+        if (playerId == null) {
+            throw new RuntimeException("Authentication required");
+        }
+        return playerId;
+    }
+}
@@ -0,0 +1,149 @@
+package com.sachess.websocket;
+
+import com.sachess.dto.GameMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary framing used by the native /ws-binary endpoint.
+ *
+ * All integers are big-endian. Squares are encoded as one byte (a1 = 0 ... h8 = 63),
+ * promotions as one byte (0 = none, 1 = q, 2 = r, 3 = b, 4 = n), enums by ordinal
+ * with 0xFF meaning "absent". Strings carry a u8 (game id) or u16 (fen, text) length prefix.
+ *
+ * Connect with ?mode=spectate to receive coalesced snapshots instead of every event;
+ * a slow spectator has frames dropped rather than buffered.
+ *
+ * Client frames: [u8 type][str8 gameId][payload]
+ *   SUBSCRIBE / UNSUBSCRIBE / RESIGN / DRAW_* / PREMOVE_CANCEL : no payload
+ *   MOVE / PREMOVE : [u8 from][u8 to][u8 promotion]
+ *   PING : [i64 client timestamp] (game id is empty)
+ *   ECHO : [i64 probe token from PONG], sent back immediately (game id is empty)
+ *
+ * Server frames:
+ *   EVENT : [u8 type][u8 messageType][str8 gameId][u8 from][u8 to][u8 promotion]
+ *           [u8 status][u8 result][u8 turn][i32 whiteMs][i32 blackMs][str16 fen][str16 message]
+ *   PONG  : [u8 type][i64 echoed client timestamp][i64 probe token]
+ *   ERROR : [u8 type][str16 message]
+ */
+public final class BinaryProtocol {
+
+    // Client -> server
+    public static final byte SUBSCRIBE = 0x01;
+    public static final byte UNSUBSCRIBE = 0x02;
+    public static final byte MOVE = 0x03;
+    public static final byte RESIGN = 0x04;
+    public static final byte DRAW_OFFER = 0x05;
+    public static final byte DRAW_ACCEPT = 0x06;
+    public static final byte DRAW_DECLINE = 0x07;
+    public static final byte PING = 0x08;
+    public static final byte ECHO = 0x09;
+    public static final byte PREMOVE = 0x0A;
+    public static final byte PREMOVE_CANCEL = 0x0B;
+
+    // Server -> client
+    public static final byte EVENT = (byte) 0x81;
+    public static final byte PONG = (byte) 0x88;
+    public static final byte ERROR = (byte) 0xFF;
+
+    private static final int ABSENT = 0xFF;
+    private static final String PROMOTIONS = " qrbn";
+
+    private BinaryProtocol() {
+    }
+
+    public static String readGameId(ByteBuffer buffer) {
+        return readString8(buffer);
+    }
+
+    public static String readSquare(ByteBuffer buffer) {
+        int index = buffer.get() & 0xFF;
+        if (index > 63) {
+            throw new IllegalArgumentException("Invalid square index: " + index);
+        }
+        return "" + (char) ('a' + (index & 7)) + (char) ('1' + (index >> 3));
+    }
+
+    public static String readPromotion(ByteBuffer buffer) {
+        int code = buffer.get() & 0xFF;
+        return code > 0 && code < PROMOTIONS.length() ? String.valueOf(PROMOTIONS.charAt(code)) : null;
+    }
+
+    public static byte[] encodeEvent(GameMessage message) {
+        byte[] gameId = bytes(message.getGameId());
+        byte[] fen = bytes(message.getFen());
+        byte[] text = bytes(message.getMessage());
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 1 + gameId.length + 6 + 8 + 2 + fen.length + 2 + text.length);
+        buffer.put(EVENT);
+        buffer.put((byte) message.getType().ordinal());
+        buffer.put((byte) gameId.length).put(gameId);
+        buffer.put(encodeSquare(message.getFrom()));
+        buffer.put(encodeSquare(message.getTo()));
+        buffer.put(encodePromotion(message.getPromotion()));
+        buffer.put(ordinal(message.getStatus()));
+        buffer.put(ordinal(message.getResult()));
+        buffer.put(ordinal(message.getCurrentTurn()));
+        buffer.putInt((int) Math.min(Integer.MAX_VALUE, message.getWhiteTimeRemaining()));
+        buffer.putInt((int) Math.min(Integer.MAX_VALUE, message.getBlackTimeRemaining()));
+        buffer.putShort((short) fen.length).put(fen);
+        buffer.putShort((short) text.length).put(text);
+        return buffer.array();
+    }
+
+    public static byte[] encodePong(long clientTimestamp, long probeToken) {
+        return ByteBuffer.allocate(17)
+                .put(PONG)
+                .putLong(clientTimestamp)
+                .putLong(probeToken)
+                .array();
+    }
+
+    public static byte[] encodeError(String message) {
+        byte[] text = bytes(message);
+        return ByteBuffer.allocate(3 + text.length)
+                .put(ERROR)
+                .putShort((short) text.length)
+                .put(text)
+                .array();
+    }
+
+    private static String readString8(ByteBuffer buffer) {
+        int length = buffer.get() & 0xFF;
+        byte[] data = new byte[length];
+        buffer.get(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private static byte encodeSquare(String square) {
+        if (square == null || square.length() != 2) {
+            return (byte) ABSENT;
+        }
+        return (byte) ((square.charAt(0) - 'a') + (square.charAt(1) - '1') * 8);
+    }
+
+    private static byte encodePromotion(String promotion) {
+        if (promotion == null || promotion.isEmpty()) {
+            return 0;
+        }
+        int code = PROMOTIONS.indexOf(Character.toLowerCase(promotion.charAt(0)));
+        return (byte) Math.max(code, 0);
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return (byte) (value != null ? value.ordinal() : ABSENT);
+    }
+
+    private static byte[] bytes(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        // u16 length prefix; game ids and FENs are far below this
+        if (data.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long for binary frame");
+        }
+        return data;
+    }
+}
@@ -0,0 +1,178 @@
+package com.sachess.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two nodes configured by {@link WebSocketConfig} in relay mode, both attached to one embedded STOMP broker.
+ * A broadcast published on one node has to reach a client subscribed on the other.
+ */
+class BrokerRelayTest {
+
+    @Test
+    void broadcastFromOneNodeReachesSubscriberOnAnother() throws Exception {
+        try (EmbeddedStompBroker broker = new EmbeddedStompBroker()) {
+            Node publisher = new Node(broker.port());
+            Node subscriber = new Node(broker.port());
+            try {
+                publisher.start();
+                subscriber.start();
+
+                subscriber.connect("b1");
+                subscriber.subscribe("b1", "sub-0", "/topic/game/42");
+                assertTrue(broker.awaitSubscriptions(1), "subscription never reached the broker");
+
+                // No session id: the game services publish through the node's system connection
+                publisher.publish("/topic/game/42", "{\"move\":\"e2e4\"}");
+
+                Message<?> delivered = subscriber.nextFor("b1", StompCommand.MESSAGE);
+                assertNotNull(delivered, "message was not relayed to the other node");
+                StompHeaderAccessor headers = StompHeaderAccessor.wrap(delivered);
+                assertEquals("/topic/game/42", headers.getDestination());
+                assertEquals("sub-0", headers.getSubscriptionId());
+                assertEquals("{\"move\":\"e2e4\"}", new String((byte[]) delivered.getPayload(), StandardCharsets.UTF_8));
+            } finally {
+                publisher.stop();
+                subscriber.stop();
+            }
+        }
+    }
+
+    @Test
+    void connectsWithTheConfiguredCredentials() throws Exception {
+        try (EmbeddedStompBroker broker = new EmbeddedStompBroker()) {
+            Node node = new Node(broker.port());
+            try {
+                node.start();
+                node.connect("c1");
+
+                // System connection plus the client's own
+                assertTrue(broker.awaitConnects(2), "expected two broker connections");
+                for (Map<String, String> connect : broker.connects) {
+                    assertEquals("sachess", connect.get("login"));
+                    assertEquals("s3cret", connect.get("passcode"));
+                    assertEquals("/chess", connect.get("host"));
+                }
+            } finally {
+                node.stop();
+            }
+        }
+    }
+
+    /** One application node: the relay handler exactly as WebSocketConfig registers it. */
+    private static final class Node {
+
+        private final ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        private final ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        private final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        private final BlockingQueue<Message<?>> outbound = new LinkedBlockingQueue<>();
+        private final StompBrokerRelayMessageHandler relay;
+
+        Node(int brokerPort) {
+            WebSocketConfig config = new WebSocketConfig(null, null);
+            ReflectionTestUtils.setField(config, "relayEnabled", true);
+            ReflectionTestUtils.setField(config, "relayHost", "127.0.0.1");
+            ReflectionTestUtils.setField(config, "relayPort", brokerPort);
+            ReflectionTestUtils.setField(config, "relayLogin", "sachess");
+            ReflectionTestUtils.setField(config, "relayPasscode", "s3cret");
+            ReflectionTestUtils.setField(config, "relayVirtualHost", "/chess");
+
+            RelayRegistry registry = new RelayRegistry(clientInbound, clientOutbound);
+            config.configureMessageBroker(registry);
+            relay = registry.relay(brokerChannel);
+            clientOutbound.subscribe(outbound::add);
+        }
+
+        void start() throws InterruptedException {
+            relay.start();
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (!relay.isBrokerAvailable() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(relay.isBrokerAvailable(), "system session never connected");
+        }
+
+        void stop() {
+            relay.stop();
+        }
+
+        void connect(String sessionId) throws InterruptedException {
+            StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+            connect.setSessionId(sessionId);
+            connect.setSessionAttributes(new HashMap<>());
+            connect.setAcceptVersion("1.2");
+            connect.setHeartbeat(0, 0);
+            send(connect);
+            assertNotNull(nextFor(sessionId, StompCommand.CONNECTED), "client session never connected");
+        }
+
+        void subscribe(String sessionId, String subscriptionId, String destination) {
+            StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+            subscribe.setSessionId(sessionId);
+            subscribe.setSubscriptionId(subscriptionId);
+            subscribe.setDestination(destination);
+            send(subscribe);
+        }
+
+        void publish(String destination, String json) {
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setDestination(destination);
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            headers.setLeaveMutable(true);
+            relay.handleMessage(MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), headers.getMessageHeaders()));
+        }
+
+        Message<?> nextFor(String sessionId, StompCommand command) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            long remaining;
+            while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+                Message<?> message = outbound.poll(remaining, TimeUnit.MILLISECONDS);
+                if (message != null
+                        && sessionId.equals(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()))
+                        && command == StompHeaderAccessor.wrap(message).getCommand()) {
+                    return message;
+                }
+            }
+            return null;
+        }
+
+        private void send(StompHeaderAccessor headers) {
+            headers.setLeaveMutable(true);
+            relay.handleMessage(MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()));
+        }
+    }
+
+    private static final class RelayRegistry extends MessageBrokerRegistry {
+
+        RelayRegistry(SubscribableChannel clientInbound, MessageChannel clientOutbound) {
+            super(clientInbound, clientOutbound);
+        }
+
+        StompBrokerRelayMessageHandler relay(SubscribableChannel brokerChannel) {
+            return getStompBrokerRelay(brokerChannel);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.sachess.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Just enough of a STOMP 1.2 broker for the relay: CONNECT, SUBSCRIBE, SEND fanned out as MESSAGE
+ * to every matching subscription across connections, and DISCONNECT. Heart-beats are declined.
+ */
+public final class EmbeddedStompBroker implements AutoCloseable {
+
+    private final ServerSocket server = new ServerSocket(0);
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    public final List<Map<String, String>> connects = new CopyOnWriteArrayList<>();
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+    private final AtomicInteger messageIds = new AtomicInteger();
+
+    public EmbeddedStompBroker() throws IOException {
+        Thread acceptor = new Thread(this::accept, "stomp-broker-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    public boolean awaitSubscriptions(int count) throws InterruptedException {
+        return await(() -> subscriptions.size() >= count);
+    }
+
+    public boolean awaitConnects(int count) throws InterruptedException {
+        return await(() -> connects.size() >= count);
+    }
+
+    private boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                sockets.add(socket);
+                Thread reader = new Thread(() -> serve(new Connection(socket)), "stomp-broker-conn");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException closed) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Connection connection) {
+        try (Socket socket = connection.socket) {
+            InputStream in = socket.getInputStream();
+            for (Frame frame = Frame.read(in); frame != null; frame = Frame.read(in)) {
+                String id = frame.headers.get("id");
+                switch (frame.command) {
+                    case "CONNECT", "STOMP" -> {
+                        connects.add(frame.headers);
+                        connection.write("CONNECTED", Map.of("version", "1.2", "heart-beat", "0,0"), new byte[0]);
+                    }
+                    case "SUBSCRIBE" -> subscriptions.add(
+                            new Subscription(connection, id, frame.headers.get("destination")));
+                    case "UNSUBSCRIBE" -> subscriptions.removeIf(
+                            s -> s.connection == connection && s.id.equals(id));
+                    case "SEND" -> fanOut(frame);
+                    case "DISCONNECT" -> {
+                        return;
+                    }
+                    default -> { }
+                }
+            }
+        } catch (IOException closed) {
+            // Connection dropped; its subscriptions go with it
+        } finally {
+            subscriptions.removeIf(s -> s.connection == connection);
+        }
+    }
+
+    /** Delivers a message as if a client had sent it to the destination. */
+    public void publish(String destination, byte[] body) throws IOException {
+        fanOut(new Frame("SEND", Map.of("destination", destination), body));
+    }
+
+    public boolean awaitNoSubscriptions() throws InterruptedException {
+        return await(subscriptions::isEmpty);
+    }
+
+    private void fanOut(Frame send) throws IOException {
+        String destination = send.headers.get("destination");
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.destination.equals(destination)) {
+                continue;
+            }
+            Map<String, String> headers = new LinkedHashMap<>();
+            headers.put("destination", destination);
+            headers.put("subscription", subscription.id);
+            headers.put("message-id", String.valueOf(messageIds.incrementAndGet()));
+            if (send.headers.containsKey("content-type")) {
+                headers.put("content-type", send.headers.get("content-type"));
+            }
+            subscription.connection.write("MESSAGE", headers, send.body);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    private record Subscription(Connection connection, String id, String destination) {}
+
+    private static final class Connection {
+
+        private final Socket socket;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        synchronized void write(String command, Map<String, String> headers, byte[] body) throws IOException {
+            StringBuilder head = new StringBuilder(command).append('\n');
+            headers.forEach((name, value) -> head.append(name).append(':').append(value).append('\n'));
+            head.append("content-length:").append(body.length).append("\n\n");
+
+            OutputStream out = socket.getOutputStream();
+            out.write(head.toString().getBytes(StandardCharsets.UTF_8));
+            out.write(body);
+            out.write(0);
+            out.flush();
+        }
+    }
+
+    private record Frame(String command, Map<String, String> headers, byte[] body) {
+
+        /** Reads one frame, skipping heart-beat EOLs; null once the peer closes. */
+        static Frame read(InputStream in) throws IOException {
+            int b;
+            do {
+                b = in.read();
+            } while (b == '\n' || b == '\r');
+            if (b < 0) {
+                return null;
+            }
+
+            ByteArrayOutputStream raw = new ByteArrayOutputStream();
+            raw.write(b);
+            while ((b = in.read()) > 0) {
+                raw.write(b);
+            }
+            if (b < 0) {
+                return null;
+            }
+
+            byte[] bytes = raw.toByteArray();
+            int split = indexOf(bytes, "\n\n".getBytes(StandardCharsets.UTF_8));
+            String[] head = new String(bytes, 0, split, StandardCharsets.UTF_8).split("\r?\n");
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (int i = 1; i < head.length; i++) {
+                int colon = head[i].indexOf(':');
+                // First occurrence of a repeated header wins
+                headers.putIfAbsent(head[i].substring(0, colon), head[i].substring(colon + 1));
+            }
+            byte[] body = Arrays.copyOfRange(bytes, split + 2, bytes.length);
+            return new Frame(head[0], headers, body);
+        }
+
+        private static int indexOf(byte[] bytes, byte[] needle) {
+            outer:
+            for (int i = 0; i + needle.length <= bytes.length; i++) {
+                for (int j = 0; j < needle.length; j++) {
+                    if (bytes[i + j] != needle[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return bytes.length;
+        }
+    }
+}
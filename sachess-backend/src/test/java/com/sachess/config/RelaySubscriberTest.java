@@ -0,0 +1,73 @@
+package com.sachess.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RelaySubscriberTest {
+
+    @Test
+    void deliversMessagesPublishedToASubscribedTopic() throws Exception {
+        try (EmbeddedStompBroker broker = new EmbeddedStompBroker()) {
+            RelaySubscriber subscriber = subscriber(broker.port());
+            BlockingQueue<String> received = new LinkedBlockingQueue<>();
+            try {
+                subscriber.subscribe("/topic/cluster/users", body -> received.add(new String(body, StandardCharsets.UTF_8)));
+                subscriber.start();
+                assertTrue(broker.awaitSubscriptions(1), "never subscribed");
+
+                broker.publish("/topic/cluster/users", "{\"id\":\"u1\"}".getBytes(StandardCharsets.UTF_8));
+                broker.publish("/topic/other", "{}".getBytes(StandardCharsets.UTF_8));
+
+                assertEquals("{\"id\":\"u1\"}", received.poll(5, TimeUnit.SECONDS));
+                assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+                assertEquals("sachess", broker.connects.get(0).get("login"));
+            } finally {
+                subscriber.stop();
+            }
+        }
+    }
+
+    @Test
+    void subscribesAfterConnectingAndStopsOnUnsubscribe() throws Exception {
+        try (EmbeddedStompBroker broker = new EmbeddedStompBroker()) {
+            RelaySubscriber subscriber = subscriber(broker.port());
+            BlockingQueue<byte[]> received = new LinkedBlockingQueue<>();
+            try {
+                subscriber.start();
+                long deadline = System.currentTimeMillis() + 5_000;
+                while (!subscriber.isConnected() && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+
+                subscriber.subscribe("/topic/game/42", received::add);
+                assertTrue(broker.awaitSubscriptions(1), "never subscribed");
+                subscriber.unsubscribe("/topic/game/42");
+
+                assertTrue(broker.awaitNoSubscriptions(), "never unsubscribed");
+            } finally {
+                subscriber.stop();
+            }
+        }
+    }
+
+    private static RelaySubscriber subscriber(int port) {
+        RelaySubscriber subscriber = new RelaySubscriber();
+        ReflectionTestUtils.setField(subscriber, "relayEnabled", true);
+        ReflectionTestUtils.setField(subscriber, "relayHost", "127.0.0.1");
+        ReflectionTestUtils.setField(subscriber, "relayPort", port);
+        ReflectionTestUtils.setField(subscriber, "relayLogin", "sachess");
+        ReflectionTestUtils.setField(subscriber, "relayPasscode", "s3cret");
+        ReflectionTestUtils.setField(subscriber, "relayVirtualHost", "");
+        ReflectionTestUtils.setField(subscriber, "reconnectDelayMs", 100L);
+        return subscriber;
+    }
+}
@@ -0,0 +1,62 @@
+package com.sachess.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BoardPerftTest {
+
+    // Reference counts from the Chess Programming Wiki perft results
+    @Test
+    void startPosition() {
+        assertEquals(197_281L, perft(Board.START_FEN, 4));
+    }
+
+    @Test
+    void kiwipete() {
+        assertEquals(97_862L, perft("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 3));
+    }
+
+    @Test
+    void enPassantAndDiscoveredChecks() {
+        assertEquals(674_624L, perft("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5));
+    }
+
+    @Test
+    void promotionsAndCastlingRights() {
+        assertEquals(422_333L, perft("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4));
+    }
+
+    @Test
+    void promotionWithCheck() {
+        assertEquals(62_379L, perft("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 3));
+    }
+
+    @Test
+    void makeAndUnmakeRestoreTheKey() {
+        Board board = Board.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        long key = board.key();
+        perft(board, 3);
+        assertEquals(key, board.key());
+    }
+
+    private static long perft(String fen, int depth) {
+        return perft(Board.fromFen(fen), depth);
+    }
+
+    private static long perft(Board board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = new int[Board.MAX_MOVES];
+        int count = board.generateMoves(moves, false);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            if (board.makeMove(moves[i])) {
+                nodes += perft(board, depth - 1);
+                board.unmakeMove(moves[i]);
+            }
+        }
+        return nodes;
+    }
+}
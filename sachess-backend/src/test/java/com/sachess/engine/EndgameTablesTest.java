@@ -0,0 +1,80 @@
+package com.sachess.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EndgameTablesTest {
+
+    // Generating all three tables takes a few seconds, so they are built once for the class
+    private static final EndgameTables TABLES = generate();
+
+    @Test
+    void generatesEveryTable() {
+        assertEquals(java.util.Set.of("KPK", "KQK", "KRK"), TABLES.available());
+    }
+
+    @Test
+    void queenWinForTheSideToMove() {
+        EndgameTables.Result result = TABLES.probe("4k3/8/8/8/8/8/8/4K2Q w - - 0 1");
+        assertEquals(1, result.wdl());
+        assertEquals(13, result.pliesToMate());
+    }
+
+    @Test
+    void queenLossForTheDefender() {
+        EndgameTables.Result result = TABLES.probe("4k3/8/8/8/8/8/8/4K2Q b - - 0 1");
+        assertEquals(-1, result.wdl());
+        assertEquals(16, result.pliesToMate());
+    }
+
+    @Test
+    void rookMateInOne() {
+        EndgameTables.Result result = TABLES.probe("6k1/8/6K1/8/8/8/8/R7 w - - 0 1");
+        assertEquals(1, result.wdl());
+        assertEquals(1, result.pliesToMate());
+        assertEquals("a1a8", result.bestMove());
+    }
+
+    @Test
+    void pawnEndings() {
+        assertEquals(0, TABLES.probe("8/8/8/8/8/4k3/4P3/4K3 w - - 0 1").wdl());
+
+        EndgameTables.Result win = TABLES.probe("4k3/4p3/8/8/8/8/8/4K3 b - - 0 1");
+        assertEquals(1, win.wdl());
+        assertEquals(43, win.pliesToMate());
+    }
+
+    @Test
+    void stalemateIsADrawWithoutMoves() {
+        EndgameTables.Result result = TABLES.probe("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        assertEquals(0, result.wdl());
+        assertNull(result.bestMove());
+    }
+
+    @Test
+    void lossAgainstABlackQueen() {
+        EndgameTables.Result result = TABLES.probe("8/8/8/8/8/8/8/K1k4q w - - 0 1");
+        assertEquals(-1, result.wdl());
+        assertEquals(4, result.pliesToMate());
+    }
+
+    @Test
+    void uncoveredPositionsMiss() {
+        assertNull(TABLES.probe(Board.START_FEN));
+        assertNull(TABLES.probe("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1"));
+    }
+
+    private static EndgameTables generate() {
+        try {
+            return EndgameTables.open(Files.createTempDirectory("satb"), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
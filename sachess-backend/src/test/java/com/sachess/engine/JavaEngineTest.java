@@ -0,0 +1,27 @@
+package com.sachess.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JavaEngineTest {
+
+    @Test
+    void findsMateInOne() {
+        try (JavaEngine engine = new JavaEngine(1, 8)) {
+            JavaEngine.SearchResult result = engine.search("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", 6, 2000);
+            assertEquals("a1a8", result.bestMove());
+            assertEquals(Integer.valueOf(1), result.mateIn());
+        }
+    }
+
+    @Test
+    void returnsALegalMoveWithSeveralThreads() {
+        try (JavaEngine engine = new JavaEngine(2, 8)) {
+            JavaEngine.SearchResult result = engine.search(Board.START_FEN, 4, 2000);
+            assertTrue(Board.fromFen(Board.START_FEN).legalMoves().contains(result.bestMove()));
+            assertTrue(result.nodes() > 0);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.sachess.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PolyglotKeyTest {
+
+    // Test keys from the Polyglot book format specification
+    @Test
+    void startPosition() {
+        assertEquals(0x463b96181691fc9cL, key(""));
+    }
+
+    @Test
+    void castlingRightsAndEnPassant() {
+        assertEquals(0x823c9b50fd114196L, key("e2e4"));
+        assertEquals(0x0756b94461c50fb0L, key("e2e4 d7d5"));
+        assertEquals(0x662fafb965db29d4L, key("e2e4 d7d5 e4e5"));
+        assertEquals(0x22a48b5a8e47ff78L, key("e2e4 d7d5 e4e5 f7f5"));
+        assertEquals(0x652a607ca3f242c1L, key("e2e4 d7d5 e4e5 f7f5 e1e2"));
+        assertEquals(0x00fdd303c946bdd9L, key("e2e4 d7d5 e4e5 f7f5 e1e2 e8f7"));
+    }
+
+    @Test
+    void enPassantCaptureAndRookMove() {
+        assertEquals(0x3c8123ea7b067637L, key("a2a4 b7b5 h2h4 b5b4 c2c4"));
+        assertEquals(0x5c3f9b829b279560L, key("a2a4 b7b5 h2h4 b5b4 c2c4 b4c3 a1a3"));
+    }
+
+    private static long key(String moves) {
+        Board board = Board.fromFen(Board.START_FEN);
+        for (String move : moves.split(" ")) {
+            if (!move.isEmpty()) {
+                board.makeUciMove(move);
+            }
+        }
+        return PolyglotKey.hash(board);
+    }
+}
@@ -0,0 +1,100 @@
+package com.sachess.security;
+
+import com.sachess.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Per-request cost of resolving a bearer token in the authentication filter: a cache miss (one verified
+ * parse plus the user lookup) next to a cache hit. The lookup is an in-memory stub, so the miss figure
+ * leaves out the database round trip it costs in production. Numbers are printed; the assertions only
+ * check that hits skip the lookup and resolve the same user.
+ */
+class TokenAuthenticatorBenchmarkTest {
+
+    private static final int TOKENS = 200;
+    private static final int REQUESTS = 20_000;
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private JwtService jwtService;
+    private VerifiedTokenCache tokenCache;
+    private TokenAuthenticator authenticator;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", "U2FDaGVzc1NlY3JldEtleUZvckpXVFRva2VuR2VuZXJhdGlvbk11c3RCZUF0TGVhc3QyNTZCaXRzTG9uZw==");
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3_600_000L);
+        jwtService.init();
+
+        tokenCache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(tokenCache, "maxSize", 10_000);
+        ReflectionTestUtils.setField(tokenCache, "ttlMs", 300_000L);
+
+        authenticator = new TokenAuthenticator(jwtService, username -> {
+            lookups.incrementAndGet();
+            return User.builder().id("id-" + username).username(username).role(User.Role.USER).build();
+        }, tokenCache);
+    }
+
+    @Test
+    void costPerRequest() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < TOKENS; i++) {
+            tokens.add(jwtService.generateToken(User.builder().username("player" + i).build()));
+        }
+
+        // Warm up both paths before measuring
+        for (int i = 0; i < REQUESTS; i++) {
+            String token = tokens.get(i % TOKENS);
+            tokenCache.evictUser("id-player" + (i % TOKENS));
+            authenticator.authenticate(token);
+            authenticator.authenticate(token);
+        }
+
+        long[] missNanos = new long[REQUESTS];
+        long[] hitNanos = new long[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            String token = tokens.get(i % TOKENS);
+            tokenCache.evictUser("id-player" + (i % TOKENS));
+
+            long started = System.nanoTime();
+            UserDetails missed = authenticator.authenticate(token);
+            missNanos[i] = System.nanoTime() - started;
+
+            int lookupsBefore = lookups.get();
+            started = System.nanoTime();
+            UserDetails hit = authenticator.authenticate(token);
+            hitNanos[i] = System.nanoTime() - started;
+
+            assertEquals(lookupsBefore, lookups.get());
+            assertEquals(missed.getUsername(), hit.getUsername());
+        }
+
+        double miss = percentile(missNanos, 50);
+        double hit = percentile(hitNanos, 50);
+        assertTrue(hit < miss, hit + " vs " + miss);
+
+        System.out.printf("token authentication: %d requests over %d tokens%n", REQUESTS, TOKENS);
+        System.out.printf("  cache miss  p50 %6.1f us  p99 %6.1f us  (parse + stubbed lookup)%n",
+                miss / 1e3, percentile(missNanos, 99) / 1e3);
+        System.out.printf("  cache hit   p50 %6.1f us  p99 %6.1f us%n",
+                hit / 1e3, percentile(hitNanos, 99) / 1e3);
+    }
+
+    private static double percentile(long[] values, int percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+}
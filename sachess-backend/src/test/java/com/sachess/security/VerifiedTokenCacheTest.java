@@ -0,0 +1,84 @@
+package com.sachess.security;
+
+import com.sachess.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VerifiedTokenCacheTest {
+
+    private final VerifiedTokenCache cache = new VerifiedTokenCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+    }
+
+    @Test
+    void returnsADetachedCopyOfTheIdentity() {
+        User user = user("u1", "alice");
+        cache.put("t1", user, far());
+
+        user.setUsername("mallory");
+        user.setRole(User.Role.ADMIN);
+
+        User cached = cache.get("t1");
+        assertNotSame(user, cached);
+        assertEquals("u1", cached.getId());
+        assertEquals("alice", cached.getUsername());
+        assertEquals(User.Role.USER, cached.getRole());
+
+        cached.setUsername("changed");
+        assertEquals("alice", cache.get("t1").getUsername());
+    }
+
+    @Test
+    void neverOutlivesTheToken() {
+        cache.put("t1", user("u1", "alice"), System.currentTimeMillis() - 1);
+        assertNull(cache.get("t1"));
+    }
+
+    @Test
+    void evictsEveryTokenOfAnUpdatedUser() {
+        cache.put("t1", user("u1", "alice"), far());
+        cache.put("t2", user("u1", "alice"), far());
+        cache.put("t3", user("u2", "bob"), far());
+
+        cache.evictUser("u1");
+
+        assertNull(cache.get("t1"));
+        assertNull(cache.get("t2"));
+        assertNotNull(cache.get("t3"));
+    }
+
+    @Test
+    void evictsTheSoonestToExpireWhenFull() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            // t0 expires last, t9 first
+            cache.put("t" + i, user("u" + i, "user" + i), now + 50_000 - i * 1_000L);
+        }
+
+        cache.put("new", user("u10", "user10"), far());
+
+        assertEquals(10, cache.size());
+        assertNull(cache.get("t9"));
+        assertNotNull(cache.get("t0"));
+        assertNotNull(cache.get("t8"));
+        assertNotNull(cache.get("new"));
+    }
+
+    private static User user(String id, String username) {
+        return User.builder().id(id).username(username).email(username + "@example.com").password("x").build();
+    }
+
+    private static long far() {
+        return System.currentTimeMillis() + 3_600_000L;
+    }
+}
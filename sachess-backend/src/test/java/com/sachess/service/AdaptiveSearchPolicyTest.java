@@ -0,0 +1,35 @@
+package com.sachess.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveSearchPolicyTest {
+
+    private final AdaptiveSearchPolicy policy = new AdaptiveSearchPolicy();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(policy, "latencySloMs", 2000L);
+        ReflectionTestUtils.setField(policy, "minMovetimeMs", 100L);
+    }
+
+    @Test
+    void depthBoundedSearchesAreCappedByTheRemainingBudget() {
+        AdaptiveSearchPolicy.SearchLimit limit = policy.choose(18, 0, 500);
+
+        assertEquals("go depth 18 movetime 1500", limit.goCommand());
+    }
+
+    @Test
+    void latencyIsTrackedPerRequestedDepth() {
+        // Deep searches blow the budget, shallow ones do not
+        policy.record(policy.choose(24, 0, 0), 5000);
+        policy.record(policy.choose(12, 0, 0), 200);
+
+        assertEquals("go movetime 2000", policy.choose(24, 0, 0).goCommand());
+        assertEquals("go depth 12 movetime 2000", policy.choose(12, 0, 0).goCommand());
+    }
+}
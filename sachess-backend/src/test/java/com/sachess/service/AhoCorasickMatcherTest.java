@@ -0,0 +1,74 @@
+package com.sachess.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AhoCorasickMatcherTest {
+
+    @Test
+    void reportsOverlappingAndNestedTerms() {
+        AhoCorasickMatcher matcher = new AhoCorasickMatcher(List.of("he", "she", "his", "hers"));
+
+        // "ushers": she at 1..4, he at 2..4, hers at 2..6
+        assertEquals(Set.of("1-4", "2-4", "2-6"), matches(matcher, "ushers"));
+    }
+
+    @Test
+    void followsFailureLinksAcrossPartialMatches() {
+        AhoCorasickMatcher matcher = new AhoCorasickMatcher(List.of("abcd", "bce"));
+        assertEquals(Set.of("1-4"), matches(matcher, "abce"));
+    }
+
+    @Test
+    void ignoresEmptyTerms() {
+        AhoCorasickMatcher matcher = new AhoCorasickMatcher(List.of("", "a"));
+        assertEquals(1, matcher.size());
+        assertEquals(Set.of("0-1", "2-3"), matches(matcher, "aba"));
+    }
+
+    @Test
+    void agreesWithANaiveScan() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            List<String> terms = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(8); i++) {
+                terms.add(randomText(random, 1 + random.nextInt(4)));
+            }
+            String text = randomText(random, random.nextInt(40));
+
+            assertEquals(naive(terms, text), matches(new AhoCorasickMatcher(terms), text), terms + " in " + text);
+        }
+    }
+
+    private static Set<String> matches(AhoCorasickMatcher matcher, String text) {
+        Set<String> found = new TreeSet<>();
+        matcher.forEachMatch(text, (start, end) -> found.add(start + "-" + end));
+        return found;
+    }
+
+    private static Set<String> naive(List<String> terms, String text) {
+        Set<String> found = new TreeSet<>();
+        for (String term : terms) {
+            for (int i = text.indexOf(term); i >= 0; i = text.indexOf(term, i + 1)) {
+                found.add(i + "-" + (i + term.length()));
+            }
+        }
+        return found;
+    }
+
+    // A three-letter alphabet keeps overlaps frequent
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(3)));
+        }
+        return text.toString();
+    }
+}
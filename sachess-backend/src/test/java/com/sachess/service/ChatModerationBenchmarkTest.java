@@ -0,0 +1,107 @@
+package com.sachess.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cost of filtering one chat message as the word list grows, for the Aho-Corasick filter and for the
+ * single alternation regex it replaced. Numbers are printed; the assertions only check that both
+ * mask the same planted term.
+ */
+class ChatModerationBenchmarkTest {
+
+    private static final int[] LIST_SIZES = {10, 100, 1_000, 10_000};
+    private static final int MESSAGES = 2_000;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void costPerMessageByListSize() throws Exception {
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            messages.add(sentence(8 + random.nextInt(12)));
+        }
+
+        System.out.printf("chat moderation: %d messages per list size%n", MESSAGES);
+        for (int size : LIST_SIZES) {
+            List<String> terms = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                terms.add(word(5 + random.nextInt(6)) + "q");
+            }
+            String planted = "a " + terms.get(size / 2) + " b";
+
+            ChatModerationFilter filter = filter(terms);
+            Pattern regex = Pattern.compile("\\b(" + terms.stream().map(Pattern::quote).collect(Collectors.joining("|")) + ")\\b",
+                    Pattern.CASE_INSENSITIVE);
+            assertEquals("a *** b", filter.filter(planted));
+            assertEquals("a *** b", regex.matcher(planted).replaceAll("***"));
+
+            long[] automatonNanos = measure(messages, filter::filter);
+            long[] regexNanos = measure(messages, message -> regex.matcher(message).replaceAll("***"));
+
+            System.out.printf("  %6d terms  aho-corasick p50 %7.2f us  p99 %7.2f us   regex p50 %8.2f us  p99 %8.2f us%n",
+                    size, percentile(automatonNanos, 50) / 1e3, percentile(automatonNanos, 99) / 1e3,
+                    percentile(regexNanos, 50) / 1e3, percentile(regexNanos, 99) / 1e3);
+        }
+    }
+
+    private ChatModerationFilter filter(List<String> terms) throws Exception {
+        Path wordList = Files.createTempFile("blocked-words", ".txt");
+        wordList.toFile().deleteOnExit();
+        Files.write(wordList, terms);
+        ChatModerationFilter filter = new ChatModerationFilter(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(filter, "wordListLocation", wordList.toUri().toString());
+        filter.init();
+        return filter;
+    }
+
+    private static long[] measure(List<String> messages, UnaryOperator<String> filter) {
+        // One warm-up pass, then one measured pass
+        for (String message : messages) {
+            filter.apply(message);
+        }
+        long[] nanos = new long[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            long started = System.nanoTime();
+            filter.apply(messages.get(i));
+            nanos[i] = System.nanoTime() - started;
+        }
+        return nanos;
+    }
+
+    private String sentence(int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            sentence.append(i == 0 ? "" : " ").append(word(2 + random.nextInt(7)));
+        }
+        return sentence.toString();
+    }
+
+    // Random words never end in 'q', so only planted terms match
+    private String word(int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(16));
+        }
+        return new String(chars);
+    }
+
+    private static double percentile(long[] values, int percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+}
@@ -0,0 +1,66 @@
+package com.sachess.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChatModerationFilterTest {
+
+    private Path wordList;
+    private ChatModerationFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        wordList = Files.createTempFile("blocked-words", ".txt");
+        Files.writeString(wordList, "# comment\nbadword\n\nrude\n");
+        filter = new ChatModerationFilter(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(filter, "wordListLocation", wordList.toUri().toString());
+        filter.init();
+    }
+
+    @Test
+    void masksWholeWordsIgnoringCase() {
+        assertEquals("that was *** of you", filter.filter("that was RUDE of you"));
+        assertEquals("***, ***!", filter.filter("badword, rude!"));
+    }
+
+    @Test
+    void masksLeetspeakVariants() {
+        assertEquals("so *** today", filter.filter("so rud3 today"));
+        assertEquals("*** move", filter.filter("b4dw0rd move"));
+        assertEquals("what a ***", filter.filter("what a B@DW0RD"));
+    }
+
+    @Test
+    void leavesWordsThatOnlyContainATerm() {
+        assertEquals("crude oil", filter.filter("crude oil"));
+        assertEquals("rudeness", filter.filter("rudeness"));
+        assertEquals("good game", filter.filter("good game"));
+    }
+
+    @Test
+    void picksUpAChangedList() throws Exception {
+        assertEquals("blunder", filter.filter("blunder"));
+
+        Files.writeString(wordList, "blunder\n");
+        Files.setLastModifiedTime(wordList, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        filter.reloadIfChanged();
+
+        assertEquals("***", filter.filter("blunder"));
+        assertEquals("rude", filter.filter("rude"));
+    }
+
+    @Test
+    void keepsThePreviousListWhenTheFileDisappears() throws Exception {
+        Files.delete(wordList);
+        filter.reload();
+        assertEquals("***", filter.filter("rude"));
+    }
+}
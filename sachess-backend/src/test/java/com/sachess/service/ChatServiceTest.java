@@ -0,0 +1,161 @@
+package com.sachess.service;
+
+import com.sachess.dto.ChatMessageDTO;
+import com.sachess.entity.ChatMessage;
+import com.sachess.repository.ChatMessageRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatServiceTest {
+
+    private final FakeTransactions transactions = new FakeTransactions();
+    // Stands in for the table: what findTop50ByGameIdOrderByTimestampDesc returns, newest first
+    private final List<ChatMessage> stored = new ArrayList<>();
+    private ChatService chatService;
+
+    @BeforeEach
+    void setUp() {
+        ChatMessageRepository repository = (ChatMessageRepository) Proxy.newProxyInstance(
+                ChatMessageRepository.class.getClassLoader(), new Class<?>[]{ChatMessageRepository.class},
+                (proxy, method, args) -> method.getName().equals("findTop50ByGameIdOrderByTimestampDesc")
+                        ? new ArrayList<>(stored) : null);
+        chatService = new ChatService(repository, new SimpMessagingTemplate((message, timeout) -> true), transactions, null);
+        ReflectionTestUtils.setField(chatService, "entityManager", Proxy.newProxyInstance(
+                EntityManager.class.getClassLoader(), new Class<?>[]{EntityManager.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("persist")) {
+                        transactions.staged.add((ChatMessage) args[0]);
+                    }
+                    return null;
+                }));
+        // No backoff between retries
+        ReflectionTestUtils.setField(chatService, "flushIntervalMs", 0L);
+        ReflectionTestUtils.setField(chatService, "maxAttempts", 3);
+    }
+
+    @Test
+    void badMessageIsHeldBackWithoutBlockingTheBatch() {
+        List<ChatMessage> messages = queue(5);
+        transactions.poison.add(messages.get(2).getId());
+
+        chatService.flush();
+
+        assertEquals(4, transactions.committed.size());
+        assertTrue(transactions.committed.stream().noneMatch(m -> m.getId().equals(messages.get(2).getId())));
+        assertEquals(1, retries().size());
+    }
+
+    @Test
+    void dropsAMessageAfterMaxAttempts() {
+        List<ChatMessage> messages = queue(3);
+        transactions.poison.add(messages.get(0).getId());
+
+        chatService.flush(); // batch, then attempt 1
+        chatService.flush(); // attempt 2
+        assertEquals(1, retries().size());
+        chatService.flush(); // attempt 3: dropped
+
+        assertEquals(0, retries().size());
+        assertEquals(2, transactions.committed.size());
+    }
+
+    @Test
+    void keepsEverythingThroughAShortOutage() {
+        queue(4);
+        transactions.down = true;
+        chatService.flush();
+        chatService.flush();
+        assertEquals(0, transactions.committed.size());
+
+        transactions.down = false;
+        chatService.flush();
+
+        assertEquals(4, transactions.committed.size());
+        assertEquals(0, retries().size());
+    }
+
+    @Test
+    void readingAnUnknownGameDoesNotCreateARing() {
+        stored.add(message("from the database", LocalDateTime.now()));
+
+        List<ChatMessageDTO> recent = chatService.getRecentMessages("g9");
+
+        assertEquals(1, recent.size());
+        assertTrue(rings().isEmpty());
+    }
+
+    @Test
+    void relayModeMergesTheDatabaseWithLocalUnflushedMessages() {
+        ReflectionTestUtils.setField(chatService, "relayEnabled", true);
+        chatService.sendSystemMessage("g1", "sent here, not flushed", ChatMessage.MessageType.CHAT);
+        // Sent on another node and already flushed there
+        stored.add(message("sent elsewhere", LocalDateTime.now().minusSeconds(1)));
+
+        List<ChatMessageDTO> recent = chatService.getRecentMessages("g1");
+
+        assertEquals(List.of("sent elsewhere", "sent here, not flushed"),
+                recent.stream().map(ChatMessageDTO::getContent).toList());
+    }
+
+    private ChatMessage message(String content, LocalDateTime timestamp) {
+        return ChatMessage.builder().id(UUID.randomUUID().toString())
+                .gameId("g1").senderId("u1").senderUsername("alice").content(content).timestamp(timestamp).build();
+    }
+
+    private Map<?, ?> rings() {
+        return (Map<?, ?>) ReflectionTestUtils.getField(chatService, "rings");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ChatMessage> queue(int count) {
+        Queue<ChatMessage> unsaved = (Queue<ChatMessage>) ReflectionTestUtils.getField(chatService, "unsaved");
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChatMessage message = ChatMessage.builder()
+                    .gameId("g1").senderId("u1").senderUsername("alice").content("hi " + i).build();
+            messages.add(message);
+            unsaved.add(message);
+        }
+        return messages;
+    }
+
+    private Queue<?> retries() {
+        return (Queue<?>) ReflectionTestUtils.getField(chatService, "retries");
+    }
+
+    /** Commits what was persisted unless the database is down or a poisoned message is in the transaction. */
+    private static class FakeTransactions extends TransactionTemplate {
+        final List<ChatMessage> staged = new ArrayList<>();
+        final List<ChatMessage> committed = new ArrayList<>();
+        final Set<String> poison = new HashSet<>();
+        boolean down;
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            staged.clear();
+            T result = action.doInTransaction(null);
+            if (down || staged.stream().anyMatch(m -> poison.contains(m.getId()))) {
+                throw new IllegalStateException("insert failed");
+            }
+            committed.addAll(staged);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.sachess.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EngineJobSchedulerTest {
+
+    private final EngineJobScheduler scheduler = new EngineJobScheduler();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scheduler, "maxPerUser", 2);
+        ReflectionTestUtils.setField(scheduler, "interactiveDeadlineMs", 60_000L);
+        ReflectionTestUtils.setField(scheduler, "spectatorDeadlineMs", 60_000L);
+        ReflectionTestUtils.setField(scheduler, "batchDeadlineMs", 60_000L);
+        scheduler.start();
+    }
+
+    @Test
+    void rejectsBeyondThePerUserCap() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = scheduler.submit(EngineJobScheduler.JobClass.INTERACTIVE, "alice", () -> {
+            release.await();
+            return 1;
+        });
+        CompletableFuture<Integer> second = scheduler.submit(EngineJobScheduler.JobClass.INTERACTIVE, "alice", () -> 2);
+        CompletableFuture<Integer> third = scheduler.submit(EngineJobScheduler.JobClass.INTERACTIVE, "alice", () -> 3);
+        // Someone else's cap is separate
+        CompletableFuture<Integer> other = scheduler.submit(EngineJobScheduler.JobClass.INTERACTIVE, "bob", () -> 4);
+
+        assertThrows(ExecutionException.class, () -> third.get(1, TimeUnit.SECONDS));
+        release.countDown();
+        assertEquals(Integer.valueOf(1), first.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(2), second.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(4), other.get(5, TimeUnit.SECONDS));
+        scheduler.stop();
+    }
+
+    @Test
+    void capHoldsWhileJobsCompleteConcurrently() throws Exception {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        // Submitters race the worker's decrement; an orphaned counter would let a third job in
+        for (int i = 0; i < 5_000; i++) {
+            futures.add(scheduler.submit(EngineJobScheduler.JobClass.INTERACTIVE, "alice", () -> 0));
+            Map<?, ?> pending = (Map<?, ?>) ReflectionTestUtils.getField(scheduler, "pendingPerUser");
+            Object count = pending.get("alice");
+            assertTrue(count == null || (Integer) count <= 2, "pending " + count);
+        }
+        for (CompletableFuture<Integer> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException rejected) {
+                // Over the cap at submit time
+            }
+        }
+
+        Map<?, ?> pending = (Map<?, ?>) ReflectionTestUtils.getField(scheduler, "pendingPerUser");
+        assertTrue(pending.isEmpty(), "counters left behind: " + pending);
+        scheduler.stop();
+    }
+}
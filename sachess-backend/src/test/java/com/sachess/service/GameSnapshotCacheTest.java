@@ -0,0 +1,68 @@
+package com.sachess.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sachess.dto.GameDTO;
+import com.sachess.dto.GameMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameSnapshotCacheTest {
+
+    private final GameSnapshotCache cache = new GameSnapshotCache(new ObjectMapper());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+    }
+
+    @Test
+    void versionsNeverGoBackwardsAcrossGameEnd() {
+        long before = cache.get("g1", () -> game(1000)).version();
+        cache.onGameMessage(GameMessage.builder().gameId("g1").type(GameMessage.MessageType.GAME_END).build());
+        long after = cache.get("g1", () -> game(1000)).version();
+
+        assertTrue(after > before, before + " then " + after);
+    }
+
+    @Test
+    void ratingFlushDropsSnapshotsOfThePlayers() {
+        cache.get("g1", () -> game(1000));
+        cache.get("g1", () -> game(1000));
+        assertEquals(1, loads.get());
+
+        cache.invalidatePlayers(List.of("white"));
+
+        String body = new String(cache.get("g1", () -> game(1016)).body());
+        assertEquals(2, loads.get());
+        assertTrue(body.contains("1016"), body);
+    }
+
+    @Test
+    void loadRacingAChangeIsNotKept() {
+        cache.get("g1", () -> {
+            // The rating flush lands while this reader still holds the old row
+            cache.invalidatePlayers(List.of("black"));
+            return game(1000);
+        });
+        cache.get("g1", () -> game(1000));
+
+        assertEquals(2, loads.get());
+    }
+
+    private GameDTO game(int whiteRating) {
+        loads.incrementAndGet();
+        return GameDTO.builder()
+                .id("g1")
+                .whitePlayer(GameDTO.PlayerInfo.builder().id("white").username("alice").rating(whiteRating).build())
+                .blackPlayer(GameDTO.PlayerInfo.builder().id("black").username("bob").rating(1200).build())
+                .build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.sachess.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LagCompensationServiceTest {
+
+    private final LagCompensationService service = new LagCompensationService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxPerMoveMs", 500L);
+        ReflectionTestUtils.setField(service, "quotaInitialMs", 1000L);
+        ReflectionTestUtils.setField(service, "quotaGainMs", 100L);
+        ReflectionTestUtils.setField(service, "quotaMaxMs", 2000L);
+    }
+
+    @Test
+    void smoothsAJitteryRoundTrip() throws Exception {
+        // 40ms link with +-20ms of jitter
+        new JitteryClient("alice", "s1", 40, 20, new Random(7)).ping(15);
+
+        long rtt = service.getRoundTripMs("alice");
+        assertTrue(rtt >= 20 && rtt <= 100, "smoothed rtt " + rtt);
+    }
+
+    @Test
+    void creditsAtMostHalfTheRoundTripWithinTheQuota() throws Exception {
+        new JitteryClient("alice", "s1", 60, 0, new Random(1)).ping(5);
+        long oneWay = service.getRoundTripMs("alice") / 2;
+
+        assertEquals(oneWay, service.compensate("g1", true, "alice", 5_000));
+        // Never more than the move actually took
+        assertEquals(10, service.compensate("g1", true, "alice", 10));
+        // Nothing for a user who never answered a probe
+        assertEquals(0, service.compensate("g1", false, "bob", 5_000));
+    }
+
+    @Test
+    void drainsTheQuotaUnderSustainedLag() throws Exception {
+        ReflectionTestUtils.setField(service, "quotaInitialMs", 100L);
+        ReflectionTestUtils.setField(service, "quotaGainMs", 10L);
+        new JitteryClient("alice", "s1", 200, 0, new Random(1)).ping(3);
+
+        long total = 0;
+        for (int move = 0; move < 20; move++) {
+            total += service.compensate("g1", true, "alice", 5_000);
+        }
+        // Initial quota plus the gain of every move but the last
+        assertTrue(total <= 100 + 19 * 10, "credited " + total);
+    }
+
+    @Test
+    void ignoresReplayedAndForeignTokens() throws Exception {
+        long token = service.issueProbe("s1");
+        Thread.sleep(30);
+        service.recordEcho("alice", "s1", token);
+        long rtt = service.getRoundTripMs("alice");
+
+        // The same token again, and one issued to another session
+        service.recordEcho("alice", "s1", token);
+        long foreign = service.issueProbe("s2");
+        service.recordEcho("alice", "s1", foreign);
+
+        assertEquals(rtt, service.getRoundTripMs("alice"));
+    }
+
+    @Test
+    void tokensSurviveAJavaScriptNumberRoundTrip() throws Exception {
+        long first = service.issueProbe("s1");
+        long second = service.issueProbe("s1");
+        assertTrue(second != first);
+        // What a browser echoes back after JSON.parse
+        assertEquals(second, (long) (double) second);
+
+        // Superseded probe
+        service.recordEcho("alice", "s1", first);
+        assertEquals(0, service.getRoundTripMs("alice"));
+
+        Thread.sleep(20);
+        service.recordEcho("alice", "s1", (long) (double) second);
+        assertTrue(service.getRoundTripMs("alice") >= 20);
+    }
+
+    @Test
+    void closingOneTabKeepsTheOthersRoundTrip() throws Exception {
+        new JitteryClient("alice", "fast", 20, 0, new Random(1)).ping(3);
+        new JitteryClient("alice", "slow", 120, 0, new Random(1)).ping(3);
+
+        long fastRtt = service.getRoundTripMs("alice");
+        assertTrue(fastRtt < 80, "slower tab must not inflate the credit: " + fastRtt);
+
+        service.forgetSession("alice", "fast");
+        assertTrue(service.getRoundTripMs("alice") >= 100);
+
+        service.forgetSession("alice", "slow");
+        assertEquals(0, service.getRoundTripMs("alice"));
+    }
+
+    /** Answers every probe after the base latency plus uniform jitter. */
+    private class JitteryClient {
+        private final String userId;
+        private final String sessionId;
+        private final int baseMs;
+        private final int jitterMs;
+        private final Random random;
+
+        JitteryClient(String userId, String sessionId, int baseMs, int jitterMs, Random random) {
+            this.userId = userId;
+            this.sessionId = sessionId;
+            this.baseMs = baseMs;
+            this.jitterMs = jitterMs;
+            this.random = random;
+        }
+
+        void ping(int rounds) throws InterruptedException {
+            for (int i = 0; i < rounds; i++) {
+                long token = service.issueProbe(sessionId);
+                int delay = baseMs + (jitterMs > 0 ? random.nextInt(2 * jitterMs + 1) - jitterMs : 0);
+                Thread.sleep(Math.max(0, delay));
+                service.recordEcho(userId, sessionId, token);
+            }
+        }
+    }
+}
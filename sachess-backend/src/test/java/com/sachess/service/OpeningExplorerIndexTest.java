@@ -0,0 +1,69 @@
+package com.sachess.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpeningExplorerIndexTest {
+
+    private static final int E2E4 = OpeningExplorerIndex.moveCode("e2e4");
+    private static final int D2D4 = OpeningExplorerIndex.moveCode("d2d4");
+
+    @Test
+    void savedIndexLoadsBack() throws Exception {
+        OpeningExplorerIndex saved = new OpeningExplorerIndex();
+        saved.recordGame(new long[]{1L}, new int[]{E2E4}, 1, 1, 1500, LocalDateTime.of(2026, 1, 1, 12, 0), "g1");
+        Path file = Files.createTempDirectory("explorer").resolve("index.bin");
+        assertTrue(saved.save(file));
+
+        OpeningExplorerIndex loaded = new OpeningExplorerIndex();
+        loaded.load(file);
+
+        assertEquals(1, loaded.get(1L, E2E4).whiteWins());
+        assertEquals("g1", loaded.watermarkId());
+    }
+
+    @Test
+    void truncatedFileLeavesTheIndexUntouched() throws Exception {
+        OpeningExplorerIndex other = new OpeningExplorerIndex();
+        for (int i = 0; i < 100; i++) {
+            other.recordGame(new long[]{i}, new int[]{D2D4}, 1, 0, 1500, LocalDateTime.of(2026, 1, 1, 12, 0), "o" + i);
+        }
+        Path file = Files.createTempDirectory("explorer").resolve("index.bin");
+        other.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        OpeningExplorerIndex index = new OpeningExplorerIndex();
+        index.recordGame(new long[]{1L}, new int[]{E2E4}, 1, -1, 1500, LocalDateTime.of(2026, 1, 1, 12, 0), "g1");
+
+        assertThrows(IOException.class, () -> index.load(file));
+        assertEquals(1, index.size());
+        assertEquals(1, index.get(1L, E2E4).blackWins());
+        assertNull(index.get(5L, D2D4));
+        assertEquals("g1", index.watermarkId());
+    }
+
+    @Test
+    void clearDropsEntriesAndWatermarkAndNeedsASave() throws Exception {
+        OpeningExplorerIndex index = new OpeningExplorerIndex();
+        index.recordGame(new long[]{1L}, new int[]{E2E4}, 1, 1, 1500, LocalDateTime.of(2026, 1, 1, 12, 0), "g1");
+        Path file = Files.createTempDirectory("explorer").resolve("index.bin");
+        index.save(file);
+
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertNull(index.watermarkId());
+        assertTrue(index.save(file));
+    }
+}
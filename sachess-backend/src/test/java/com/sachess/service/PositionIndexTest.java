@@ -0,0 +1,98 @@
+package com.sachess.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PositionIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Test
+    void matchesANaiveScanAcrossInlineAndChunkedLists() {
+        Random random = new Random(7);
+        PositionIndex index = new PositionIndex();
+        List<long[]> games = new ArrayList<>();
+        for (int game = 0; game < 3_000; game++) {
+            // Key 0 is in every game (long, multi-chunk list), a few keys are shared, most are unique
+            long[] keys = new long[20];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = i == 0 ? 0 : random.nextInt(4) == 0 ? random.nextInt(50) : 1_000_000L + game * 100L + i;
+            }
+            games.add(keys);
+            index.addGame(id(game), keys, keys.length, START.plusSeconds(game));
+        }
+
+        for (long key : new long[]{0, 3, 17, 1_000_000L + 1234 * 100L + 5, 999}) {
+            List<String> expected = new ArrayList<>();
+            for (int game = games.size() - 1; game >= 0; game--) {
+                for (long k : games.get(game)) {
+                    if (k == key) {
+                        expected.add(id(game));
+                        break;
+                    }
+                }
+            }
+            assertEquals(expected, pageThrough(index, key, 37), "key " + key);
+        }
+        assertTrue(index.compressedBytes() > 0);
+    }
+
+    @Test
+    void cursorKeepsItsPlaceAcrossARebuild() {
+        PositionIndex before = new PositionIndex();
+        PositionIndex after = new PositionIndex();
+        for (int game = 0; game < 10; game++) {
+            before.addGame(id(game), new long[]{42}, 1, START.plusSeconds(game * 2));
+            if (game == 5) {
+                // A late-committing game the rebuild picks up, shifting every later ordinal
+                after.addGame("late", new long[]{42}, 1, START.plusSeconds(game * 2 - 1));
+            }
+            after.addGame(id(game), new long[]{42}, 1, START.plusSeconds(game * 2));
+        }
+
+        PositionIndex.Page first = before.find(42, null, null, 3);
+        assertEquals(List.of(id(9), id(8), id(7)), first.gameIds());
+
+        PositionIndex.Page next = after.find(42, first.endedAts().get(2), first.gameIds().get(2), 3);
+        assertEquals(List.of(id(6), id(5), "late"), next.gameIds());
+    }
+
+    @Test
+    void singleGamePositionsAreInline() {
+        PositionIndex index = new PositionIndex();
+        for (int game = 0; game < 1_000; game++) {
+            index.addGame(id(game), new long[]{game, game}, 2, START.plusSeconds(game));
+        }
+
+        assertEquals(1_000, index.positions());
+        assertEquals(0, index.compressedBytes());
+        assertEquals(List.of(id(500)), index.find(500, null, null, 10).gameIds());
+        assertEquals(List.of(), index.find(500, START.plusSeconds(500), id(500), 10).gameIds());
+    }
+
+    private static List<String> pageThrough(PositionIndex index, long key, int limit) {
+        Set<String> seen = new LinkedHashSet<>();
+        PositionIndex.Page page = index.find(key, null, null, limit);
+        while (!page.gameIds().isEmpty()) {
+            for (String id : page.gameIds()) {
+                assertTrue(seen.add(id), "duplicate " + id);
+            }
+            int last = page.gameIds().size() - 1;
+            page = index.find(key, page.endedAts().get(last), page.gameIds().get(last), limit);
+        }
+        return new ArrayList<>(seen);
+    }
+
+    private static String id(int game) {
+        return String.format("g%05d", game);
+    }
+}
@@ -0,0 +1,49 @@
+package com.sachess.service;
+
+import com.sachess.engine.EndgameTables;
+import com.sachess.entity.Game;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TablebaseServiceTest {
+
+    private static EndgameTables tables;
+
+    private final TablebaseService service = new TablebaseService();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (tables == null) {
+            tables = EndgameTables.open(Files.createTempDirectory("satb"), true);
+        }
+        ReflectionTestUtils.setField(service, "adjudicate", true);
+        ReflectionTestUtils.setField(service, "tables", tables);
+    }
+
+    @Test
+    void adjudicatesWinsForTheRightColour() {
+        assertEquals(Game.GameResult.WHITE_WINS, service.adjudicate("4k3/8/8/8/8/8/8/4K2Q w - - 0 1"));
+        assertEquals(Game.GameResult.WHITE_WINS, service.adjudicate("4k3/8/8/8/8/8/8/4K2Q b - - 0 1"));
+        assertEquals(Game.GameResult.BLACK_WINS, service.adjudicate("8/8/8/8/8/8/8/K1k4q w - - 0 1"));
+        assertEquals(Game.GameResult.DRAW, service.adjudicate("8/8/8/8/8/4k3/4P3/4K3 w - - 0 1"));
+    }
+
+    @Test
+    void leavesWinsTheFiftyMoveRuleCouldDrawToPlay() {
+        // Mate in 13 plies: fine with 80 plies on the clock, not with 90
+        assertEquals(Game.GameResult.WHITE_WINS, service.adjudicate("4k3/8/8/8/8/8/8/4K2Q w - - 80 60"));
+        assertNull(service.adjudicate("4k3/8/8/8/8/8/8/4K2Q w - - 90 60"));
+    }
+
+    @Test
+    void staysOffUnlessEnabled() {
+        ReflectionTestUtils.setField(service, "adjudicate", false);
+        assertNull(service.adjudicate("4k3/8/8/8/8/8/8/4K2Q w - - 0 1"));
+    }
+}
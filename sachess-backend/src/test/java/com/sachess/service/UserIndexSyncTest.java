@@ -0,0 +1,132 @@
+package com.sachess.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sachess.config.RelaySubscriber;
+import com.sachess.entity.User;
+import com.sachess.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserIndexSyncTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Stands in for the users table
+    private final List<User> table = new ArrayList<>();
+    private volatile CountDownLatch readStarted;
+    private volatile CountDownLatch releaseRead;
+    private LeaderboardIndex leaderboardIndex;
+    private UsernameSearchIndex usernameSearchIndex;
+    private UserIndexSync sync;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository repository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(), new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAllUsernames")) {
+                        return table.stream().map(user -> new Object[]{user.getId(), user.getUsername()}).toList();
+                    }
+                    if (!method.getName().equals("findAll")) {
+                        return null;
+                    }
+                    List<User> snapshot = new ArrayList<>(table);
+                    if (releaseRead != null) {
+                        readStarted.countDown();
+                        releaseRead.await();
+                    }
+                    return snapshot;
+                });
+        leaderboardIndex = new LeaderboardIndex(repository);
+        usernameSearchIndex = new UsernameSearchIndex(repository);
+        ReflectionTestUtils.setField(usernameSearchIndex, "maxScan", 5000);
+        RelaySubscriber relaySubscriber = new RelaySubscriber();
+        ReflectionTestUtils.setField(relaySubscriber, "relayEnabled", true);
+        sync = new UserIndexSync(leaderboardIndex, usernameSearchIndex,
+                new SimpMessagingTemplate((message, timeout) -> true), relaySubscriber, objectMapper);
+    }
+
+    @Test
+    void appliesChangesFromOtherNodes() throws Exception {
+        UserIndexSync.Change change = new UserIndexSync.Change("other-node", false,
+                List.of(LeaderboardIndex.Player.from(user("u1", 1500))));
+
+        sync.receive(objectMapper.writeValueAsBytes(change));
+
+        assertEquals(1500, awaitRating("u1"));
+    }
+
+    @Test
+    void renameOnAnotherNodeIsSearchableHere() throws Exception {
+        User renamed = user("u1", 1500);
+        renamed.setUsername("Magnus");
+
+        sync.receive(objectMapper.writeValueAsBytes(new UserIndexSync.Change("other-node", false,
+                List.of(LeaderboardIndex.Player.from(renamed)))));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (usernameSearchIndex.search("agn", 10).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("u1"), usernameSearchIndex.search("agn", 10));
+        assertEquals(1500, awaitRating("u1"));
+    }
+
+    @Test
+    void ignoresItsOwnChanges() throws Exception {
+        String nodeId = (String) ReflectionTestUtils.getField(sync, "nodeId");
+        UserIndexSync.Change echo = new UserIndexSync.Change(nodeId, false,
+                List.of(LeaderboardIndex.Player.from(user("u1", 1500))));
+
+        sync.receive(objectMapper.writeValueAsBytes(echo));
+        // Anything applied would be applied before this rebuild request from another node
+        table.add(user("u2", 1300));
+        sync.receive(objectMapper.writeValueAsBytes(new UserIndexSync.Change("other-node", true, List.of())));
+
+        assertEquals(1300, awaitRating("u2"));
+        assertNull(leaderboardIndex.rankOf("u1"));
+    }
+
+    @Test
+    void updateDuringARebuildSurvivesTheOlderSnapshot() throws Exception {
+        table.add(user("u1", 1200));
+        readStarted = new CountDownLatch(1);
+        releaseRead = new CountDownLatch(1);
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(leaderboardIndex::rebuild);
+        assertTrue(readStarted.await(5, TimeUnit.SECONDS));
+        // Committed after the rebuild read the table
+        sync.updated(List.of(user("u1", 1250)));
+        releaseRead.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1250, leaderboardIndex.rankOf("u1").player().rating());
+    }
+
+    private int awaitRating(String userId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            LeaderboardIndex.RankedPlayer ranked = leaderboardIndex.rankOf(userId);
+            if (ranked != null) {
+                return ranked.player().rating();
+            }
+            Thread.sleep(10);
+        }
+        return -1;
+    }
+
+    private static User user(String id, int rating) {
+        return User.builder().id(id).username(id).email(id + "@example.com").rating(rating).build();
+    }
+}
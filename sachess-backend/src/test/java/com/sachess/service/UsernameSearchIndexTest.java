@@ -0,0 +1,56 @@
+package com.sachess.service;
+
+import com.sachess.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UsernameSearchIndexTest {
+
+    private UsernameSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository repository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(), new Class<?>[]{UserRepository.class}, (proxy, method, args) -> null);
+        index = new UsernameSearchIndex(repository);
+        ReflectionTestUtils.setField(index, "maxScan", 5000);
+    }
+
+    @Test
+    void substringMatchesComeBackAlphabetically() {
+        index.put("u1", "Zugzwang");
+        index.put("u2", "bigzug");
+        index.put("u3", "Rook");
+        index.put("u4", "ZUGLOCK");
+
+        assertEquals(List.of("u2", "u4", "u1"), index.search("zug", 10));
+        assertEquals(List.of("u2", "u4"), index.search("zug", 2));
+    }
+
+    @Test
+    void renameMovesTheUser() {
+        index.put("u1", "alice");
+        index.put("u1", "bob");
+
+        assertEquals(List.of(), index.search("ali", 10));
+        assertEquals(List.of("u1"), index.search("bo", 10));
+    }
+
+    @Test
+    void checksAtMostMaxScanCandidates() {
+        ReflectionTestUtils.setField(index, "maxScan", 100);
+        for (int i = 0; i < 1_000; i++) {
+            index.put("u" + i, "player" + i);
+        }
+
+        // Every candidate matches, but only the first 100 checked can be returned
+        assertEquals(100, index.search("pla", 1_000).size());
+        assertEquals(10, index.search("pla", 10).size());
+    }
+}
@@ -0,0 +1,262 @@
+package com.sachess.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sachess.config.EmbeddedStompBroker;
+import com.sachess.config.RelaySubscriber;
+import com.sachess.dto.GameMessage;
+import com.sachess.entity.Game;
+import com.sachess.service.LagCompensationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Latency benchmark for the binary endpoint: how long a game event holds the publishing (mover's) thread,
+ * how long until the last subscriber has the frame, and how big the frame is next to the JSON one.
+ * Numbers are printed; the assertions only check delivery, ordering and frame size.
+ */
+class BinaryFanOutBenchmarkTest {
+
+    private static final int SUBSCRIBERS = 50;
+    private static final int EVENTS = 2_000;
+    private static final String GAME_ID = "3f0c6a52-6d1e-4b8e-9a57-2f4f1d0f6c11";
+
+    private BinaryGameHandler handler;
+
+    // One latch per event, released once every subscriber has its frame
+    private final CountDownLatch[] delivered = new CountDownLatch[EVENTS];
+
+    @BeforeEach
+    void setUp() {
+        handler = handler(new RelaySubscriber());
+        for (int i = 0; i < EVENTS; i++) {
+            delivered[i] = new CountDownLatch(SUBSCRIBERS);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        handler.shutdown();
+    }
+
+    @Test
+    void fanOutLatency() throws Exception {
+        List<RecordingSession> sessions = new ArrayList<>();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            RecordingSession session = new RecordingSession("s" + i);
+            handler.afterConnectionEstablished(session);
+            handler.handleBinaryMessage(session, new BinaryMessage(subscribeFrame(GAME_ID)));
+            sessions.add(session);
+        }
+
+        // Paced like a real game: the next move is published once the previous one reached everybody
+        long[] publishNanos = new long[EVENTS];
+        long[] deliveryNanos = new long[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            GameMessage message = moveEvent(i);
+            long sentAt = System.nanoTime();
+            handler.onGameMessage(message);
+            publishNanos[i] = System.nanoTime() - sentAt;
+
+            assertTrue(delivered[i].await(10, TimeUnit.SECONDS), "event " + i + " not delivered");
+            long last = 0;
+            for (RecordingSession session : sessions) {
+                last = Math.max(last, session.arrivals[i]);
+            }
+            deliveryNanos[i] = last - sentAt;
+        }
+
+        for (RecordingSession session : sessions) {
+            // Frames of one game arrive in publish order
+            for (int i = 0; i < EVENTS; i++) {
+                assertEquals(i, session.sequence[i]);
+            }
+        }
+
+        byte[] binary = BinaryProtocol.encodeEvent(moveEvent(1));
+        byte[] json = new ObjectMapper().writeValueAsBytes(moveEvent(1));
+        assertTrue(binary.length < json.length / 2, binary.length + " vs " + json.length);
+
+        System.out.printf("binary fan-out: %d events x %d subscribers%n", EVENTS, SUBSCRIBERS);
+        System.out.printf("  publisher blocked  p50 %6.1f us  p99 %6.1f us%n",
+                percentile(publishNanos, 50) / 1e3, percentile(publishNanos, 99) / 1e3);
+        System.out.printf("  last delivery      p50 %6.1f us  p99 %6.1f us%n",
+                percentile(deliveryNanos, 50) / 1e3, percentile(deliveryNanos, 99) / 1e3);
+        System.out.printf("  frame size         binary %d B  json %d B%n", binary.length, json.length);
+    }
+
+    @Test
+    void relayFanOutLatency() throws Exception {
+        try (EmbeddedStompBroker broker = new EmbeddedStompBroker()) {
+            RelaySubscriber relaySubscriber = new RelaySubscriber();
+            ReflectionTestUtils.setField(relaySubscriber, "relayEnabled", true);
+            ReflectionTestUtils.setField(relaySubscriber, "relayHost", "127.0.0.1");
+            ReflectionTestUtils.setField(relaySubscriber, "relayPort", broker.port());
+            ReflectionTestUtils.setField(relaySubscriber, "relayLogin", "guest");
+            ReflectionTestUtils.setField(relaySubscriber, "relayPasscode", "guest");
+            ReflectionTestUtils.setField(relaySubscriber, "relayVirtualHost", "");
+            ReflectionTestUtils.setField(relaySubscriber, "reconnectDelayMs", 100L);
+            relaySubscriber.start();
+            handler.shutdown();
+            handler = handler(relaySubscriber);
+            ObjectMapper objectMapper = new ObjectMapper();
+            try {
+                List<RecordingSession> sessions = new ArrayList<>();
+                for (int i = 0; i < SUBSCRIBERS; i++) {
+                    RecordingSession session = new RecordingSession("s" + i);
+                    handler.afterConnectionEstablished(session);
+                    handler.handleBinaryMessage(session, new BinaryMessage(subscribeFrame(GAME_ID)));
+                    sessions.add(session);
+                }
+                // One broker subscription per game, however many sessions follow it
+                assertTrue(broker.awaitSubscriptions(1), "game topic never subscribed");
+
+                // Events come from the broker, whichever node published them; the local event is ignored
+                long[] deliveryNanos = new long[EVENTS];
+                for (int i = 0; i < EVENTS; i++) {
+                    GameMessage message = moveEvent(i);
+                    long sentAt = System.nanoTime();
+                    handler.onGameMessage(message);
+                    broker.publish("/topic/game/" + GAME_ID, objectMapper.writeValueAsBytes(message));
+
+                    assertTrue(delivered[i].await(10, TimeUnit.SECONDS), "event " + i + " not delivered");
+                    long last = 0;
+                    for (RecordingSession session : sessions) {
+                        last = Math.max(last, session.arrivals[i]);
+                    }
+                    deliveryNanos[i] = last - sentAt;
+                }
+
+                for (RecordingSession session : sessions) {
+                    assertEquals(EVENTS, session.received.get());
+                    for (int i = 0; i < EVENTS; i++) {
+                        assertEquals(i, session.sequence[i]);
+                    }
+                    handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+                }
+                // The last session leaving drops the broker subscription
+                assertTrue(broker.awaitNoSubscriptions(), "game topic still subscribed");
+
+                System.out.printf("binary fan-out through the broker: %d events x %d subscribers%n", EVENTS, SUBSCRIBERS);
+                System.out.printf("  last delivery      p50 %6.1f us  p99 %6.1f us%n",
+                        percentile(deliveryNanos, 50) / 1e3, percentile(deliveryNanos, 99) / 1e3);
+            } finally {
+                relaySubscriber.stop();
+            }
+        }
+    }
+
+    private static BinaryGameHandler handler(RelaySubscriber relaySubscriber) {
+        BinaryGameHandler handler = new BinaryGameHandler(null, new LagCompensationService(), null,
+                relaySubscriber, new ObjectMapper());
+        ReflectionTestUtils.setField(handler, "sendTimeLimit", 20_000);
+        ReflectionTestUtils.setField(handler, "sendBufferSizeLimit", 512 * 1024);
+        ReflectionTestUtils.setField(handler, "fanOutThreads", 4);
+        handler.init();
+        return handler;
+    }
+
+    private static GameMessage moveEvent(int ply) {
+        return GameMessage.builder()
+                .type(GameMessage.MessageType.MOVE)
+                .gameId(GAME_ID)
+                .playerId("c1d2e3f4-0000-4000-8000-000000000001")
+                .from("e2")
+                .to("e4")
+                .fen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1")
+                .pgn("1. e4 ")
+                .status(Game.GameStatus.ACTIVE)
+                .currentTurn(Game.Color.BLACK)
+                .whiteTimeRemaining(60_000 - ply)
+                .blackTimeRemaining(60_000)
+                .message(Integer.toString(ply))
+                .build();
+    }
+
+    private static byte[] subscribeFrame(String gameId) {
+        byte[] id = gameId.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(2 + id.length).put(BinaryProtocol.SUBSCRIBE).put((byte) id.length).put(id).array();
+    }
+
+    private static double percentile(long[] values, int percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    /** Records when each event frame arrives and which ply it carried (from its message field). */
+    private class RecordingSession implements WebSocketSession {
+        private final String id;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final long[] arrivals = new long[EVENTS];
+        private final int[] sequence = new int[EVENTS];
+        private final AtomicInteger received = new AtomicInteger();
+
+        RecordingSession(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            long now = System.nanoTime();
+            ByteBuffer frame = ((BinaryMessage) message).getPayload().duplicate();
+            if (frame.get() != BinaryProtocol.EVENT) {
+                return;
+            }
+            // [u8 messageType][str8 gameId][6 x u8][2 x i32][str16 fen][str16 message]
+            frame.get();
+            int gameIdLength = frame.get() & 0xFF;
+            frame.position(frame.position() + gameIdLength + 6 + 8);
+            int fenLength = frame.getShort();
+            frame.position(frame.position() + fenLength);
+            byte[] text = new byte[frame.getShort()];
+            frame.get(text);
+
+            int index = received.getAndIncrement();
+            arrivals[index] = now;
+            sequence[index] = Integer.parseInt(new String(text, StandardCharsets.UTF_8));
+            delivered[index].countDown();
+        }
+
+        @Override public String getId() { return id; }
+        @Override public URI getUri() { return URI.create("ws://localhost/ws-binary"); }
+        @Override public HttpHeaders getHandshakeHeaders() { return new HttpHeaders(); }
+        @Override public Map<String, Object> getAttributes() { return attributes; }
+        @Override public Principal getPrincipal() { return null; }
+        @Override public InetSocketAddress getLocalAddress() { return null; }
+        @Override public InetSocketAddress getRemoteAddress() { return null; }
+        @Override public String getAcceptedProtocol() { return null; }
+        @Override public void setTextMessageSizeLimit(int messageSizeLimit) { }
+        @Override public int getTextMessageSizeLimit() { return 0; }
+        @Override public void setBinaryMessageSizeLimit(int messageSizeLimit) { }
+        @Override public int getBinaryMessageSizeLimit() { return 0; }
+        @Override public List<WebSocketExtension> getExtensions() { return List.of(); }
+        @Override public boolean isOpen() { return true; }
+        @Override public void close() { }
+        @Override public void close(CloseStatus status) { }
+    }
+}